@@ -2,8 +2,10 @@ package com.example.clinic;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ClinicApplication {
     public static void main(String[] args) {
         SpringApplication.run(ClinicApplication.class, args);
@@ -0,0 +1,69 @@
+package com.example.clinic.config;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.example.clinic.repository.DoctorRepository;
+
+/**
+ * Ownership checks for the /api endpoints that are open to any logged-in user but must only show a
+ * user their own data: admins see everything, a doctor their own doctor record, a patient their own
+ * username.
+ */
+@Component
+public class ClinicAccess {
+
+    private final DoctorRepository doctorRepository;
+
+    public ClinicAccess(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    /**
+     * The logged-in user of the current request, or null for anonymous requests.
+     */
+    public static Authentication currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth;
+    }
+
+    public static boolean isAdmin(Authentication auth) {
+        return hasAuthority(auth, "ROLE_ADMIN");
+    }
+
+    /**
+     * Id of the doctor record the user logs in as, or null when the user is not a doctor.
+     */
+    public Long ownDoctorId(Authentication auth) {
+        if (!hasAuthority(auth, "ROLE_DOCTOR")) {
+            return null;
+        }
+        return doctorRepository.findByUsername(auth.getName()).map(doctor -> doctor.getId()).orElse(null);
+    }
+
+    public boolean mayActAsDoctor(Authentication auth, Long doctorId) {
+        return isAdmin(auth) || (doctorId != null && doctorId.equals(ownDoctorId(auth)));
+    }
+
+    public static boolean mayActAsPatient(Authentication auth, String patientUsername) {
+        return isAdmin(auth) || (patientUsername != null && patientUsername.equals(auth.getName()));
+    }
+
+    private static boolean hasAuthority(Authentication auth, String authority) {
+        if (auth == null) {
+            return false;
+        }
+        for (GrantedAuthority granted : auth.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
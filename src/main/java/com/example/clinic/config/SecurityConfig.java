@@ -9,6 +9,7 @@ import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,31 +22,40 @@ import java.util.stream.Collectors;
 public class SecurityConfig {
 
     private final UserRepository userRepository;
-        public SecurityConfig(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final UserDetailsCache userDetailsCache;
+        public SecurityConfig(UserRepository userRepository, PasswordEncoder passwordEncoder, UserDetailsCache userDetailsCache) {
                 this.userRepository = userRepository;
+                this.userDetailsCache = userDetailsCache;
         }
 
+    // cached per username; changes to a user publish a UserChangedEvent that evicts it
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return username -> userDetailsCache.get(username, () -> loadUser(username));
+    }
+
+    private UserDetails loadUser(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-            Collection<GrantedAuthority> authorities = user.getRoles().stream()
-                    .map(r -> new SimpleGrantedAuthority(r.name()))
-                    .collect(Collectors.toList());
+        Collection<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(r -> new SimpleGrantedAuthority(r.name()))
+                .collect(Collectors.toList());
 
-            return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
-                    .password(user.getPassword())
-                    .authorities(authorities)
-                    .build();
-        };
+        return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                .password(user.getPassword())
+                .authorities(authorities)
+                .build();
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(auth -> auth
+                        // admin-only APIs must be matched before the blanket /api/** rule below
+                        .requestMatchers(new AntPathRequestMatcher("/api/admin/**")).hasAuthority("ROLE_ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/actuator/health")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/actuator/**")).hasAuthority("ROLE_ADMIN")
                         // permit common static resources and specific public endpoints
                         .requestMatchers(PathRequest.toStaticResources().atCommonLocations()).permitAll()
                         .requestMatchers(new AntPathRequestMatcher("/login"), new AntPathRequestMatcher("/h2-console/**"), new AntPathRequestMatcher("/ws/**"), new AntPathRequestMatcher("/"), new AntPathRequestMatcher("/dashboard"), new AntPathRequestMatcher("/js/**"), new AntPathRequestMatcher("/css/**"), new AntPathRequestMatcher("/webjars/**"), new AntPathRequestMatcher("/api/**")).permitAll()
@@ -0,0 +1,265 @@
+package com.example.clinic.config;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps one stalled browser tab from holding memory and outbound threads. Every WebSocket session is
+ * tracked (via the handler decorator registered in {@link WebSocketConfig}) with the start of the write
+ * currently in progress and the number of messages waiting for it on the outbound channel.
+ *
+ * A session is slow when a write has been stuck for longer than {@code slow-after-ms} or more than
+ * {@code max-pending} messages are waiting for it. Broker messages to a slow session are then either
+ * dropped ({@code policy=drop}) or the session is closed ({@code policy=disconnect}, the default); the
+ * dashboards reconnect and catch up from the change feed. A session whose write stays stuck for the
+ * transport's send time limit is closed under either policy, and the container abandons that write then,
+ * freeing the outbound thread it held.
+ */
+@Component
+public class SlowConsumerGuard implements ExecutorChannelInterceptor {
+
+    public enum Policy { DROP, DISCONNECT }
+
+    // Tomcat's cap on one blocking write (20 s by default), read per session from its user properties
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final Policy policy;
+    private final long slowAfterNanos;
+    private final long sendTimeLimitNanos;
+    private final int maxPending;
+
+    private final Map<String, TrackedSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+
+    // closing a session can block on the very socket that is stuck, so never do it on a broker thread
+    private final ExecutorService closer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "websocket-slow-consumer-close");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SlowConsumerGuard(MeterRegistry meterRegistry,
+                             @Value("${clinic.websocket.slow-consumer.policy:disconnect}") String policy,
+                             @Value("${clinic.websocket.slow-consumer.slow-after-ms:2000}") long slowAfterMillis,
+                             @Value("${clinic.websocket.slow-consumer.max-pending:500}") int maxPending,
+                             @Value("${clinic.websocket.transport.send-time-limit-ms:10000}") long sendTimeLimitMillis) {
+        this.policy = Policy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        this.slowAfterNanos = TimeUnit.MILLISECONDS.toNanos(slowAfterMillis);
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+        this.maxPending = maxPending;
+
+        Gauge.builder("clinic.websocket.sessions.active", sessions, Map::size)
+                .description("Open WebSocket sessions").register(meterRegistry);
+        Gauge.builder("clinic.websocket.sessions.slow", this, SlowConsumerGuard::slowSessions)
+                .description("WebSocket sessions currently considered slow").register(meterRegistry);
+        Gauge.builder("clinic.websocket.outbound.pending", this, SlowConsumerGuard::pendingMessages)
+                .description("Messages queued on the outbound channel for all sessions").register(meterRegistry);
+        Gauge.builder("clinic.websocket.outbound.pending.max", this, SlowConsumerGuard::maxPendingMessages)
+                .description("Messages queued on the outbound channel for the most backed-up session").register(meterRegistry);
+        FunctionCounter.builder("clinic.websocket.dropped", dropped, AtomicLong::get)
+                .description("Messages not delivered because the session was slow").register(meterRegistry);
+        FunctionCounter.builder("clinic.websocket.disconnected", disconnected, AtomicLong::get)
+                .description("Sessions closed because they were slow").register(meterRegistry);
+    }
+
+    /**
+     * Decorator factory for {@code WebSocketTransportRegistration}: registers each session and hands the
+     * tracking wrapper to the STOMP handler, so its writes go through {@link TrackedSession#sendMessage}.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                TrackedSession tracked = new TrackedSession(session);
+                sessions.put(session.getId(), tracked);
+                limitBlockingSend(session);
+                super.afterConnectionEstablished(tracked);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                TrackedSession tracked = sessions.remove(session.getId());
+                super.afterConnectionClosed(tracked != null ? tracked : session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Closing a session does not interrupt a write already stuck on its socket, and that write holds an
+     * outbound thread; let the container give up on it after the send time limit rather than its default.
+     */
+    private void limitBlockingSend(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session container = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (container != null) {
+                container.getUserProperties().put(BLOCKING_SEND_TIMEOUT,
+                        TimeUnit.NANOSECONDS.toMillis(sendTimeLimitNanos));
+            }
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        TrackedSession session = sessionOf(message);
+        if (session == null) {
+            return message;
+        }
+        // connection-level frames (CONNECTED, heartbeats, ERROR) always go through
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            if (session.closing.get()) {
+                dropped.incrementAndGet();
+                return null;
+            }
+            long now = System.nanoTime();
+            if (session.stalledFor(now) > sendTimeLimitNanos
+                    || (policy == Policy.DISCONNECT && session.isSlow(now))) {
+                dropped.incrementAndGet();
+                disconnect(session);
+                return null;
+            }
+            if (session.isSlow(now)) {
+                dropped.incrementAndGet();
+                return null;
+            }
+        }
+        session.pending.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // rejected by the outbound executor: it will never be handled
+        if (ex != null) {
+            release(message);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        release(message);
+    }
+
+    private void release(Message<?> message) {
+        TrackedSession session = sessionOf(message);
+        if (session != null) {
+            session.pending.updateAndGet(n -> Math.max(0, n - 1));
+        }
+    }
+
+    private TrackedSession sessionOf(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    private void disconnect(TrackedSession session) {
+        if (!session.closing.compareAndSet(false, true)) {
+            return;
+        }
+        disconnected.incrementAndGet();
+        System.err.println("Closing slow WebSocket session " + session.getId());
+        closer.execute(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ex) {
+                System.err.println("Could not close WebSocket session " + session.getId() + ": " + ex.getMessage());
+            }
+        });
+    }
+
+    private int slowSessions() {
+        long now = System.nanoTime();
+        int slow = 0;
+        for (TrackedSession session : sessions.values()) {
+            if (session.isSlow(now)) {
+                slow++;
+            }
+        }
+        return slow;
+    }
+
+    private long pendingMessages() {
+        long total = 0;
+        for (TrackedSession session : sessions.values()) {
+            total += session.pending.get();
+        }
+        return total;
+    }
+
+    private int maxPendingMessages() {
+        int max = 0;
+        for (TrackedSession session : sessions.values()) {
+            max = Math.max(max, session.pending.get());
+        }
+        return max;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closer.shutdownNow();
+    }
+
+    /**
+     * Records when the write in progress started. Writes to one session are already serialised by the
+     * STOMP handler's own session decorator, so a single field is enough.
+     */
+    private final class TrackedSession extends WebSocketSessionDecorator {
+
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean closing = new AtomicBoolean();
+        private volatile long writeStartedAt;
+        private volatile boolean writing;
+
+        TrackedSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            writeStartedAt = System.nanoTime();
+            writing = true;
+            try {
+                super.sendMessage(message);
+            } finally {
+                writing = false;
+            }
+        }
+
+        long stalledFor(long now) {
+            return writing ? now - writeStartedAt : 0;
+        }
+
+        boolean isSlow(long now) {
+            return stalledFor(now) > slowAfterNanos || pending.get() > maxPending;
+        }
+    }
+}
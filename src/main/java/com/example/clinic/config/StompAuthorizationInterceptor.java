@@ -0,0 +1,107 @@
+package com.example.clinic.config;
+
+import java.security.Principal;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.service.AppointmentEventPublisher;
+
+/**
+ * Authorises STOMP subscriptions against the user of the HTTP session the WebSocket was opened from.
+ * Logged-in users may subscribe to their own user queue, doctors to their own topic and admins to the
+ * admin topic and any doctor's topic; everything else is rejected with an ERROR frame.
+ * Clients may SEND only to application destinations ({@code /app/**}): the brokers would otherwise pass
+ * a client frame on {@code /topic}, {@code /queue} or {@code /user} straight to the subscribers as if
+ * the server had published it.
+ */
+@Component
+public class StompAuthorizationInterceptor implements ChannelInterceptor {
+
+    private static final String USER_QUEUE = "/user" + AppointmentEventPublisher.USER_QUEUE;
+    private static final String APPLICATION_PREFIX = "/app/";
+
+    private final DoctorRepository doctorRepository;
+
+    public StompAuthorizationInterceptor(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        String destination = accessor.getDestination();
+        if (command == StompCommand.SEND || command == StompCommand.MESSAGE) {
+            if (destination == null || !destination.startsWith(APPLICATION_PREFIX)) {
+                throw new MessageDeliveryException("Sending to " + destination + " is not allowed");
+            }
+            return message;
+        }
+        if (command != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+        if (!isAllowed(accessor.getUser(), destination)) {
+            throw new MessageDeliveryException("Subscription to " + destination + " is not allowed");
+        }
+        return message;
+    }
+
+    private boolean isAllowed(Principal user, String destination) {
+        if (!(user instanceof Authentication auth) || !auth.isAuthenticated() || destination == null) {
+            return false;
+        }
+        if (destination.equals(USER_QUEUE)) {
+            return true;
+        }
+        if (destination.equals(AppointmentEventPublisher.ADMIN_TOPIC)) {
+            return hasAuthority(auth, "ROLE_ADMIN");
+        }
+        Long doctorId = doctorIdOf(destination);
+        if (doctorId != null) {
+            if (hasAuthority(auth, "ROLE_ADMIN")) {
+                return true;
+            }
+            return hasAuthority(auth, "ROLE_DOCTOR") && doctorRepository.findByUsername(auth.getName())
+                    .map(doctor -> doctorId.equals(doctor.getId()))
+                    .orElse(false);
+        }
+        return false;
+    }
+
+    // "/topic/doctors/{id}/appointments" -> id, otherwise null
+    private static Long doctorIdOf(String destination) {
+        String prefix = AppointmentEventPublisher.DOCTOR_TOPIC_PREFIX;
+        String suffix = AppointmentEventPublisher.DOCTOR_TOPIC_SUFFIX;
+        if (!destination.startsWith(prefix) || !destination.endsWith(suffix)
+                || destination.length() <= prefix.length() + suffix.length()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(destination.substring(prefix.length(), destination.length() - suffix.length()));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static boolean hasAuthority(Authentication auth, String authority) {
+        for (GrantedAuthority granted : auth.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
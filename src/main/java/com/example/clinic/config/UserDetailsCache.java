@@ -0,0 +1,131 @@
+package com.example.clinic.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.clinic.service.UserChangedEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded, time-limited cache in front of the login lookup, so a burst of logins doesn't query the
+ * user and its roles every time. Entries are immutable snapshots and every lookup returns a fresh
+ * {@link UserDetails}: Spring Security erases the password of the instance it authenticated with, which
+ * must not be the cached one.
+ *
+ * Entries are dropped after {@code ttl-seconds}, when the cache exceeds {@code max-entries} (least
+ * recently used first), and when a {@link UserChangedEvent} is published, once its transaction commits.
+ */
+@Component
+public class UserDetailsCache {
+
+    private record Snapshot(String username, String password, List<GrantedAuthority> authorities,
+                            boolean enabled, boolean accountNonExpired, boolean credentialsNonExpired,
+                            boolean accountNonLocked, long expiresAt) {
+
+        static Snapshot of(UserDetails details, long expiresAt) {
+            return new Snapshot(details.getUsername(), details.getPassword(), List.copyOf(details.getAuthorities()),
+                    details.isEnabled(), details.isAccountNonExpired(), details.isCredentialsNonExpired(),
+                    details.isAccountNonLocked(), expiresAt);
+        }
+
+        UserDetails toUserDetails() {
+            return User.withUsername(username)
+                    .password(password)
+                    .authorities(authorities)
+                    .disabled(!enabled)
+                    .accountExpired(!accountNonExpired)
+                    .credentialsExpired(!credentialsNonExpired)
+                    .accountLocked(!accountNonLocked)
+                    .build();
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // access order, so iteration starts at the least recently used entry; guarded by this
+    private final LinkedHashMap<String, Snapshot> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // bumped on every invalidation, so a lookup that raced with one doesn't store what it read
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public UserDetailsCache(MeterRegistry meterRegistry,
+                            @Value("${clinic.security.user-cache.max-entries:10000}") int maxEntries,
+                            @Value("${clinic.security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+
+        Gauge.builder("clinic.security.user_cache.size", this, UserDetailsCache::size)
+                .description("Cached login user details").register(meterRegistry);
+        FunctionCounter.builder("clinic.security.user_cache.hits", hits, AtomicLong::get)
+                .description("Logins answered from the user details cache").register(meterRegistry);
+        FunctionCounter.builder("clinic.security.user_cache.misses", misses, AtomicLong::get)
+                .description("Logins that loaded the user from the database").register(meterRegistry);
+    }
+
+    /**
+     * Cached details for the user, or the result of {@code loader} (which runs outside the lock).
+     * Exceptions from the loader, such as an unknown user, are passed on and nothing is cached.
+     */
+    public UserDetails get(String username, Supplier<UserDetails> loader) {
+        if (maxEntries <= 0 || ttlNanos <= 0) {
+            misses.incrementAndGet();
+            return loader.get();
+        }
+        long startedGeneration;
+        synchronized (this) {
+            Snapshot cached = entries.get(username);
+            if (cached != null) {
+                if (cached.expiresAt() - System.nanoTime() > 0) {
+                    hits.incrementAndGet();
+                    return cached.toUserDetails();
+                }
+                entries.remove(username);
+            }
+            startedGeneration = generation;
+        }
+        misses.incrementAndGet();
+
+        UserDetails loaded = loader.get();
+        Snapshot snapshot = Snapshot.of(loaded, System.nanoTime() + ttlNanos);
+        synchronized (this) {
+            if (generation == startedGeneration) {
+                entries.put(username, snapshot);
+                if (entries.size() > maxEntries) {
+                    entries.remove(entries.keySet().iterator().next());
+                }
+            }
+        }
+        return snapshot.toUserDetails();
+    }
+
+    public synchronized void invalidate(String username) {
+        generation++;
+        entries.remove(username);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // after commit, so a login in between can't cache the old row again; immediately outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.username());
+    }
+}
@@ -1,19 +1,203 @@
 package com.example.clinic.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import jakarta.annotation.PreDestroy;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpClient;
 
+/**
+ * STOMP over SockJS at /ws. The broker is selected by clinic.websocket.broker: "simple" (default) keeps
+ * subscriptions in this JVM and is only correct for a single instance; "relay" forwards them to an
+ * external STOMP broker (e.g. ActiveMQ Artemis) so events and user destinations reach clients connected
+ * to any instance.
+ *
+ * Transport limits and the client channel pools are bounded from clinic.websocket.transport.*,
+ * .inbound.* and .outbound.*; sessions that cannot keep up are handled by {@link SlowConsumerGuard}.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String[] BROKER_PREFIXES = {"/topic", "/queue"};
+
+    private final StompAuthorizationInterceptor authorizationInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final TaskScheduler brokerScheduler;
+
+    @Value("${clinic.websocket.broker:simple}")
+    private String brokerMode;
+    @Value("${clinic.websocket.heartbeat.server-ms:10000}")
+    private long heartbeatServerMillis;
+    @Value("${clinic.websocket.heartbeat.client-ms:10000}")
+    private long heartbeatClientMillis;
+
+    @Value("${clinic.websocket.relay.host:localhost}")
+    private String relayHost;
+    @Value("${clinic.websocket.relay.port:61613}")
+    private int relayPort;
+    @Value("${clinic.websocket.relay.client-login:guest}")
+    private String relayClientLogin;
+    @Value("${clinic.websocket.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+    @Value("${clinic.websocket.relay.system-login:guest}")
+    private String relaySystemLogin;
+    @Value("${clinic.websocket.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+    @Value("${clinic.websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+    @Value("${clinic.websocket.relay.max-connections:10000}")
+    private int relayMaxConnections;
+    @Value("${clinic.websocket.relay.pending-acquire-timeout-ms:45000}")
+    private long relayAcquireTimeoutMillis;
+    @Value("${clinic.websocket.relay.io-threads:4}")
+    private int relayIoThreads;
+
+    @Value("${clinic.websocket.broker-channel.core-threads:0}")
+    private int brokerChannelCoreThreads;
+    @Value("${clinic.websocket.broker-channel.max-threads:0}")
+    private int brokerChannelMaxThreads;
+
+    @Value("${clinic.websocket.transport.message-size-limit:16384}")
+    private int messageSizeLimit;
+    @Value("${clinic.websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+    @Value("${clinic.websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${clinic.websocket.inbound.core-threads:4}")
+    private int inboundCoreThreads;
+    @Value("${clinic.websocket.inbound.max-threads:8}")
+    private int inboundMaxThreads;
+    @Value("${clinic.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+    @Value("${clinic.websocket.outbound.core-threads:4}")
+    private int outboundCoreThreads;
+    @Value("${clinic.websocket.outbound.max-threads:8}")
+    private int outboundMaxThreads;
+    @Value("${clinic.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    // created only in relay mode; owned here because the relay does not dispose resources it did not create
+    private ConnectionProvider relayConnections;
+    private LoopResources relayLoops;
+
+    public WebSocketConfig(StompAuthorizationInterceptor authorizationInterceptor, SlowConsumerGuard slowConsumerGuard,
+                           @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler brokerScheduler) {
+        this.authorizationInterceptor = authorizationInterceptor;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.brokerScheduler = brokerScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // /topic for per-doctor and admin topics, /queue behind /user/queue/... for per-user messages
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            configureRelay(config);
+        } else {
+            config.enableSimpleBroker(BROKER_PREFIXES)
+                    .setHeartbeatValue(new long[] {heartbeatServerMillis, heartbeatClientMillis})
+                    .setTaskScheduler(brokerScheduler);
+        }
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
+
+        // messages to the broker are handled on the sending thread unless a pool is configured
+        if (brokerChannelCoreThreads > 0) {
+            config.configureBrokerChannel().taskExecutor()
+                    .corePoolSize(brokerChannelCoreThreads)
+                    .maxPoolSize(Math.max(brokerChannelCoreThreads, brokerChannelMaxThreads));
+        }
+        // publish order is not preserved (that would queue per session, unbounded, in front of the
+        // slow-consumer checks); clients keep the newest changeVersion per appointment instead
+    }
+
+    private void configureRelay(MessageBrokerRegistry config) {
+        var relay = config.enableStompBrokerRelay(BROKER_PREFIXES)
+                .setClientLogin(relayClientLogin)
+                .setClientPasscode(relayClientPasscode)
+                .setSystemLogin(relaySystemLogin)
+                .setSystemPasscode(relaySystemPasscode)
+                .setSystemHeartbeatSendInterval(heartbeatServerMillis)
+                .setSystemHeartbeatReceiveInterval(heartbeatClientMillis)
+                // let convertAndSendToUser reach sessions held by other instances
+                .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                .setUserRegistryBroadcast("/topic/simp-user-registry")
+                .setTcpClient(relayTcpClient());
+        if (!relayVirtualHost.isBlank()) {
+            relay.setVirtualHost(relayVirtualHost);
+        }
+        System.out.println("WebSocket broker relay: " + relayHost + ":" + relayPort);
+    }
+
+    /**
+     * One relay connection per client session plus the shared system session, so the pool must allow as
+     * many connections as concurrent WebSocket sessions.
+     */
+    private ReactorNettyTcpClient<byte[]> relayTcpClient() {
+        relayConnections = ConnectionProvider.builder("stomp-relay")
+                .maxConnections(relayMaxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(relayAcquireTimeoutMillis))
+                .build();
+        relayLoops = LoopResources.create("stomp-relay", relayIoThreads, true);
+        TcpClient tcpClient = TcpClient.create(relayConnections)
+                .host(relayHost)
+                .port(relayPort)
+                .runOn(relayLoops);
+        return new ReactorNettyTcpClient<>(tcpClient, new StompReactorNettyCodec());
+    }
+
+    @PreDestroy
+    public void disposeRelayResources() {
+        if (relayConnections != null) {
+            relayConnections.dispose();
+        }
+        if (relayLoops != null) {
+            relayLoops.dispose();
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // a session that exceeds the buffer or time limit while sending is closed by Spring itself
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMillis)
+                .addDecoratorFactory(slowConsumerGuard::decorate);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(authorizationInterceptor);
+        // bounded queue: with maxPoolSize beyond corePoolSize, extra threads start only once it is full
+        registration.taskExecutor()
+                .corePoolSize(inboundCoreThreads)
+                .maxPoolSize(Math.max(inboundCoreThreads, inboundMaxThreads))
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(slowConsumerGuard);
+        registration.taskExecutor()
+                .corePoolSize(outboundCoreThreads)
+                .maxPoolSize(Math.max(outboundCoreThreads, outboundMaxThreads))
+                .queueCapacity(outboundQueueCapacity);
     }
 
     @Override
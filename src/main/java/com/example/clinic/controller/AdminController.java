@@ -0,0 +1,70 @@
+package com.example.clinic.controller;
+
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.clinic.dto.AdminStats;
+import com.example.clinic.service.ExportService;
+import com.example.clinic.service.StatsService;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final StatsService statsService;
+    private final ExportService exportService;
+
+    public AdminController(StatsService statsService, ExportService exportService) {
+        this.statsService = statsService;
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/stats")
+    public AdminStats stats() {
+        return statsService.adminStats();
+    }
+
+    // Full appointment history for billing/reporting: /api/admin/export/appointments?format=ndjson|csv&gzip=true
+    @GetMapping("/export/appointments")
+    public ResponseEntity<?> exportAppointments(@RequestParam(defaultValue = "ndjson") String format,
+                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportService.Format exportFormat;
+        try {
+            exportFormat = ExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("Unsupported format: " + format);
+        }
+
+        String filename = "appointments." + (exportFormat == ExportService.Format.CSV ? "csv" : "ndjson");
+        MediaType contentType = exportFormat == ExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+        if (gzip) {
+            filename += ".gz";
+            contentType = MediaType.parseMediaType("application/gzip");
+        }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                exportService.exportAppointments(compressed, exportFormat);
+                compressed.finish();
+            } else {
+                exportService.exportAppointments(out, exportFormat);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
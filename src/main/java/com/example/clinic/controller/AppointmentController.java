@@ -4,43 +4,183 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.clinic.config.ClinicAccess;
+import com.example.clinic.dto.AppointmentCursor;
+import com.example.clinic.dto.AppointmentFilter;
 import com.example.clinic.model.Appointment;
 import com.example.clinic.model.Doctor;
 import com.example.clinic.model.User;
 import com.example.clinic.repository.DoctorRepository;
 import com.example.clinic.repository.UserRepository;
+import com.example.clinic.service.AppointmentHistoryService;
 import com.example.clinic.service.AppointmentService;
+import com.example.clinic.service.AppointmentStreamService;
+import com.example.clinic.service.ScheduleService;
+import com.example.clinic.service.SlotTimes;
 
 @RestController
 @RequestMapping("/api/appointments")
 public class AppointmentController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_CHANGES_PAGE_SIZE = 1000;
+
     private final AppointmentService appointmentService;
     private final DoctorRepository doctorRepository;
     private final UserRepository userRepository;
+    private final AppointmentHistoryService historyService;
+    private final ScheduleService scheduleService;
+    private final AppointmentStreamService streamService;
+    private final ClinicAccess access;
 
     public AppointmentController(AppointmentService appointmentService, DoctorRepository doctorRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository, AppointmentHistoryService historyService, ScheduleService scheduleService,
+            AppointmentStreamService streamService, ClinicAccess access) {
         this.appointmentService = appointmentService;
         this.doctorRepository = doctorRepository;
         this.userRepository = userRepository;
+        this.historyService = historyService;
+        this.scheduleService = scheduleService;
+        this.streamService = streamService;
+        this.access = access;
     }
 
+    // Keyset-paginated listing: /api/appointments?doctorId=&patient=&status=&from=&to=&limit=&cursor=
+    // Same rule as /history: admins may filter freely, a doctor gets their own rows and a patient theirs
     @GetMapping
-    public List<Appointment> all() {
-        return appointmentService.findAll();
+    public ResponseEntity<?> list(@RequestParam(required = false) Long doctorId,
+                                  @RequestParam(required = false) String patient,
+                                  @RequestParam(required = false) String status,
+                                  @RequestParam(required = false) String from,
+                                  @RequestParam(required = false) String to,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        Authentication auth = ClinicAccess.currentUser();
+        if (auth == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Login required"));
+        }
+        CallerScope scope = scopeFor(auth, patient, doctorId);
+        if (scope == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not your appointments"));
+        }
+        try {
+            AppointmentFilter filter = new AppointmentFilter(scope.doctorId(), scope.patient(), status,
+                    from != null ? LocalDate.parse(from) : null,
+                    to != null ? LocalDate.parse(to) : null);
+            AppointmentCursor after = cursor != null && !cursor.isEmpty() ? AppointmentCursor.decode(cursor) : null;
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            return ResponseEntity.ok(appointmentService.findPage(filter, after, pageSize));
+        } catch (Exception ex) {
+            return ResponseEntity.badRequest().body("Invalid request: " + ex.getMessage());
+        }
+    }
+
+    // Archived appointments, newest first: /api/appointments/history?patient=&doctorId=&cursor=&limit=
+    // Admins may filter freely; a doctor sees only their own rows and a patient only their own
+    @GetMapping("/history")
+    public ResponseEntity<?> history(@RequestParam(required = false) String patient,
+                                     @RequestParam(required = false) Long doctorId,
+                                     @RequestParam(required = false) Long cursor,
+                                     @RequestParam(defaultValue = "50") int limit) {
+        Authentication auth = ClinicAccess.currentUser();
+        if (auth == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Login required"));
+        }
+        CallerScope scope = scopeFor(auth, patient, doctorId);
+        if (scope == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not your appointments"));
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(historyService.findPage(scope.patient(), scope.doctorId(), cursor, pageSize));
+    }
+
+    // Change feed for dashboards: /api/appointments/changes?since=&doctorId=&patient=&limit=
+    // Returns rows written or deleted after version `since`; pass the returned version as the next `since`
+    // Same rule as /history: admins may filter freely, a doctor gets their own rows and a patient theirs
+    @GetMapping("/changes")
+    public ResponseEntity<?> changes(@RequestParam(defaultValue = "0") long since,
+                                     @RequestParam(required = false) Long doctorId,
+                                     @RequestParam(required = false) String patient,
+                                     @RequestParam(defaultValue = "500") int limit) {
+        Authentication auth = ClinicAccess.currentUser();
+        if (auth == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Login required"));
+        }
+        if (since < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "since must not be negative"));
+        }
+        CallerScope scope = scopeFor(auth, patient, doctorId);
+        if (scope == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not your appointments"));
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_CHANGES_PAGE_SIZE));
+        return ResponseEntity.ok(appointmentService.findChanges(since, scope.doctorId(), scope.patient(), pageSize));
+    }
+
+    private record CallerScope(String patient, Long doctorId) {}
+
+    /**
+     * The patient/doctor filter the caller may query with: an admin's as given, a doctor's narrowed to
+     * their own doctor id and a patient's to their own username. Null when they asked for someone else's.
+     */
+    private CallerScope scopeFor(Authentication auth, String patient, Long doctorId) {
+        if (ClinicAccess.isAdmin(auth)) {
+            return new CallerScope(patient, doctorId);
+        }
+        Long ownDoctorId = access.ownDoctorId(auth);
+        if (ownDoctorId != null) {
+            if (patient != null || (doctorId != null && !doctorId.equals(ownDoctorId))) {
+                return null;
+            }
+            return new CallerScope(null, ownDoctorId);
+        }
+        if (doctorId != null || !ClinicAccess.mayActAsPatient(auth, patient != null ? patient : auth.getName())) {
+            return null;
+        }
+        return new CallerScope(auth.getName(), null);
+    }
+
+    // Server-Sent Events feed of the same changes: /api/appointments/stream?doctorId=
+    // EventSource resumes with the Last-Event-ID header; a "resync" event means reload from /changes
+    // Same rule as the STOMP topics: admins get every doctor (or the one asked for), a doctor only their own
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    // typed body: the emitter is only recognised as a stream through ResponseEntity<SseEmitter>
+    public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) Long doctorId,
+                                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Authentication auth = ClinicAccess.currentUser();
+        if (auth == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!ClinicAccess.isAdmin(auth)) {
+            Long ownDoctorId = access.ownDoctorId(auth);
+            if (ownDoctorId == null || (doctorId != null && !doctorId.equals(ownDoctorId))) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            doctorId = ownDoctorId;
+        }
+        SseEmitter emitter = streamService.subscribe(doctorId, lastEventId);
+        if (emitter == null) {
+            // client limit reached; EventSource retries on its own
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "10").build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 
     @PostMapping
@@ -57,18 +197,29 @@ public class AppointmentController {
                 return ResponseEntity.badRequest().body("Invalid doctor or patient");
             }
 
+            int minute = SlotTimes.parseMinute(time);
+            if (minute < 0) {
+                return ResponseEntity.badRequest().body("Invalid time slot");
+            }
+            if (!scheduleService.offers(doctor.getId(), date, minute)) {
+                return ResponseEntity.badRequest().body("Doctor is not available at that time");
+            }
+
             Appointment appt = new Appointment();
             appt.setDoctor(doctor);
             appt.setPatient(patient);
             appt.setPatientName(patient.getUsername()); // Set patient name for queries
             appt.setDate(date);
-            appt.setTime(time);
+            appt.setStartMinute((short) minute);
             appt.setReason(body.getOrDefault("reason", "General Consultation")); // Set reason
             appt.setConfirmed(false);
             appt.setStatus("Pending"); // Set initial status
 
-            Appointment saved = appointmentService.save(appt);
-            return ResponseEntity.ok(saved);
+            Optional<Appointment> saved = appointmentService.reserve(appt);
+            if (saved.isEmpty()) {
+                return ResponseEntity.badRequest().body("Doctor is busy at that time. Please select another time slot.");
+            }
+            return ResponseEntity.ok(saved.get());
         } catch (Exception ex) {
             return ResponseEntity.badRequest().body("Invalid request: " + ex.getMessage());
         }
@@ -174,12 +325,8 @@ public class AppointmentController {
                 return ResponseEntity.badRequest().body(Map.of("message", "Consultation not started yet"));
             }
             
-            appointment.setConsultationEndTime(LocalDateTime.now());
-            appointment.setDiagnosis(body.get("diagnosis"));
-            appointment.setPrescription(body.get("prescription"));
-            appointment.setDoctorNotes(body.get("notes"));
-            appointment.setStatus("Completed");
-            appointmentService.save(appointment);
+            appointmentService.completeConsultation(appointment, body.get("diagnosis"), body.get("prescription"),
+                    body.get("notes"));
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Consultation completed successfully");
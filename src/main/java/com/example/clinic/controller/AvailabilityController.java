@@ -0,0 +1,52 @@
+package com.example.clinic.controller;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.clinic.service.AvailabilityService;
+import com.example.clinic.service.SlotTimes;
+
+@RestController
+@RequestMapping("/api/availability")
+public class AvailabilityController {
+
+    private final AvailabilityService availabilityService;
+
+    public AvailabilityController(AvailabilityService availabilityService) {
+        this.availabilityService = availabilityService;
+    }
+
+    // e.g. /api/availability/next?specialty=Cardiology&days=7&limit=5&near=14:00
+    @GetMapping("/next")
+    public ResponseEntity<?> nextAvailable(@RequestParam String specialty,
+                                           @RequestParam(defaultValue = "7") int days,
+                                           @RequestParam(defaultValue = "5") int limit,
+                                           @RequestParam(required = false) String near) {
+        Integer nearMinute = null;
+        if (near != null && !near.isBlank()) {
+            nearMinute = SlotTimes.parseMinute(near);
+            if (nearMinute < 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid time: " + near));
+            }
+        }
+        int searchDays = Math.max(1, Math.min(days, AvailabilityService.MAX_SEARCH_DAYS));
+        int maxResults = Math.max(1, Math.min(limit, AvailabilityService.MAX_RESULTS));
+        return ResponseEntity.ok(availabilityService.findNextAvailable(specialty, searchDays, maxResults, nearMinute));
+    }
+
+    @GetMapping("/doctors/{doctorId}")
+    public ResponseEntity<?> freeTimes(@PathVariable Long doctorId, @RequestParam String date) {
+        try {
+            return ResponseEntity.ok(availabilityService.findFreeTimes(doctorId, LocalDate.parse(date)));
+        } catch (Exception ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid request: " + ex.getMessage()));
+        }
+    }
+}
@@ -1,44 +1,80 @@
 package com.example.clinic.controller;
 
-import java.awt.Color;
-import java.awt.Font;
-import java.awt.FontMetrics;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import javax.imageio.ImageIO;
-
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.clinic.config.ClinicAccess;
+import com.example.clinic.dto.PrescriptionRef;
 import com.example.clinic.model.Appointment;
+import com.example.clinic.model.ConsultationRecord;
 import com.example.clinic.service.AppointmentService;
+import com.example.clinic.service.PrescriptionExportService;
+import com.example.clinic.service.PrescriptionFormat;
+import com.example.clinic.service.PrescriptionImageCache;
+import com.example.clinic.service.PrescriptionLayout;
+import com.example.clinic.service.PrescriptionRenderer;
+import com.example.clinic.service.PrescriptionStore;
+import com.example.clinic.service.PrescriptionVectorWriter;
 
 @RestController
 @RequestMapping("/api/prescription")
 public class PrescriptionController {
 
     private final AppointmentService appointmentService;
+    private final PrescriptionImageCache prescriptionCache;
+    private final PrescriptionStore prescriptionStore;
+    private final PrescriptionRenderer prescriptionRenderer;
+    private final PrescriptionVectorWriter prescriptionVectorWriter;
+    private final PrescriptionExportService prescriptionExportService;
 
-    public PrescriptionController(AppointmentService appointmentService) {
+    public PrescriptionController(AppointmentService appointmentService, PrescriptionImageCache prescriptionCache,
+            PrescriptionStore prescriptionStore, PrescriptionRenderer prescriptionRenderer,
+            PrescriptionVectorWriter prescriptionVectorWriter, PrescriptionExportService prescriptionExportService) {
         this.appointmentService = appointmentService;
+        this.prescriptionCache = prescriptionCache;
+        this.prescriptionStore = prescriptionStore;
+        this.prescriptionRenderer = prescriptionRenderer;
+        this.prescriptionVectorWriter = prescriptionVectorWriter;
+        this.prescriptionExportService = prescriptionExportService;
     }
 
+    /**
+     * Serves the prescription as PNG (default), SVG or PDF. The format comes from the "format" query
+     * parameter (png, svg, pdf) or, failing that, the Accept header. Each format has its own ETag.
+     */
     @GetMapping("/download/{appointmentId}")
-    public ResponseEntity<byte[]> downloadPrescription(@PathVariable Long appointmentId) {
+    public ResponseEntity<?> downloadPrescription(@PathVariable Long appointmentId,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
         try {
+            PrescriptionFormat documentFormat = selectFormat(format, accept);
+            if (documentFormat == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Unsupported format: " + format));
+            }
+            
             Optional<Appointment> apptOpt = appointmentService.findById(appointmentId);
             
             if (apptOpt.isEmpty()) {
@@ -46,177 +82,104 @@ public class PrescriptionController {
             }
             
             Appointment appointment = apptOpt.get();
+            long version = PrescriptionImageCache.versionOf(appointment);
+            String etag = PrescriptionImageCache.etagOf(appointmentId, version, documentFormat);
             
-            // Generate prescription image
-            BufferedImage image = generatePrescriptionImage(appointment);
-            
-            // Convert to byte array
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(image, "PNG", baos);
-            byte[] imageBytes = baos.toByteArray();
+            // Repeat download of an unchanged prescription: 304 without rendering or loading the text
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
             
-            // Set headers for download
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_PNG);
-            headers.setContentDispositionFormData("attachment", "prescription_" + appointmentId + ".png");
+            headers.setETag(etag);
+            headers.setCacheControl(CacheControl.noCache().cachePrivate());
+            headers.setVary(List.of(HttpHeaders.ACCEPT));
+            headers.setContentType(documentFormat.getMediaType());
+            headers.setContentDispositionFormData("attachment",
+                    "prescription_" + appointmentId + "." + documentFormat.getExtension());
+            
+            if (documentFormat != PrescriptionFormat.PNG) {
+                // Vector formats: lay out here, where the lazy associations are still reachable, and write
+                // the elements straight to the response without a raster
+                List<PrescriptionLayout.Element> content = PrescriptionLayout.content(appointment, loadRecord(appointmentId));
+                StreamingResponseBody body = out -> prescriptionVectorWriter.write(documentFormat, content, appointmentId, out);
+                return new ResponseEntity<>(body, headers, HttpStatus.OK);
+            }
+            
+            // Pre-rendered by the background queue: stream the file (Range requests are honoured for Resources)
+            Path stored = prescriptionStore.find(appointmentId, version);
+            if (stored != null) {
+                return new ResponseEntity<>(new FileSystemResource(stored), headers, HttpStatus.OK);
+            }
+            
+            // Fallback: render on demand and keep the result for next time
+            byte[] imageBytes = prescriptionCache.get(appointmentId, version);
+            if (imageBytes == null) {
+                imageBytes = prescriptionRenderer.renderPng(appointment, loadRecord(appointmentId));
+                prescriptionCache.put(appointmentId, version, imageBytes);
+                try {
+                    prescriptionStore.store(appointmentId, version, imageBytes);
+                } catch (IOException ex) {
+                    System.err.println("Could not store prescription " + appointmentId + ": " + ex.getMessage());
+                }
+            }
             headers.setContentLength(imageBytes.length);
             
-            return new ResponseEntity<>(imageBytes, headers, HttpStatus.OK);
+            return new ResponseEntity<>(new ByteArrayResource(imageBytes), headers, HttpStatus.OK);
             
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-    
-    private BufferedImage generatePrescriptionImage(Appointment appointment) throws IOException {
-        int width = 800;
-        int height = 1000;
-        
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = image.createGraphics();
-        
-        // Enable anti-aliasing
-        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        
-        // Background
-        g2d.setColor(Color.WHITE);
-        g2d.fillRect(0, 0, width, height);
-        
-        // Header background
-        g2d.setColor(new Color(47, 128, 237));
-        g2d.fillRect(0, 0, width, 100);
-        
-        // Header text
-        g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 36));
-        drawCenteredString(g2d, "Medical Prescription", width, 60);
-        
-        // Subheader
-        g2d.setFont(new Font("Arial", Font.PLAIN, 16));
-        drawCenteredString(g2d, "Healix Medicare Clinic", width, 85);
-        
-        // Reset to black for content
-        g2d.setColor(Color.BLACK);
-        int y = 140;
-        int leftMargin = 50;
-        int lineHeight = 30;
-        
-        // Doctor Information
-        g2d.setFont(new Font("Arial", Font.BOLD, 20));
-        g2d.drawString("Doctor Information", leftMargin, y);
-        y += lineHeight;
-        
-        g2d.setFont(new Font("Arial", Font.PLAIN, 16));
-        String doctorName = appointment.getDoctor() != null ? "Dr. " + appointment.getDoctor().getName() : "Dr. Unknown";
-        g2d.drawString("Name: " + doctorName, leftMargin + 20, y);
-        y += lineHeight;
-        
-        String specialty = appointment.getDoctor() != null ? appointment.getDoctor().getSpecialty() : "General Medicine";
-        g2d.drawString("Specialty: " + specialty, leftMargin + 20, y);
-        y += lineHeight + 10;
-        
-        // Patient Information
-        g2d.setFont(new Font("Arial", Font.BOLD, 20));
-        g2d.drawString("Patient Information", leftMargin, y);
-        y += lineHeight;
-        
-        g2d.setFont(new Font("Arial", Font.PLAIN, 16));
-        String patientName = appointment.getPatientName() != null ? appointment.getPatientName() : "Patient";
-        g2d.drawString("Name: " + patientName, leftMargin + 20, y);
-        y += lineHeight;
-        
-        String patientId = appointment.getPatient() != null ? appointment.getPatient().getUsername() : "N/A";
-        g2d.drawString("Patient ID: " + patientId, leftMargin + 20, y);
-        y += lineHeight;
-        
-        String appointmentDate = appointment.getDate() != null ? appointment.getDate().toString() : "N/A";
-        g2d.drawString("Date: " + appointmentDate, leftMargin + 20, y);
-        y += lineHeight + 10;
-        
-        // Diagnosis
-        if (appointment.getDiagnosis() != null && !appointment.getDiagnosis().isEmpty()) {
-            g2d.setFont(new Font("Arial", Font.BOLD, 20));
-            g2d.drawString("Diagnosis", leftMargin, y);
-            y += lineHeight;
-            
-            g2d.setFont(new Font("Arial", Font.PLAIN, 16));
-            y = drawWrappedText(g2d, appointment.getDiagnosis(), leftMargin + 20, y, width - 100, lineHeight);
-            y += 10;
+
+    /**
+     * All prescriptions of a patient, live and archived, as a ZIP streamed straight to the response. Only
+     * the patient themself or an admin may export them.
+     */
+    @GetMapping("/export/{patientId}")
+    public ResponseEntity<?> exportPrescriptions(@PathVariable String patientId) {
+        Authentication auth = ClinicAccess.currentUser();
+        if (auth == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Login required"));
         }
-        
-        // Prescription
-        if (appointment.getPrescription() != null && !appointment.getPrescription().isEmpty()) {
-            g2d.setFont(new Font("Arial", Font.BOLD, 20));
-            g2d.drawString("Prescription", leftMargin, y);
-            y += lineHeight;
-            
-            g2d.setFont(new Font("Arial", Font.PLAIN, 16));
-            y = drawWrappedText(g2d, appointment.getPrescription(), leftMargin + 20, y, width - 100, lineHeight);
-            y += 10;
+        if (!ClinicAccess.mayActAsPatient(auth, patientId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not your prescriptions"));
         }
-        
-        // Doctor Notes
-        if (appointment.getDoctorNotes() != null && !appointment.getDoctorNotes().isEmpty()) {
-            g2d.setFont(new Font("Arial", Font.BOLD, 20));
-            g2d.drawString("Additional Notes", leftMargin, y);
-            y += lineHeight;
-            
-            g2d.setFont(new Font("Arial", Font.PLAIN, 16));
-            y = drawWrappedText(g2d, appointment.getDoctorNotes(), leftMargin + 20, y, width - 100, lineHeight);
+        List<PrescriptionRef> refs = prescriptionExportService.findPrescriptions(patientId);
+        if (refs.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No prescriptions found for " + patientId));
         }
         
-        // Footer
-        y = height - 80;
-        g2d.setColor(new Color(100, 100, 100));
-        g2d.setFont(new Font("Arial", Font.ITALIC, 14));
-        String generatedDate = LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' hh:mm a"));
-        drawCenteredString(g2d, "Generated on: " + generatedDate, width, y);
-        
-        g2d.setFont(new Font("Arial", Font.PLAIN, 12));
-        drawCenteredString(g2d, "This is a computer-generated prescription. No signature required.", width, y + 25);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf("application/zip"));
+        headers.setContentDispositionFormData("attachment", "prescriptions_" + patientId + ".zip");
+        headers.setCacheControl(CacheControl.noStore());
         
-        // Border
-        g2d.setColor(new Color(47, 128, 237));
-        g2d.drawRect(10, 10, width - 20, height - 20);
-        g2d.drawRect(11, 11, width - 22, height - 22);
-        
-        g2d.dispose();
-        
-        return image;
+        StreamingResponseBody body = out -> prescriptionExportService.writeZip(refs, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
-    
-    private void drawCenteredString(Graphics2D g2d, String text, int width, int y) {
-        FontMetrics fm = g2d.getFontMetrics();
-        int textWidth = fm.stringWidth(text);
-        int x = (width - textWidth) / 2;
-        g2d.drawString(text, x, y);
+
+    private ConsultationRecord loadRecord(Long appointmentId) {
+        return appointmentService.findConsultation(appointmentId)
+                .orElseGet(() -> new ConsultationRecord(appointmentId));
     }
-    
-    private int drawWrappedText(Graphics2D g2d, String text, int x, int y, int maxWidth, int lineHeight) {
-        FontMetrics fm = g2d.getFontMetrics();
-        String[] words = text.split(" ");
-        StringBuilder line = new StringBuilder();
-        
-        for (String word : words) {
-            String testLine = line.length() == 0 ? word : line + " " + word;
-            int testWidth = fm.stringWidth(testLine);
-            
-            if (testWidth > maxWidth && line.length() > 0) {
-                g2d.drawString(line.toString(), x, y);
-                y += lineHeight;
-                line = new StringBuilder(word);
-            } else {
-                line = new StringBuilder(testLine);
-            }
+
+    /**
+     * An explicit format parameter wins over the Accept header; null when the parameter names no known
+     * format. A malformed Accept header is treated like a missing one.
+     */
+    private static PrescriptionFormat selectFormat(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            return PrescriptionFormat.fromExtension(format.trim());
         }
-        
-        if (line.length() > 0) {
-            g2d.drawString(line.toString(), x, y);
-            y += lineHeight;
+        if (accept == null || accept.isBlank()) {
+            return PrescriptionFormat.PNG;
+        }
+        try {
+            return PrescriptionFormat.negotiate(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException ex) {
+            return PrescriptionFormat.PNG;
         }
-        
-        return y;
     }
 }
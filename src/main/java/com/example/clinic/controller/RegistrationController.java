@@ -9,6 +9,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -25,6 +26,11 @@ import com.example.clinic.model.User;
 import com.example.clinic.repository.AppointmentRepository;
 import com.example.clinic.repository.DoctorRepository;
 import com.example.clinic.repository.UserRepository;
+import com.example.clinic.service.AppointmentService;
+import com.example.clinic.service.DoctorService;
+import com.example.clinic.service.ScheduleService;
+import com.example.clinic.service.SlotTimes;
+import com.example.clinic.service.UserChangedEvent;
 
 @RestController
 @RequestMapping("/api")
@@ -33,9 +39,16 @@ public class RegistrationController {
     private final UserRepository userRepository;
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
+    private final AppointmentService appointmentService;
+    private final DoctorService doctorService;
+    private final ScheduleService scheduleService;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
     private final JavaMailSender mailSender;
     
+    // weekly template given to doctors created without an explicit slot list
+    private static final String DEFAULT_SLOTS = "09:00,10:00,11:00,14:00,15:00";
+
     // In-memory storage for OTPs (in production, use Redis or database)
     private final Map<String, OTPData> otpStorage = new ConcurrentHashMap<>();
     
@@ -57,12 +70,18 @@ public class RegistrationController {
     }
 
     public RegistrationController(UserRepository userRepository, DoctorRepository doctorRepository, 
-                                  AppointmentRepository appointmentRepository, PasswordEncoder passwordEncoder,
+                                  AppointmentRepository appointmentRepository, AppointmentService appointmentService,
+                                  DoctorService doctorService, ScheduleService scheduleService,
+                                  PasswordEncoder passwordEncoder, ApplicationEventPublisher eventPublisher,
                                   @Autowired(required = false) JavaMailSender mailSender) {
         this.userRepository = userRepository;
         this.doctorRepository = doctorRepository;
         this.appointmentRepository = appointmentRepository;
+        this.appointmentService = appointmentService;
+        this.doctorService = doctorService;
+        this.scheduleService = scheduleService;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
         this.mailSender = mailSender;
     }
 
@@ -137,6 +156,7 @@ public class RegistrationController {
                 }
                 
                 userRepository.save(user);
+                eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
                 
                 return ResponseEntity.ok(Map.of("success", true, "message", "Profile updated successfully"));
             } else {
@@ -253,6 +273,8 @@ public class RegistrationController {
         User user = userOpt.get();
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        // drop the cached login so the old password stops working
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
         
         // Remove OTP after successful password reset
         otpStorage.remove(patientId);
@@ -293,8 +315,9 @@ public class RegistrationController {
         doctor.setName(fullName);
         doctor.setSpecialty(specialty);
         doctor.setUsername(doctorId);
-        doctor.setAvailableSlots(availableSlots != null ? availableSlots : "09:00,10:00,11:00,14:00,15:00");
-        doctorRepository.save(doctor);
+        Doctor saved = doctorService.save(doctor);
+        // the registration form still sends a slot list; it becomes the doctor's weekly template
+        scheduleService.replaceWeeklyFromSlots(saved.getId(), availableSlots != null ? availableSlots : DEFAULT_SLOTS);
 
         return ResponseEntity.ok(Map.of("doctorId", doctorId, "message", "Doctor registered successfully"));
     }
@@ -349,8 +372,8 @@ public class RegistrationController {
                 doctor.setName(fullName != null ? fullName : "Doctor User");
                 doctor.setSpecialty("General Medicine");
                 doctor.setUsername(userId);
-                doctor.setAvailableSlots("09:00,10:00,11:00,14:00,15:00");
-                doctorRepository.save(doctor);
+                Doctor saved = doctorService.save(doctor);
+                scheduleService.replaceWeeklyFromSlots(saved.getId(), DEFAULT_SLOTS);
                 
                 return ResponseEntity.ok(Map.of("userId", userId, "message", "Doctor created successfully"));
                 
@@ -382,16 +405,17 @@ public class RegistrationController {
                 User user = userOpt.get();
                 
                 // First, delete any appointments associated with this user (as patient)
-                appointmentRepository.findByPatient(user).forEach(appointmentRepository::delete);
+                appointmentRepository.findByPatient(user).forEach(appointmentService::delete);
                 
                 // If doctor, also delete appointments where they are the doctor and delete doctor profile
                 if (user.getRoles().contains(Role.ROLE_DOCTOR)) {
-                    appointmentRepository.findByDoctorUsername(username).forEach(appointmentRepository::delete);
-                    doctorRepository.findByUsername(username).ifPresent(doctorRepository::delete);
+                    appointmentRepository.findByDoctorUsername(username).forEach(appointmentService::delete);
+                    doctorRepository.findByUsername(username).ifPresent(doctorService::delete);
                 }
                 
                 // Finally, delete user
                 userRepository.delete(user);
+                eventPublisher.publishEvent(new UserChangedEvent(username));
                 
                 return ResponseEntity.ok(Map.of("message", "User " + username + " deleted successfully"));
             } else {
@@ -433,13 +457,17 @@ public class RegistrationController {
             
             Doctor doctor = doctorOpt.get();
             java.time.LocalDate appointmentDate = java.time.LocalDate.parse(date);
+            int minute = SlotTimes.parseMinute(time);
+            if (minute < 0) {
+                return ResponseEntity.badRequest().body(Map.of("error","Invalid time slot"));
+            }
             
-            // Check for conflicts
-            boolean hasConflict = appointmentRepository.findByDoctorAndDate(doctor, appointmentDate)
-                .stream()
-                .anyMatch(apt -> apt.getTime().equals(time));
-                
-            if (hasConflict) {
+            if (!scheduleService.offers(doctor.getId(), appointmentDate, minute)) {
+                return ResponseEntity.badRequest().body(Map.of("error","Doctor is not available at that time. Please select another time slot."));
+            }
+
+            // Cheap early exit; the authoritative check happens atomically in reserve() below
+            if (appointmentService.isSlotTaken(doctor.getId(), appointmentDate, minute)) {
                 return ResponseEntity.badRequest().body(Map.of("error","Doctor is busy at that time. Please select another time slot."));
             }
             
@@ -457,11 +485,13 @@ public class RegistrationController {
             appointment.setPatientName(patient.getFullName() != null ? patient.getFullName() : patient.getUsername());
             appointment.setDoctor(doctor);
             appointment.setDate(appointmentDate);
-            appointment.setTime(time);
+            appointment.setStartMinute((short) minute);
             appointment.setReason(reason != null ? reason : "General Consultation");
             appointment.setConfirmed(false); // Requires doctor confirmation
             
-            appointmentRepository.save(appointment);
+            if (appointmentService.reserve(appointment).isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error","Doctor is busy at that time. Please select another time slot."));
+            }
             
             return ResponseEntity.ok(Map.of("message", "Appointment booked successfully! Waiting for doctor confirmation."));
             
@@ -483,7 +513,7 @@ public class RegistrationController {
             if (appointmentOpt.isPresent()) {
                 com.example.clinic.model.Appointment appointment = appointmentOpt.get();
                 appointment.setConfirmed(true);
-                appointmentRepository.save(appointment);
+                appointmentService.save(appointment);
                 
                 return ResponseEntity.ok(Map.of("message", "Appointment confirmed successfully"));
             } else {
@@ -506,7 +536,7 @@ public class RegistrationController {
             Optional<com.example.clinic.model.Appointment> appointmentOpt = appointmentRepository.findById(Long.parseLong(appointmentId));
             if (appointmentOpt.isPresent()) {
                 com.example.clinic.model.Appointment appointment = appointmentOpt.get();
-                appointmentRepository.delete(appointment);
+                appointmentService.delete(appointment);
                 
                 return ResponseEntity.ok(Map.of("message", "Appointment cancelled successfully"));
             } else {
@@ -534,10 +564,10 @@ public class RegistrationController {
             String username = doctor.getUsername();
             
             // Delete all appointments for this doctor
-            appointmentRepository.findByDoctorUsername(username).forEach(appointmentRepository::delete);
+            appointmentRepository.findByDoctorUsername(username).forEach(appointmentService::delete);
             
             // Delete the doctor profile
-            doctorRepository.delete(doctor);
+            doctorService.delete(doctor);
             
             // Find and suspend the user account
             Optional<User> userOpt = userRepository.findByUsername(username);
@@ -545,6 +575,7 @@ public class RegistrationController {
                 User user = userOpt.get();
                 // You could add a suspended field to User model, for now we'll delete the user
                 userRepository.delete(user);
+                eventPublisher.publishEvent(new UserChangedEvent(username));
             }
             
             return ResponseEntity.ok(Map.of("message", "Doctor suspended successfully"));
@@ -573,19 +604,18 @@ public class RegistrationController {
             if (request.containsKey("specialty")) {
                 doctor.setSpecialty(request.get("specialty").toString());
             }
+            doctorService.save(doctor);
             if (request.containsKey("availableSlots")) {
-                doctor.setAvailableSlots(request.get("availableSlots").toString());
+                scheduleService.replaceWeeklyFromSlots(doctor.getId(), request.get("availableSlots").toString());
             }
             
-            doctorRepository.save(doctor);
-            
             return ResponseEntity.ok(Map.of(
                 "message", "Doctor updated successfully",
                 "doctor", Map.of(
                     "id", doctor.getId(),
                     "name", doctor.getName(),
                     "specialty", doctor.getSpecialty(),
-                    "availableSlots", doctor.getAvailableSlots()
+                    "schedule", scheduleService.getSchedule(doctor.getId())
                 )
             ));
         } catch (Exception e) {
@@ -0,0 +1,126 @@
+package com.example.clinic.controller;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.clinic.config.ClinicAccess;
+import com.example.clinic.dto.WeeklyInterval;
+import com.example.clinic.model.ScheduleException;
+import com.example.clinic.service.ScheduleService;
+
+@RestController
+@RequestMapping("/api/doctors/{doctorId}/schedule")
+public class ScheduleController {
+
+    private final ScheduleService scheduleService;
+    private final ClinicAccess access;
+
+    public ScheduleController(ScheduleService scheduleService, ClinicAccess access) {
+        this.scheduleService = scheduleService;
+        this.access = access;
+    }
+
+    // changes are limited to admins and the doctor whose schedule it is; null when allowed
+    private ResponseEntity<?> denyUnlessOwner(Long doctorId) {
+        Authentication auth = ClinicAccess.currentUser();
+        if (auth == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Login required"));
+        }
+        if (!access.mayActAsDoctor(auth, doctorId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not your schedule"));
+        }
+        return null;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> get(@PathVariable Long doctorId) {
+        try {
+            return ResponseEntity.ok(scheduleService.getSchedule(doctorId));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    // Body: {slotDurationMinutes: 30, weekly: [{dayOfWeek: "MONDAY", start: "09:00", end: "12:00"}, ...]}
+    @PutMapping
+    public ResponseEntity<?> replaceWeekly(@PathVariable Long doctorId, @RequestBody Map<String, Object> body) {
+        ResponseEntity<?> denied = denyUnlessOwner(doctorId);
+        if (denied != null) {
+            return denied;
+        }
+        try {
+            Object duration = body.get("slotDurationMinutes");
+            Integer slotMinutes = duration != null ? Integer.valueOf(duration.toString()) : null;
+            List<WeeklyInterval> intervals = new ArrayList<>();
+            if (body.get("weekly") instanceof List<?> weekly) {
+                for (Object item : weekly) {
+                    Map<?, ?> interval = (Map<?, ?>) item;
+                    intervals.add(new WeeklyInterval(
+                            DayOfWeek.valueOf(String.valueOf(interval.get("dayOfWeek")).toUpperCase()),
+                            (String) interval.get("start"), (String) interval.get("end")));
+                }
+            }
+            scheduleService.replaceWeekly(doctorId, slotMinutes, intervals);
+            return ResponseEntity.ok(scheduleService.getSchedule(doctorId));
+        } catch (IllegalArgumentException | ClassCastException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid schedule: " + ex.getMessage()));
+        }
+    }
+
+    // Body: {startDate, endDate?, start?, end?, available: false, note?}; omit start/end for whole days
+    @PostMapping("/exceptions")
+    public ResponseEntity<?> addException(@PathVariable Long doctorId, @RequestBody Map<String, String> body) {
+        ResponseEntity<?> denied = denyUnlessOwner(doctorId);
+        if (denied != null) {
+            return denied;
+        }
+        try {
+            ScheduleException exception = new ScheduleException();
+            exception.setStartDate(LocalDate.parse(body.get("startDate")));
+            if (body.get("endDate") != null) {
+                exception.setEndDate(LocalDate.parse(body.get("endDate")));
+            }
+            if (body.get("start") != null || body.get("end") != null) {
+                int start = ScheduleService.parseBoundary(body.get("start"));
+                int end = ScheduleService.parseBoundary(body.get("end"));
+                if (start < 0 || end < 0) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Invalid time range"));
+                }
+                exception.setStartMinute((short) start);
+                exception.setEndMinute((short) end);
+            }
+            exception.setAvailable(Boolean.parseBoolean(body.get("available")));
+            exception.setNote(body.get("note"));
+            return ResponseEntity.ok(scheduleService.addException(doctorId, exception));
+        } catch (Exception ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid exception: " + ex.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/exceptions/{exceptionId}")
+    public ResponseEntity<?> deleteException(@PathVariable Long doctorId, @PathVariable Long exceptionId) {
+        ResponseEntity<?> denied = denyUnlessOwner(doctorId);
+        if (denied != null) {
+            return denied;
+        }
+        if (!scheduleService.deleteException(doctorId, exceptionId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("message", "Exception removed"));
+    }
+}
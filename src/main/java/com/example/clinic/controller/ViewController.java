@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import com.example.clinic.model.User;
 import com.example.clinic.service.AppointmentService;
 import com.example.clinic.service.DoctorService;
+import com.example.clinic.service.StatsService;
 import com.example.clinic.service.UserService;
 
 @Controller
@@ -19,11 +20,14 @@ public class ViewController {
     private final DoctorService doctorService;
     private final UserService userService;
     private final AppointmentService appointmentService;
+    private final StatsService statsService;
 
-    public ViewController(DoctorService doctorService, UserService userService, AppointmentService appointmentService) {
+    public ViewController(DoctorService doctorService, UserService userService, AppointmentService appointmentService,
+            StatsService statsService) {
         this.doctorService = doctorService;
         this.userService = userService;
         this.appointmentService = appointmentService;
+        this.statsService = statsService;
     }
 
     @GetMapping("/")
@@ -98,6 +102,8 @@ public class ViewController {
         
         model.addAttribute("username", username);
         model.addAttribute("doctor", doctorService.findByUsername(username));
+        // read before the rows: the page patches itself from this version on (/api/appointments/changes)
+        model.addAttribute("changeVersion", appointmentService.currentChangeVersion());
         model.addAttribute("appointments", appointmentService.getAppointmentsByDoctor(username));
         
         return "doctor-dashboard";
@@ -113,9 +119,11 @@ public class ViewController {
             
             String username = auth.getName();
             model.addAttribute("username", username);
-            model.addAttribute("users", userService.findAll());
+            model.addAttribute("stats", statsService.adminStats());
+            model.addAttribute("users", userService.findAllWithRoles());
             model.addAttribute("doctors", doctorService.findAll());
-            model.addAttribute("appointments", appointmentService.findAll());
+            model.addAttribute("changeVersion", appointmentService.currentChangeVersion());
+            model.addAttribute("appointments", appointmentService.findAllRows());
             
             return "admin-dashboard";
         } catch (Exception e) {
@@ -0,0 +1,37 @@
+package com.example.clinic.dto;
+
+import java.util.List;
+
+/**
+ * Summary figures for the admin dashboard, all computed with COUNT/GROUP BY queries. Appointment totals,
+ * per-status and per-specialty counts include archived appointments.
+ */
+public class AdminStats {
+    private final long totalUsers;
+    private final long totalDoctors;
+    private final long totalAppointments;
+    private final List<CountByKey> appointmentsByStatus;
+    private final List<DoctorLoad> todayByDoctor;
+    private final List<CountByKey> appointmentsBySpecialty;
+    private final List<CountByKey> doctorsBySpecialty;
+
+    public AdminStats(long totalUsers, long totalDoctors, long totalAppointments,
+            List<CountByKey> appointmentsByStatus, List<DoctorLoad> todayByDoctor,
+            List<CountByKey> appointmentsBySpecialty, List<CountByKey> doctorsBySpecialty) {
+        this.totalUsers = totalUsers;
+        this.totalDoctors = totalDoctors;
+        this.totalAppointments = totalAppointments;
+        this.appointmentsByStatus = appointmentsByStatus;
+        this.todayByDoctor = todayByDoctor;
+        this.appointmentsBySpecialty = appointmentsBySpecialty;
+        this.doctorsBySpecialty = doctorsBySpecialty;
+    }
+
+    public long getTotalUsers() { return totalUsers; }
+    public long getTotalDoctors() { return totalDoctors; }
+    public long getTotalAppointments() { return totalAppointments; }
+    public List<CountByKey> getAppointmentsByStatus() { return appointmentsByStatus; }
+    public List<DoctorLoad> getTodayByDoctor() { return todayByDoctor; }
+    public List<CountByKey> getAppointmentsBySpecialty() { return appointmentsBySpecialty; }
+    public List<CountByKey> getDoctorsBySpecialty() { return doctorsBySpecialty; }
+}
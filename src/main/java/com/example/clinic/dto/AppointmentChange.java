@@ -0,0 +1,61 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.AppointmentTombstone;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.model.User;
+import com.example.clinic.service.SlotTimes;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One entry of the appointment change feed: the full dashboard row of a changed appointment, or just
+ * its id with {@code deleted} set. The same shape is returned by /api/appointments/changes and pushed
+ * over WebSocket, so clients patch their lists with one code path. Built from the entity while it is
+ * still attached (lazy associations), or straight from JPQL.
+ */
+public record AppointmentChange(Long id, long changeVersion, boolean deleted, Long doctorId, String doctorName,
+                                String doctorSpecialty, String patientUsername, String patientName, LocalDate date,
+                                @JsonIgnore Short startMinute, String status, boolean confirmed, String reason,
+                                LocalDateTime consultationStartTime, LocalDateTime consultationEndTime) {
+
+    public static AppointmentChange of(Appointment appointment) {
+        Doctor doctor = appointment.getDoctor();
+        User patient = appointment.getPatient();
+        return new AppointmentChange(
+                appointment.getId(),
+                appointment.getChangeVersion(),
+                false,
+                doctor == null ? null : doctor.getId(),
+                doctor == null ? null : doctor.getName(),
+                doctor == null ? null : doctor.getSpecialty(),
+                patient == null ? null : patient.getUsername(),
+                appointment.getPatientName(),
+                appointment.getDate(),
+                appointment.getStartMinute(),
+                appointment.getStatus(),
+                appointment.isConfirmed(),
+                appointment.getReason(),
+                appointment.getConsultationStartTime(),
+                appointment.getConsultationEndTime());
+    }
+
+    public static AppointmentChange deleted(Long id, long changeVersion, Long doctorId, String patientUsername) {
+        return new AppointmentChange(id, changeVersion, true, doctorId, null, null, patientUsername, null, null,
+                null, null, false, null, null, null);
+    }
+
+    public static AppointmentChange deleted(AppointmentTombstone tombstone) {
+        return deleted(tombstone.getAppointmentId(), tombstone.getChangeVersion(), tombstone.getDoctorId(),
+                tombstone.getPatientUsername());
+    }
+
+    @JsonProperty("time")
+    public String time() { return SlotTimes.formatClock(startMinute); }
+
+    @JsonProperty("formattedTime")
+    public String formattedTime() { return startMinute == null ? null : SlotTimes.formatDisplay(startMinute); }
+}
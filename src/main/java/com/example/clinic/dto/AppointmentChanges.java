@@ -0,0 +1,15 @@
+package com.example.clinic.dto;
+
+import java.util.List;
+
+/**
+ * A page of the change feed: everything in (since, version], oldest first. Pass {@code version} as the
+ * next {@code since}; {@code hasMore} means another page is already available. {@code resync} means the
+ * deletions after {@code since} are no longer kept: reload the full list, then follow on from {@code version}.
+ */
+public record AppointmentChanges(long version, List<AppointmentChange> changes, boolean hasMore, boolean resync) {
+
+    public AppointmentChanges(long version, List<AppointmentChange> changes, boolean hasMore) {
+        this(version, changes, hasMore, false);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.clinic.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Keyset position in the (date, startMinute, id) ordering of appointments, exchanged with clients as an
+ * opaque URL-safe token.
+ */
+public record AppointmentCursor(LocalDate date, Short startMinute, Long id) {
+
+    public static AppointmentCursor after(AppointmentSummary last) {
+        return new AppointmentCursor(last.date(), last.startMinute(), last.id());
+    }
+
+    public String encode() {
+        String raw = date + "|" + startMinute + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static AppointmentCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split("\\|", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        Short startMinute = "null".equals(parts[1]) ? null : Short.valueOf(parts[1]);
+        return new AppointmentCursor(LocalDate.parse(parts[0]), startMinute, Long.valueOf(parts[2]));
+    }
+}
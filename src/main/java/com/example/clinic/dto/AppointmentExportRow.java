@@ -0,0 +1,41 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.AppointmentHistory;
+
+/**
+ * Flat export shape of an appointment. The patient is referenced by id so the export never has to
+ * initialize User entities (and their eagerly loaded roles).
+ */
+public record AppointmentExportRow(Long id, LocalDate date, String time, String status, boolean confirmed,
+        String reason, Long patientId, String patientName, Long doctorId, String doctorName, String doctorSpecialty,
+        LocalDateTime consultationStartTime, LocalDateTime consultationEndTime) {
+
+    public static final String[] CSV_HEADER = {"id", "date", "time", "status", "confirmed", "reason", "patientId",
+            "patientName", "doctorId", "doctorName", "doctorSpecialty", "consultationStartTime", "consultationEndTime"};
+
+    public static AppointmentExportRow of(Appointment a) {
+        return new AppointmentExportRow(a.getId(), a.getDate(), a.getTime(), a.getStatus(), a.isConfirmed(),
+                a.getReason(),
+                a.getPatient() != null ? a.getPatient().getId() : null,
+                a.getPatientName(),
+                a.getDoctor() != null ? a.getDoctor().getId() : null,
+                a.getDoctor() != null ? a.getDoctor().getName() : null,
+                a.getDoctor() != null ? a.getDoctor().getSpecialty() : null,
+                a.getConsultationStartTime(), a.getConsultationEndTime());
+    }
+
+    public static AppointmentExportRow of(AppointmentHistory h) {
+        return new AppointmentExportRow(h.getId(), h.getDate(), h.getTime(), h.getStatus(), h.isConfirmed(),
+                h.getReason(), h.getPatientId(), h.getPatientName(), h.getDoctorId(), h.getDoctorName(),
+                h.getDoctorSpecialty(), h.getConsultationStartTime(), h.getConsultationEndTime());
+    }
+
+    public Object[] csvValues() {
+        return new Object[] {id, date, time, status, confirmed, reason, patientId, patientName, doctorId, doctorName,
+                doctorSpecialty, consultationStartTime, consultationEndTime};
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters for appointment listings; null fields are ignored.
+ */
+public record AppointmentFilter(Long doctorId, String patientUsername, String status, LocalDate from, LocalDate to) {
+}
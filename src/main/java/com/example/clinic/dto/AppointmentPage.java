@@ -0,0 +1,9 @@
+package com.example.clinic.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing; {@code nextCursor} is null on the last page.
+ */
+public record AppointmentPage(List<AppointmentSummary> items, String nextCursor) {
+}
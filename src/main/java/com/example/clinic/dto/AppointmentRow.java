@@ -0,0 +1,57 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.example.clinic.service.SlotTimes;
+
+/**
+ * Read-only row for the dashboard appointment lists, filled by a single JPQL constructor query
+ * so rendering never touches the Appointment, User or Doctor entities.
+ */
+public class AppointmentRow {
+    private final Long id;
+    private final LocalDate date;
+    private final Short startMinute;
+    private final String status;
+    private final boolean confirmed;
+    private final String reason;
+    private final String patientName;
+    private final String patientUsername;
+    private final String doctorName;
+    private final String doctorSpecialty;
+    private final LocalDateTime consultationStartTime;
+    private final LocalDateTime consultationEndTime;
+
+    public AppointmentRow(Long id, LocalDate date, Short startMinute, String status, boolean confirmed, String reason,
+            String patientName, String patientUsername, String doctorName, String doctorSpecialty,
+            LocalDateTime consultationStartTime, LocalDateTime consultationEndTime) {
+        this.id = id;
+        this.date = date;
+        this.startMinute = startMinute;
+        this.status = status;
+        this.confirmed = confirmed;
+        this.reason = reason;
+        this.patientName = patientName;
+        this.patientUsername = patientUsername;
+        this.doctorName = doctorName;
+        this.doctorSpecialty = doctorSpecialty;
+        this.consultationStartTime = consultationStartTime;
+        this.consultationEndTime = consultationEndTime;
+    }
+
+    public Long getId() { return id; }
+    public LocalDate getDate() { return date; }
+    public Short getStartMinute() { return startMinute; }
+    public String getTime() { return SlotTimes.formatClock(startMinute); }
+    public String getFormattedTime() { return SlotTimes.formatDisplay(startMinute); }
+    public String getStatus() { return status; }
+    public boolean isConfirmed() { return confirmed; }
+    public String getReason() { return reason; }
+    public String getPatientName() { return patientName; }
+    public String getPatientUsername() { return patientUsername; }
+    public String getDoctorName() { return doctorName; }
+    public String getDoctorSpecialty() { return doctorSpecialty; }
+    public LocalDateTime getConsultationStartTime() { return consultationStartTime; }
+    public LocalDateTime getConsultationEndTime() { return consultationEndTime; }
+}
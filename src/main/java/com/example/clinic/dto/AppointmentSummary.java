@@ -0,0 +1,19 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+
+import com.example.clinic.service.SlotTimes;
+
+/**
+ * List-view shape of an appointment: scheduling fields plus the patient and doctor names,
+ * without the clinical text columns.
+ */
+public record AppointmentSummary(Long id, LocalDate date, Short startMinute, String status, boolean confirmed,
+        String reason, String patientName, String patientUsername, Long doctorId, String doctorName,
+        String doctorSpecialty) {
+
+    // "HH:mm", as clients received it before times were stored as minutes
+    public String getTime() {
+        return SlotTimes.formatClock(startMinute);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+
+public record AvailableSlot(Long doctorId, String doctorName, String specialty, LocalDate date, String time) {
+}
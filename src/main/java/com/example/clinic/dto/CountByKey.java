@@ -0,0 +1,17 @@
+package com.example.clinic.dto;
+
+/**
+ * One row of a GROUP BY count; used for the admin statistics.
+ */
+public class CountByKey {
+    private final String key;
+    private final long count;
+
+    public CountByKey(String key, long count) {
+        this.key = key != null ? key : "Unknown";
+        this.count = count;
+    }
+
+    public String getKey() { return key; }
+    public long getCount() { return count; }
+}
@@ -0,0 +1,17 @@
+package com.example.clinic.dto;
+
+public class DoctorLoad {
+    private final Long doctorId;
+    private final String doctorName;
+    private final long appointments;
+
+    public DoctorLoad(Long doctorId, String doctorName, long appointments) {
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.appointments = appointments;
+    }
+
+    public Long getDoctorId() { return doctorId; }
+    public String getDoctorName() { return doctorName; }
+    public long getAppointments() { return appointments; }
+}
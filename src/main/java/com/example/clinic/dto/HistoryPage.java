@@ -0,0 +1,9 @@
+package com.example.clinic.dto;
+
+import java.util.List;
+
+/**
+ * One page of archived appointments, newest first; pass {@code nextCursor} back to get the next page.
+ */
+public record HistoryPage(List<HistorySummary> items, Long nextCursor) {
+}
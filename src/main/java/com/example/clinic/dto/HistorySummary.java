@@ -0,0 +1,20 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.example.clinic.service.SlotTimes;
+
+/**
+ * List-view shape of an archived appointment: scheduling fields and the copied names, without the
+ * diagnosis, prescription and doctor notes.
+ */
+public record HistorySummary(Long id, LocalDate date, Short startMinute, String status, boolean confirmed,
+        String reason, String patientName, String patientUsername, Long doctorId, String doctorName,
+        String doctorSpecialty, LocalDateTime archivedAt) {
+
+    // "HH:mm", as for live appointments
+    public String getTime() {
+        return SlotTimes.formatClock(startMinute);
+    }
+}
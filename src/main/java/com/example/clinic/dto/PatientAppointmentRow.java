@@ -0,0 +1,28 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Patient dashboard row: the list fields plus the consultation outcome shown for completed visits.
+ */
+public class PatientAppointmentRow extends AppointmentRow {
+    private final String diagnosis;
+    private final String prescription;
+    private final String doctorNotes;
+
+    public PatientAppointmentRow(Long id, LocalDate date, Short startMinute, String status, boolean confirmed, String reason,
+            String patientName, String patientUsername, String doctorName, String doctorSpecialty,
+            LocalDateTime consultationStartTime, LocalDateTime consultationEndTime,
+            String diagnosis, String prescription, String doctorNotes) {
+        super(id, date, startMinute, status, confirmed, reason, patientName, patientUsername, doctorName, doctorSpecialty,
+                consultationStartTime, consultationEndTime);
+        this.diagnosis = diagnosis;
+        this.prescription = prescription;
+        this.doctorNotes = doctorNotes;
+    }
+
+    public String getDiagnosis() { return diagnosis; }
+    public String getPrescription() { return prescription; }
+    public String getDoctorNotes() { return doctorNotes; }
+}
@@ -0,0 +1,12 @@
+package com.example.clinic.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A completed consultation whose prescription can be exported; archived ones live in appointment_history.
+ * Carries the names drawn on the document, which are part of its content version.
+ */
+public record PrescriptionRef(Long appointmentId, LocalDate date, LocalDateTime completedAt, boolean archived,
+        String doctorName, String doctorSpecialty, String patientName, String patientUsername) {
+}
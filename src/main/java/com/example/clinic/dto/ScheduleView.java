@@ -0,0 +1,9 @@
+package com.example.clinic.dto;
+
+import java.util.List;
+
+import com.example.clinic.model.ScheduleException;
+
+public record ScheduleView(Long doctorId, int slotDurationMinutes, List<WeeklyInterval> weekly,
+        List<ScheduleException> exceptions) {
+}
@@ -0,0 +1,9 @@
+package com.example.clinic.dto;
+
+import java.time.DayOfWeek;
+
+/**
+ * One interval of a weekly template as exchanged with clients; times are "HH:mm", end exclusive ("24:00" allowed).
+ */
+public record WeeklyInterval(DayOfWeek dayOfWeek, String start, String end) {
+}
@@ -0,0 +1,80 @@
+package com.example.clinic.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.flywaydb.core.api.FlywayException;
+
+/**
+ * Shared by the migrations that (re)create the unique slot index. The index is the database-side
+ * guarantee behind AppointmentService.reserve, so it is never skipped. Cancelled appointments do not
+ * hold their slot, and older versions booked over them freely, so a cancelled row sharing its slot with
+ * another row first gives the slot up ({@link #releaseCancelled}). If live rows still book the same
+ * doctor/date/slot twice, the migration fails and names them, and the duplicates have to be resolved
+ * before the application can start.
+ */
+final class SlotDuplicates {
+
+    private static final int MAX_LISTED = 20;
+
+    private SlotDuplicates() {
+    }
+
+    /**
+     * Clears the slot column of every cancelled appointment whose doctor/date/slot another row also
+     * uses. Those rows keep everything else; only the time is lost, which is logged per row.
+     */
+    static void releaseCancelled(Connection connection, String slotColumn) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT a.id, a." + slotColumn + " FROM appointment a "
+                     + "WHERE a.status = 'Cancelled' AND a." + slotColumn + " IS NOT NULL AND EXISTS ("
+                     + "SELECT 1 FROM appointment o WHERE o.doctor_id = a.doctor_id AND o.date = a.date "
+                     + "AND o." + slotColumn + " = a." + slotColumn + " AND o.id <> a.id) ORDER BY a.id")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+                System.err.println("Releasing the slot (" + slotColumn + " " + rs.getString(2)
+                        + ") of cancelled appointment " + rs.getLong(1) + ", which shares it with another booking");
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE appointment SET " + slotColumn + " = NULL WHERE id = ?")) {
+            for (Long id : ids) {
+                update.setLong(1, id);
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    static void requireNone(Connection connection, String slotColumn) throws Exception {
+        StringBuilder listed = new StringBuilder();
+        int count = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT doctor_id, date, " + slotColumn + ", COUNT(*), MIN(id), MAX(id) "
+                     + "FROM appointment WHERE " + slotColumn + " IS NOT NULL "
+                     + "GROUP BY doctor_id, date, " + slotColumn + " HAVING COUNT(*) > 1 "
+                     + "ORDER BY doctor_id, date, " + slotColumn)) {
+            while (rs.next()) {
+                if (count++ < MAX_LISTED) {
+                    listed.append("\n  doctor ").append(rs.getLong(1)).append(", ").append(rs.getDate(2))
+                            .append(", ").append(slotColumn).append(' ').append(rs.getString(3))
+                            .append(": ").append(rs.getLong(4)).append(" rows (ids ").append(rs.getLong(5))
+                            .append("..").append(rs.getLong(6)).append(')');
+                }
+            }
+        }
+        if (count > 0) {
+            throw new FlywayException("Cannot create unique index uk_appointment_doctor_slot: " + count
+                    + " doctor/date/slot combinations are booked more than once. Remove or move the extra "
+                    + "appointments and restart." + listed + (count > MAX_LISTED ? "\n  ..." : ""));
+        }
+    }
+}
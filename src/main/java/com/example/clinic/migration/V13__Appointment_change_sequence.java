@@ -0,0 +1,33 @@
+package com.example.clinic.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Creates the sequence appointment change versions are taken from, so every instance sharing the
+ * database stamps from one counter. It starts above the highest version already written (rows or
+ * tombstones); like V2, done in Java because the start value is computed.
+ */
+public class V13__Appointment_change_sequence extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        long maxVersion;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT GREATEST("
+                     + "(SELECT COALESCE(MAX(change_version), 0) FROM appointment), "
+                     + "(SELECT COALESCE(MAX(change_version), 0) FROM appointment_tombstone))")) {
+            rs.next();
+            maxVersion = rs.getLong(1);
+        }
+        // increment 1 and no pooling: versions are compared across instances, so none may be held back in a block
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE appointment_change_seq START WITH " + (maxVersion + 1) + " INCREMENT BY 1");
+        }
+    }
+}
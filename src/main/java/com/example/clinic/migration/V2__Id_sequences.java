@@ -0,0 +1,45 @@
+package com.example.clinic.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Creates the id sequences used by the pooled optimizer. Each sequence starts one allocation block
+ * above the current max(id) so ids handed out by Hibernate never collide with rows inserted while
+ * the tables still used IDENTITY columns. Done in Java because neither H2 nor PostgreSQL accept a
+ * computed START WITH in plain DDL.
+ */
+public class V2__Id_sequences extends BaseJavaMigration {
+
+    // must match allocationSize on the entities' @SequenceGenerator
+    static final int ALLOCATION_SIZE = 50;
+
+    private static final String[][] SEQUENCES = {
+            {"users", "users_seq"},
+            {"doctor", "doctor_seq"},
+            {"appointment", "appointment_seq"}
+    };
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        for (String[] sequence : SEQUENCES) {
+            long maxId;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + sequence[0])) {
+                rs.next();
+                maxId = rs.getLong(1);
+            }
+            // the pooled optimizer treats each sequence value as the top of a block of ALLOCATION_SIZE ids
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE SEQUENCE " + sequence[1]
+                        + " START WITH " + (maxId + ALLOCATION_SIZE)
+                        + " INCREMENT BY " + ALLOCATION_SIZE);
+            }
+        }
+    }
+}
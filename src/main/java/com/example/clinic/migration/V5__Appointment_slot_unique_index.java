@@ -0,0 +1,25 @@
+package com.example.clinic.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Enforces one appointment per doctor/date/time on databases created before the constraint existed
+ * (previously it was only added by ddl-auto=update). Cancelled rows sharing a slot give it up; other
+ * double-bookings fail the migration with the offending slots listed, see {@link SlotDuplicates}.
+ */
+public class V5__Appointment_slot_unique_index extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        SlotDuplicates.releaseCancelled(connection, "time");
+        SlotDuplicates.requireNone(connection, "time");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_appointment_doctor_slot ON appointment (doctor_id, date, time)");
+        }
+    }
+}
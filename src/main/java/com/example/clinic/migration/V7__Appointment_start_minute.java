@@ -0,0 +1,114 @@
+package com.example.clinic.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Replaces the free-form time string of live and archived appointments with a SMALLINT minute of the
+ * day. Existing values are converted in Java because rows written by older versions mix "HH:mm" and
+ * "h:mm AM" forms that plain SQL cannot parse portably. Values that cannot be parsed are logged and
+ * left null. The parser is a frozen copy of what SlotTimes accepted when this migration was written,
+ * so later changes to the application code cannot change what it does. The slot constraint and the
+ * keyset index are rebuilt on the new column; slots that now collide fail the migration unless all but
+ * one of the rows are cancelled (see {@link SlotDuplicates}).
+ */
+public class V7__Appointment_start_minute extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE appointment ADD COLUMN start_minute SMALLINT");
+            statement.execute("ALTER TABLE appointment_history ADD COLUMN start_minute SMALLINT");
+        }
+        convert(connection, "appointment");
+        convert(connection, "appointment_history");
+        // "9:00 AM" and "09:00" used to be different strings; as minutes they may now collide.
+        // Checked before the old column is dropped, so the failing rows can still be inspected.
+        SlotDuplicates.releaseCancelled(connection, "start_minute");
+        SlotDuplicates.requireNone(connection, "start_minute");
+
+        try (Statement statement = connection.createStatement()) {
+            // the old slot guard may exist as a table constraint (V1, ddl-auto) or as a plain index (V5)
+            statement.execute("ALTER TABLE appointment DROP CONSTRAINT IF EXISTS uk_appointment_doctor_slot");
+            statement.execute("DROP INDEX IF EXISTS uk_appointment_doctor_slot");
+            statement.execute("DROP INDEX IF EXISTS idx_appointment_date_time_id");
+            statement.execute("ALTER TABLE appointment DROP COLUMN time");
+            statement.execute("ALTER TABLE appointment_history DROP COLUMN time");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_appointment_date_minute_id ON appointment (date, start_minute, id)");
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_appointment_doctor_slot ON appointment (doctor_id, date, start_minute)");
+        }
+    }
+
+    private static void convert(Connection connection, String table) throws Exception {
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id, time FROM " + table + " WHERE time IS NOT NULL");
+             PreparedStatement update = connection.prepareStatement("UPDATE " + table + " SET start_minute = ? WHERE id = ?")) {
+            int pending = 0;
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                String time = rs.getString(2);
+                int minute = parseMinute(time);
+                if (minute < 0) {
+                    System.err.println("Cannot convert time '" + time + "' of " + table + " " + id + "; leaving it empty");
+                    continue;
+                }
+                update.setShort(1, (short) minute);
+                update.setLong(2, id);
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    // "HH:mm" (24-hour) or "h:mm AM"/"h:mm PM" -> minute of the day, -1 when it cannot be parsed
+    private static int parseMinute(String time) {
+        if (time == null) return -1;
+        String value = time.trim();
+        int colon = value.indexOf(':');
+        if (colon < 1 || colon + 3 > value.length()) return -1;
+
+        int hour = parseDigits(value, 0, colon);
+        int minute = parseDigits(value, colon + 1, colon + 3);
+        if (hour < 0 || minute < 0 || minute > 59) return -1;
+
+        String suffix = value.substring(colon + 3).trim();
+        if (suffix.isEmpty()) {
+            if (hour > 23) return -1;
+        } else if (suffix.equalsIgnoreCase("AM") || suffix.equalsIgnoreCase("PM")) {
+            if (hour < 1 || hour > 12) return -1;
+            hour = hour % 12;
+            if (suffix.equalsIgnoreCase("PM")) hour += 12;
+        } else {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    private static int parseDigits(String value, int from, int to) {
+        if (to - from < 1 || to - from > 2) return -1;
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
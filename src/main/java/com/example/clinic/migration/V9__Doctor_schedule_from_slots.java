@@ -0,0 +1,154 @@
+package com.example.clinic.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Converts each doctor's comma-separated available_slots into weekly schedule rules: back-to-back slots
+ * are merged into intervals offered Monday to Friday (the old list had no notion of days), and the slot
+ * duration becomes the smallest gap between listed slots. Doctors without a list get the default the
+ * application used to assign. The rule sequence is created afterwards, one allocation block above the
+ * ids used here, and the legacy column is dropped.
+ *
+ * The parsing and merging below are frozen copies of the ScheduleService and SlotTimes helpers as they
+ * were when this migration was written, so later changes to the application cannot change what it does.
+ */
+public class V9__Doctor_schedule_from_slots extends BaseJavaMigration {
+
+    private static final String LEGACY_DEFAULT_SLOTS = "09:00,10:00,11:00,14:00,15:00";
+    private static final Set<DayOfWeek> LEGACY_SLOT_DAYS = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+    private static final int DEFAULT_SLOT_MINUTES = 30;
+    private static final int MAX_SLOT_MINUTES = 8 * 60;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        Map<Long, String> slotsByDoctor = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, available_slots FROM doctor ORDER BY id")) {
+            while (rs.next()) {
+                slotsByDoctor.put(rs.getLong(1), rs.getString(2));
+            }
+        }
+
+        long nextId = 1;
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO schedule_rule "
+                     + "(id, doctor_id, day_of_week, start_minute, end_minute) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement duration = connection.prepareStatement(
+                     "UPDATE doctor SET slot_duration_minutes = ? WHERE id = ?")) {
+            for (Map.Entry<Long, String> doctor : slotsByDoctor.entrySet()) {
+                int[] minutes = parseSlotList(doctor.getValue());
+                if (minutes.length == 0) {
+                    minutes = parseSlotList(LEGACY_DEFAULT_SLOTS);
+                }
+                int slotMinutes = slotDurationOf(minutes);
+                int[] runs = runsFromSlots(minutes, slotMinutes);
+                for (DayOfWeek day : LEGACY_SLOT_DAYS) {
+                    for (int i = 0; i < runs.length; i += 2) {
+                        insert.setLong(1, nextId++);
+                        insert.setLong(2, doctor.getKey());
+                        insert.setString(3, day.name());
+                        insert.setShort(4, (short) runs[i]);
+                        insert.setShort(5, (short) runs[i + 1]);
+                        insert.addBatch();
+                    }
+                }
+                duration.setInt(1, slotMinutes);
+                duration.setLong(2, doctor.getKey());
+                duration.addBatch();
+            }
+            insert.executeBatch();
+            duration.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE schedule_rule_seq START WITH " + (nextId - 1 + V2__Id_sequences.ALLOCATION_SIZE)
+                    + " INCREMENT BY " + V2__Id_sequences.ALLOCATION_SIZE);
+            statement.execute("ALTER TABLE doctor DROP COLUMN available_slots");
+        }
+    }
+
+    private static int[] parseSlotList(String slots) {
+        if (slots == null || slots.isBlank()) {
+            return new int[0];
+        }
+        return Arrays.stream(slots.split(","))
+                .mapToInt(V9__Doctor_schedule_from_slots::parseMinute)
+                .filter(minute -> minute >= 0)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    // smallest gap between consecutive sorted slot starts, or the default when there is no gap to measure
+    private static int slotDurationOf(int[] sortedMinutes) {
+        int duration = Integer.MAX_VALUE;
+        for (int i = 1; i < sortedMinutes.length; i++) {
+            duration = Math.min(duration, sortedMinutes[i] - sortedMinutes[i - 1]);
+        }
+        return duration == Integer.MAX_VALUE ? DEFAULT_SLOT_MINUTES : Math.min(duration, MAX_SLOT_MINUTES);
+    }
+
+    // slot starts of the given duration merged into [start, end) minute pairs of back-to-back slots
+    private static int[] runsFromSlots(int[] sortedMinutes, int duration) {
+        int[] runs = new int[sortedMinutes.length * 2];
+        int n = 0;
+        for (int minute : sortedMinutes) {
+            int end = Math.min(minute + duration, MINUTES_PER_DAY);
+            if (n > 0 && runs[n - 1] == minute) {
+                runs[n - 1] = end;
+            } else {
+                runs[n++] = minute;
+                runs[n++] = end;
+            }
+        }
+        return Arrays.copyOf(runs, n);
+    }
+
+    // "HH:mm" (24-hour) or "h:mm AM"/"h:mm PM" -> minute of the day, -1 when it cannot be parsed
+    private static int parseMinute(String time) {
+        if (time == null) return -1;
+        String value = time.trim();
+        int colon = value.indexOf(':');
+        if (colon < 1 || colon + 3 > value.length()) return -1;
+
+        int hour = parseDigits(value, 0, colon);
+        int minute = parseDigits(value, colon + 1, colon + 3);
+        if (hour < 0 || minute < 0 || minute > 59) return -1;
+
+        String suffix = value.substring(colon + 3).trim();
+        if (suffix.isEmpty()) {
+            if (hour > 23) return -1;
+        } else if (suffix.equalsIgnoreCase("AM") || suffix.equalsIgnoreCase("PM")) {
+            if (hour < 1 || hour > 12) return -1;
+            hour = hour % 12;
+            if (suffix.equalsIgnoreCase("PM")) hour += 12;
+        } else {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    private static int parseDigits(String value, int from, int to) {
+        if (to - from < 1 || to - from > 2) return -1;
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
@@ -3,27 +3,40 @@ package com.example.clinic.model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+import com.example.clinic.service.SlotTimes;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
+// documents the index V14 creates; AppointmentService.reserve recognises conflicts by its name
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_appointment_doctor_slot", columnNames = {"doctor_id", "date", "slot_minute"}))
 public class Appointment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User patient;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Doctor doctor;
 
     private LocalDate date;
-    private String time; // store as "HH:mm" for simplicity
+    private Short startMinute; // minute of the day (0..1439); see SlotTimes
+    // startMinute while the appointment holds its slot, null once it is cancelled so the slot can be booked again
+    @Column(name = "slot_minute") // named explicitly so the unique constraint above can refer to it
+    private Short slotMinute;
     private String patientName; // store patient name for easy access
     private String reason; // reason for appointment
 
@@ -33,15 +46,9 @@ public class Appointment {
     // Consultation fields
     private LocalDateTime consultationStartTime;
     private LocalDateTime consultationEndTime;
-    
-    @Column(length = 2000)
-    private String diagnosis; // Patient report/diagnosis
-    
-    @Column(length = 2000)
-    private String prescription; // Prescription details
-    
-    @Column(length = 1000)
-    private String doctorNotes; // Additional doctor notes
+    // diagnosis, prescription and notes live in ConsultationRecord
+
+    private long changeVersion; // stamped by AppointmentService on every write; see /api/appointments/changes
 
     // getters/setters
     public Long getId() { return id; }
@@ -52,32 +59,15 @@ public class Appointment {
     public void setDoctor(Doctor doctor) { this.doctor = doctor; }
     public LocalDate getDate() { return date; }
     public void setDate(LocalDate date) { this.date = date; }
-    public String getTime() { return time; }
-    public void setTime(String time) { this.time = time; }
-    
-    public String getFormattedTime() {
-        if (time == null) return "N/A";
-        
-        // If already contains AM/PM, return as is
-        if (time.toUpperCase().contains("AM") || time.toUpperCase().contains("PM")) {
-            return time;
-        }
-        
-        try {
-            // Parse 24-hour format and convert to 12-hour
-            String[] parts = time.split(":");
-            int hour = Integer.parseInt(parts[0]);
-            int minute = Integer.parseInt(parts[1]);
-            
-            String ampm = (hour >= 12) ? "PM" : "AM";
-            if (hour == 0) hour = 12;
-            if (hour > 12) hour -= 12;
-            
-            return String.format("%d:%02d %s", hour, minute, ampm);
-        } catch (Exception e) {
-            return time; // Return original if parsing fails
-        }
-    }
+    public Short getStartMinute() { return startMinute; }
+    public void setStartMinute(Short startMinute) { this.startMinute = startMinute; updateSlot(); }
+    @JsonIgnore
+    public Short getSlotMinute() { return slotMinute; }
+
+    // "HH:mm" view of startMinute, kept for API clients and templates
+    public String getTime() { return SlotTimes.formatClock(startMinute); }
+    public void setTime(String time) { setStartMinute(SlotTimes.toStored(time)); }
+    public String getFormattedTime() { return SlotTimes.formatDisplay(startMinute); }
     public boolean isConfirmed() { return confirmed; }
     public void setConfirmed(boolean confirmed) { this.confirmed = confirmed; }
     public String getPatientName() { return patientName; }
@@ -85,7 +75,7 @@ public class Appointment {
     public String getReason() { return reason; }
     public void setReason(String reason) { this.reason = reason; }
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) { this.status = status; updateSlot(); }
     
     // Consultation getters/setters
     public LocalDateTime getConsultationStartTime() { return consultationStartTime; }
@@ -96,10 +86,9 @@ public class Appointment {
     public void setConsultationEndTime(LocalDateTime consultationEndTime) { 
         this.consultationEndTime = consultationEndTime; 
     }
-    public String getDiagnosis() { return diagnosis; }
-    public void setDiagnosis(String diagnosis) { this.diagnosis = diagnosis; }
-    public String getPrescription() { return prescription; }
-    public void setPrescription(String prescription) { this.prescription = prescription; }
-    public String getDoctorNotes() { return doctorNotes; }
-    public void setDoctorNotes(String doctorNotes) { this.doctorNotes = doctorNotes; }
+
+    public long getChangeVersion() { return changeVersion; }
+    public void setChangeVersion(long changeVersion) { this.changeVersion = changeVersion; }
+
+    private void updateSlot() { this.slotMinute = "Cancelled".equals(status) ? null : startMinute; }
 }
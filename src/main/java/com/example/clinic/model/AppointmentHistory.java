@@ -0,0 +1,71 @@
+package com.example.clinic.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.example.clinic.service.SlotTimes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Archived (cold) copy of a finished appointment. Rows are moved here from the live appointment table
+ * by AppointmentArchiver and keep their original id. Patient and doctor details are copied rather than
+ * referenced so history survives the deletion of either account.
+ */
+@Entity
+@Table(name = "appointment_history")
+public class AppointmentHistory {
+    @Id
+    private Long id;
+
+    private Long patientId;
+    private String patientUsername;
+    private String patientName;
+    private Long doctorId;
+    private String doctorName;
+    private String doctorSpecialty;
+
+    private LocalDate date;
+    private Short startMinute;
+    private String reason;
+    private boolean confirmed;
+    private String status;
+
+    private LocalDateTime consultationStartTime;
+    private LocalDateTime consultationEndTime;
+
+    @Column(length = 2000)
+    private String diagnosis;
+
+    @Column(length = 2000)
+    private String prescription;
+
+    @Column(length = 1000)
+    private String doctorNotes;
+
+    private LocalDateTime archivedAt;
+
+    // getters only: history rows are written in bulk by the archiver and never modified
+    public Long getId() { return id; }
+    public Long getPatientId() { return patientId; }
+    public String getPatientUsername() { return patientUsername; }
+    public String getPatientName() { return patientName; }
+    public Long getDoctorId() { return doctorId; }
+    public String getDoctorName() { return doctorName; }
+    public String getDoctorSpecialty() { return doctorSpecialty; }
+    public LocalDate getDate() { return date; }
+    public Short getStartMinute() { return startMinute; }
+    public String getTime() { return SlotTimes.formatClock(startMinute); }
+    public String getReason() { return reason; }
+    public boolean isConfirmed() { return confirmed; }
+    public String getStatus() { return status; }
+    public LocalDateTime getConsultationStartTime() { return consultationStartTime; }
+    public LocalDateTime getConsultationEndTime() { return consultationEndTime; }
+    public String getDiagnosis() { return diagnosis; }
+    public String getPrescription() { return prescription; }
+    public String getDoctorNotes() { return doctorNotes; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
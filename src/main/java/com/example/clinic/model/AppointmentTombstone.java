@@ -0,0 +1,38 @@
+package com.example.clinic.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Marker left behind when an appointment is deleted, so change-feed clients learn to drop it.
+ * Carries just enough to filter the feed by doctor or patient.
+ */
+@Entity
+public class AppointmentTombstone {
+    @Id
+    private Long appointmentId;
+
+    private Long doctorId;
+    private String patientUsername;
+    private long changeVersion;
+    private LocalDateTime deletedAt;
+
+    public AppointmentTombstone() {
+    }
+
+    public AppointmentTombstone(Long appointmentId, Long doctorId, String patientUsername, long changeVersion) {
+        this.appointmentId = appointmentId;
+        this.doctorId = doctorId;
+        this.patientUsername = patientUsername;
+        this.changeVersion = changeVersion;
+        this.deletedAt = LocalDateTime.now();
+    }
+
+    public Long getAppointmentId() { return appointmentId; }
+    public Long getDoctorId() { return doctorId; }
+    public String getPatientUsername() { return patientUsername; }
+    public long getChangeVersion() { return changeVersion; }
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+}
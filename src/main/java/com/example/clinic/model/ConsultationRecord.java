@@ -0,0 +1,46 @@
+package com.example.clinic.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Clinical outcome of a consultation, kept out of Appointment so list queries and cached appointments
+ * carry only scheduling fields. Shares its primary key with the appointment and is loaded only when a
+ * single consultation is opened (prescription download, completed-visit details).
+ */
+@Entity
+public class ConsultationRecord {
+    @Id
+    private Long appointmentId;
+
+    @Column(length = 2000)
+    private String diagnosis; // Patient report/diagnosis
+
+    @Column(length = 2000)
+    private String prescription; // Prescription details
+
+    @Column(length = 1000)
+    private String doctorNotes; // Additional doctor notes
+
+    private LocalDateTime recordedAt;
+
+    public ConsultationRecord() {
+    }
+
+    public ConsultationRecord(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public Long getAppointmentId() { return appointmentId; }
+    public String getDiagnosis() { return diagnosis; }
+    public void setDiagnosis(String diagnosis) { this.diagnosis = diagnosis; }
+    public String getPrescription() { return prescription; }
+    public void setPrescription(String prescription) { this.prescription = prescription; }
+    public String getDoctorNotes() { return doctorNotes; }
+    public void setDoctorNotes(String doctorNotes) { this.doctorNotes = doctorNotes; }
+    public LocalDateTime getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(LocalDateTime recordedAt) { this.recordedAt = recordedAt; }
+}
@@ -4,19 +4,21 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 
 @Entity
 public class Doctor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctor_seq")
+    @SequenceGenerator(name = "doctor_seq", sequenceName = "doctor_seq", allocationSize = 50)
     private Long id;
 
     private String name;
     private String specialty;
     private String username; // links to User entity
 
-    // comma-separated available time slots for simplicity (e.g. "09:00,09:30,10:00")
-    private String availableSlots;
+    // length of one bookable slot; working hours live in ScheduleRule / ScheduleException
+    private Integer slotDurationMinutes;
 
     // getters/setters
     public Long getId() { return id; }
@@ -25,8 +27,8 @@ public class Doctor {
     public void setName(String name) { this.name = name; }
     public String getSpecialty() { return specialty; }
     public void setSpecialty(String specialty) { this.specialty = specialty; }
-    public String getAvailableSlots() { return availableSlots; }
-    public void setAvailableSlots(String availableSlots) { this.availableSlots = availableSlots; }
+    public Integer getSlotDurationMinutes() { return slotDurationMinutes; }
+    public void setSlotDurationMinutes(Integer slotDurationMinutes) { this.slotDurationMinutes = slotDurationMinutes; }
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
 }
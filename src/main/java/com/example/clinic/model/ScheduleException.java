@@ -0,0 +1,58 @@
+package com.example.clinic.model;
+
+import java.time.LocalDate;
+
+import com.example.clinic.service.SlotTimes;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+
+/**
+ * A date-range override of a doctor's weekly template. With {@code available = false} the interval is
+ * blocked (leave, holidays, a meeting); with {@code available = true} it adds working time the template
+ * does not have. Null start/end minutes mean the whole day.
+ */
+@Entity
+public class ScheduleException {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "schedule_exception_seq")
+    @SequenceGenerator(name = "schedule_exception_seq", sequenceName = "schedule_exception_seq", allocationSize = 50)
+    private Long id;
+
+    private Long doctorId;
+
+    private LocalDate startDate;
+    private LocalDate endDate; // inclusive
+
+    private Short startMinute;
+    private Short endMinute;
+
+    private boolean available;
+    private String note;
+
+    public Long getId() { return id; }
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    public Short getStartMinute() { return startMinute; }
+    public void setStartMinute(Short startMinute) { this.startMinute = startMinute; }
+    public Short getEndMinute() { return endMinute; }
+    public void setEndMinute(Short endMinute) { this.endMinute = endMinute; }
+    public boolean isAvailable() { return available; }
+    public void setAvailable(boolean available) { this.available = available; }
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+
+    public boolean isWholeDay() { return startMinute == null || endMinute == null; }
+    public String getStart() { return isWholeDay() ? null : SlotTimes.formatClock(startMinute); }
+    public String getEnd() {
+        if (isWholeDay()) return null;
+        return endMinute == SlotTimes.MINUTES_PER_DAY ? "24:00" : SlotTimes.formatClock(endMinute);
+    }
+}
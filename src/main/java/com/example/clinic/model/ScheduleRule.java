@@ -0,0 +1,51 @@
+package com.example.clinic.model;
+
+import java.time.DayOfWeek;
+
+import com.example.clinic.service.SlotTimes;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+
+/**
+ * One recurring working interval of a doctor's weekly template, e.g. Monday 09:00-12:00.
+ * A day may have several intervals; slots are cut from them using the doctor's slot duration.
+ */
+@Entity
+public class ScheduleRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "schedule_rule_seq")
+    @SequenceGenerator(name = "schedule_rule_seq", sequenceName = "schedule_rule_seq", allocationSize = 50)
+    private Long id;
+
+    private Long doctorId;
+
+    @Enumerated(EnumType.STRING)
+    private DayOfWeek dayOfWeek;
+
+    private short startMinute; // inclusive, minute of the day
+    private short endMinute;   // exclusive
+
+    public ScheduleRule() {
+    }
+
+    public ScheduleRule(Long doctorId, DayOfWeek dayOfWeek, int startMinute, int endMinute) {
+        this.doctorId = doctorId;
+        this.dayOfWeek = dayOfWeek;
+        this.startMinute = (short) startMinute;
+        this.endMinute = (short) endMinute;
+    }
+
+    public Long getId() { return id; }
+    public Long getDoctorId() { return doctorId; }
+    public DayOfWeek getDayOfWeek() { return dayOfWeek; }
+    public short getStartMinute() { return startMinute; }
+    public short getEndMinute() { return endMinute; }
+    public String getStart() { return SlotTimes.formatClock(startMinute); }
+    public String getEnd() { return endMinute == SlotTimes.MINUTES_PER_DAY ? "24:00" : SlotTimes.formatClock(endMinute); }
+}
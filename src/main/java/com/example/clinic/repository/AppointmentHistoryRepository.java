@@ -0,0 +1,91 @@
+package com.example.clinic.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.example.clinic.dto.CountByKey;
+import com.example.clinic.dto.HistorySummary;
+import com.example.clinic.dto.PrescriptionRef;
+import com.example.clinic.model.AppointmentHistory;
+
+import jakarta.persistence.QueryHint;
+
+public interface AppointmentHistoryRepository extends JpaRepository<AppointmentHistory, Long> {
+
+    // Keyset pages, newest first: pass the last id of the previous page as beforeId. Projected so the
+    // clinical text columns are never read for listings
+    String SUMMARY_SELECT = "select new com.example.clinic.dto.HistorySummary(h.id, h.date, h.startMinute, h.status, "
+            + "h.confirmed, h.reason, h.patientName, h.patientUsername, h.doctorId, h.doctorName, h.doctorSpecialty, "
+            + "h.archivedAt) from AppointmentHistory h ";
+
+    @Query(SUMMARY_SELECT + "where h.id < :beforeId order by h.id desc")
+    List<HistorySummary> findSummariesBefore(@Param("beforeId") Long beforeId, Pageable page);
+
+    @Query(SUMMARY_SELECT + "where h.patientUsername = :patientUsername and h.id < :beforeId order by h.id desc")
+    List<HistorySummary> findSummariesByPatientBefore(@Param("patientUsername") String patientUsername,
+            @Param("beforeId") Long beforeId, Pageable page);
+
+    @Query(SUMMARY_SELECT + "where h.doctorId = :doctorId and h.id < :beforeId order by h.id desc")
+    List<HistorySummary> findSummariesByDoctorBefore(@Param("doctorId") Long doctorId, @Param("beforeId") Long beforeId,
+            Pageable page);
+
+    @Query("select new com.example.clinic.dto.PrescriptionRef(h.id, h.date, h.consultationEndTime, true, h.doctorName, "
+            + "h.doctorSpecialty, h.patientName, h.patientUsername) from AppointmentHistory h "
+            + "where h.patientUsername = :patientUsername and h.status = 'Completed' order by h.date, h.startMinute, h.id")
+    List<PrescriptionRef> findPrescriptionRefsByPatientUsername(@Param("patientUsername") String patientUsername);
+
+    interface ArchivableRow {
+        Long getId();
+        Long getDoctorId();
+        String getPatientUsername();
+    }
+
+    // Finished live appointments old enough to archive, with what their tombstones need
+    @Query("select a.id as id, a.doctor.id as doctorId, p.username as patientUsername from Appointment a "
+            + "left join a.patient p where a.status in :statuses and a.date < :cutoff order by a.id")
+    List<ArchivableRow> findArchivable(@Param("statuses") Collection<String> statuses, @Param("cutoff") LocalDate cutoff,
+            Pageable batch);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO appointment_history (id, patient_id, patient_username, patient_name, "
+            + "doctor_id, doctor_name, doctor_specialty, date, start_minute, reason, confirmed, status, consultation_start_time, "
+            + "consultation_end_time, diagnosis, prescription, doctor_notes, archived_at) "
+            + "SELECT a.id, a.patient_id, u.username, a.patient_name, a.doctor_id, d.name, d.specialty, a.date, a.start_minute, "
+            + "a.reason, a.confirmed, a.status, a.consultation_start_time, a.consultation_end_time, c.diagnosis, "
+            + "c.prescription, c.doctor_notes, CURRENT_TIMESTAMP "
+            + "FROM appointment a LEFT JOIN users u ON u.id = a.patient_id LEFT JOIN doctor d ON d.id = a.doctor_id "
+            + "LEFT JOIN consultation_record c ON c.appointment_id = a.id "
+            + "WHERE a.id IN (:ids)")
+    int copyToHistory(@Param("ids") Collection<Long> ids);
+
+    // consultation_record rows go with their appointment (ON DELETE CASCADE)
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM appointment WHERE id IN (:ids)")
+    int deleteLive(@Param("ids") Collection<Long> ids);
+
+    // Admin statistics over the archived rows; StatsService adds them to the live figures
+    @Query("select new com.example.clinic.dto.CountByKey(h.status, count(h)) from AppointmentHistory h "
+            + "group by h.status")
+    List<CountByKey> countByStatus();
+
+    // the specialty as it was when archived, as the export shows it
+    @Query("select new com.example.clinic.dto.CountByKey(h.doctorSpecialty, count(h)) from AppointmentHistory h "
+            + "group by h.doctorSpecialty")
+    List<CountByKey> countBySpecialty();
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select h from AppointmentHistory h order by h.id")
+    Stream<AppointmentHistory> streamAllForExport();
+}
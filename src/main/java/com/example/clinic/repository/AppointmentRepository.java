@@ -1,16 +1,109 @@
 package com.example.clinic.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.example.clinic.dto.AppointmentChange;
+import com.example.clinic.dto.AppointmentRow;
+import com.example.clinic.dto.CountByKey;
+import com.example.clinic.dto.DoctorLoad;
+import com.example.clinic.dto.PatientAppointmentRow;
+import com.example.clinic.dto.PrescriptionRef;
 import com.example.clinic.model.Appointment;
 import com.example.clinic.model.Doctor;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+import jakarta.persistence.QueryHint;
+
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
     List<Appointment> findByDoctorAndDate(Doctor doctor, LocalDate date);
     List<Appointment> findByPatientName(String patientName);
     List<Appointment> findByPatient(com.example.clinic.model.User patient);
     List<Appointment> findByDoctorUsername(String doctorUsername);
+
+    // Dashboard lists: one joined query each, projected straight into DTOs
+    String ROW_SELECT = "select new com.example.clinic.dto.AppointmentRow(a.id, a.date, a.startMinute, a.status, a.confirmed, "
+            + "a.reason, a.patientName, p.username, d.name, d.specialty, a.consultationStartTime, a.consultationEndTime) "
+            + "from Appointment a left join a.patient p left join a.doctor d ";
+
+    @Query(ROW_SELECT + "order by a.date, a.startMinute, a.id")
+    List<AppointmentRow> findAllRows();
+
+    @Query(ROW_SELECT + "where d.username = :doctorUsername and a.date >= :from order by a.date, a.startMinute, a.id")
+    List<AppointmentRow> findRowsByDoctorUsernameFrom(@Param("doctorUsername") String doctorUsername,
+            @Param("from") LocalDate from);
+
+    @Query("select new com.example.clinic.dto.PatientAppointmentRow(a.id, a.date, a.startMinute, a.status, a.confirmed, "
+            + "a.reason, a.patientName, p.username, d.name, d.specialty, a.consultationStartTime, a.consultationEndTime, "
+            + "c.diagnosis, c.prescription, c.doctorNotes) "
+            + "from Appointment a join a.patient p left join a.doctor d "
+            + "left join ConsultationRecord c on c.appointmentId = a.id "
+            + "where p.username = :patientUsername and a.date >= :from order by a.date, a.startMinute, a.id")
+    List<PatientAppointmentRow> findRowsByPatientUsernameFrom(@Param("patientUsername") String patientUsername,
+            @Param("from") LocalDate from);
+
+    // Change feed: rows written in (since, upTo], optionally for one doctor / patient only
+    @Query("select new com.example.clinic.dto.AppointmentChange(a.id, a.changeVersion, false, d.id, d.name, d.specialty, "
+            + "p.username, a.patientName, a.date, a.startMinute, a.status, a.confirmed, a.reason, "
+            + "a.consultationStartTime, a.consultationEndTime) "
+            + "from Appointment a left join a.patient p left join a.doctor d "
+            + "where a.changeVersion > :since and a.changeVersion <= :upTo "
+            + "and (:doctorId is null or d.id = :doctorId) "
+            + "and (:patientUsername is null or p.username = :patientUsername) order by a.changeVersion")
+    List<AppointmentChange> findChanges(@Param("since") long since, @Param("upTo") long upTo,
+            @Param("doctorId") Long doctorId, @Param("patientUsername") String patientUsername, Pageable page);
+
+    @Query("select coalesce(max(a.changeVersion), 0) from Appointment a")
+    long maxChangeVersion();
+
+    // Slot-only view of an appointment, used to warm the in-memory availability index; cancelled
+    // appointments come back with a null slot
+    interface SlotRow {
+        Long getId();
+        Long getDoctorId();
+        LocalDate getDate();
+        Short getSlotMinute();
+    }
+
+    @Query("select a.id as id, a.doctor.id as doctorId, a.date as date, a.slotMinute as slotMinute from Appointment a "
+            + "where a.doctor.id = :doctorId and a.date = :date")
+    List<SlotRow> findSlotsByDoctorIdAndDate(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+
+    @Query("select a.id as id, a.doctor.id as doctorId, a.date as date, a.slotMinute as slotMinute from Appointment a "
+            + "where a.doctor.id in :doctorIds and a.date between :from and :to")
+    List<SlotRow> findSlotsByDoctorIdsAndDateRange(@Param("doctorIds") Collection<Long> doctorIds,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Admin statistics
+    @Query("select new com.example.clinic.dto.CountByKey(a.status, count(a)) from Appointment a "
+            + "group by a.status order by count(a) desc")
+    List<CountByKey> countByStatus();
+
+    @Query("select new com.example.clinic.dto.CountByKey(d.specialty, count(a)) from Appointment a join a.doctor d "
+            + "group by d.specialty order by count(a) desc")
+    List<CountByKey> countBySpecialty();
+
+    @Query("select new com.example.clinic.dto.DoctorLoad(d.id, d.name, count(a)) from Appointment a join a.doctor d "
+            + "where a.date = :date group by d.id, d.name order by count(a) desc")
+    List<DoctorLoad> countByDoctorOn(@Param("date") LocalDate date);
+
+    @Query("select new com.example.clinic.dto.PrescriptionRef(a.id, a.date, a.consultationEndTime, false, d.name, d.specialty, "
+            + "a.patientName, p.username) from Appointment a join a.patient p left join a.doctor d "
+            + "where p.username = :patientUsername and a.status = 'Completed' order by a.date, a.startMinute, a.id")
+    List<PrescriptionRef> findPrescriptionRefsByPatientUsername(@Param("patientUsername") String patientUsername);
+
+    // Full-history export: a forward-only cursor read in chunks; must be consumed inside a read-only transaction
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select a from Appointment a left join fetch a.doctor order by a.id")
+    Stream<Appointment> streamAllForExport();
 }
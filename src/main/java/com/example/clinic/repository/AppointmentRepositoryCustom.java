@@ -0,0 +1,16 @@
+package com.example.clinic.repository;
+
+import java.util.List;
+
+import com.example.clinic.dto.AppointmentCursor;
+import com.example.clinic.dto.AppointmentFilter;
+import com.example.clinic.dto.AppointmentSummary;
+
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Up to {@code limit} appointments matching the filter, ordered by (date, time, id) and strictly
+     * after {@code after} when it is given.
+     */
+    List<AppointmentSummary> findSummaries(AppointmentFilter filter, AppointmentCursor after, int limit);
+}
@@ -0,0 +1,69 @@
+package com.example.clinic.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.clinic.dto.AppointmentCursor;
+import com.example.clinic.dto.AppointmentFilter;
+import com.example.clinic.dto.AppointmentSummary;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class AppointmentRepositoryImpl implements AppointmentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AppointmentSummary> findSummaries(AppointmentFilter filter, AppointmentCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "select new com.example.clinic.dto.AppointmentSummary(a.id, a.date, a.startMinute, a.status, a.confirmed, "
+                + "a.reason, a.patientName, p.username, d.id, d.name, d.specialty) "
+                + "from Appointment a left join a.patient p left join a.doctor d where 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (filter.doctorId() != null) {
+            jpql.append(" and d.id = :doctorId");
+            params.put("doctorId", filter.doctorId());
+        }
+        if (filter.patientUsername() != null) {
+            jpql.append(" and p.username = :patientUsername");
+            params.put("patientUsername", filter.patientUsername());
+        }
+        if (filter.status() != null) {
+            jpql.append(" and a.status = :status");
+            params.put("status", filter.status());
+        }
+        if (filter.from() != null) {
+            jpql.append(" and a.date >= :fromDate");
+            params.put("fromDate", filter.from());
+        }
+        if (filter.to() != null) {
+            jpql.append(" and a.date <= :toDate");
+            params.put("toDate", filter.to());
+        }
+        if (after != null) {
+            // seek past the last row of the previous page instead of using OFFSET; rows whose time could
+            // not be converted (null startMinute) sort after every timed row of their day
+            jpql.append(" and (a.date > :cursorDate or (a.date = :cursorDate and ");
+            if (after.startMinute() != null) {
+                jpql.append("(a.startMinute is null or a.startMinute > :cursorMinute"
+                        + " or (a.startMinute = :cursorMinute and a.id > :cursorId))))");
+                params.put("cursorMinute", after.startMinute());
+            } else {
+                jpql.append("a.startMinute is null and a.id > :cursorId))");
+            }
+            params.put("cursorDate", after.date());
+            params.put("cursorId", after.id());
+        }
+        // explicit null ordering: H2 and PostgreSQL disagree on the default
+        jpql.append(" order by a.date, a.startMinute nulls last, a.id");
+
+        TypedQuery<AppointmentSummary> query = entityManager.createQuery(jpql.toString(), AppointmentSummary.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
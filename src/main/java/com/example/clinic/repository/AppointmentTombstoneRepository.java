@@ -0,0 +1,42 @@
+package com.example.clinic.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.clinic.model.AppointmentTombstone;
+
+public interface AppointmentTombstoneRepository extends JpaRepository<AppointmentTombstone, Long> {
+
+    @Query("select coalesce(max(t.changeVersion), 0) from AppointmentTombstone t")
+    long maxChangeVersion();
+
+    // Deletions in (since, upTo], optionally for one doctor / patient only
+    @Query("select t from AppointmentTombstone t where t.changeVersion > :since and t.changeVersion <= :upTo "
+            + "and (:doctorId is null or t.doctorId = :doctorId) "
+            + "and (:patientUsername is null or t.patientUsername = :patientUsername) order by t.changeVersion")
+    List<AppointmentTombstone> findChanges(@Param("since") long since, @Param("upTo") long upTo,
+            @Param("doctorId") Long doctorId, @Param("patientUsername") String patientUsername, Pageable page);
+
+    // Retention sweep (TombstoneSweeper): the newest version deleted before the cutoff, removal up to it,
+    // and the horizon below which the feed no longer has every deletion
+    @Query("select coalesce(max(t.changeVersion), 0) from AppointmentTombstone t where t.deletedAt < :cutoff")
+    long maxChangeVersionDeletedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("delete from AppointmentTombstone t where t.changeVersion <= :upTo")
+    int deleteUpTo(@Param("upTo") long upTo);
+
+    @Query(nativeQuery = true, value = "SELECT swept_through FROM appointment_tombstone_horizon WHERE id = 1")
+    long sweptThrough();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE appointment_tombstone_horizon SET swept_through = :upTo "
+            + "WHERE id = 1 AND swept_through < :upTo")
+    int advanceSweptThrough(@Param("upTo") long upTo);
+}
@@ -0,0 +1,8 @@
+package com.example.clinic.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.clinic.model.ConsultationRecord;
+
+public interface ConsultationRecordRepository extends JpaRepository<ConsultationRecord, Long> {
+}
@@ -3,10 +3,16 @@ package com.example.clinic.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import com.example.clinic.dto.CountByKey;
 import com.example.clinic.model.Doctor;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     List<Doctor> findBySpecialty(String specialty);
     java.util.Optional<Doctor> findByUsername(String username);
+
+    @Query("select new com.example.clinic.dto.CountByKey(d.specialty, count(d)) from Doctor d "
+            + "group by d.specialty order by count(d) desc")
+    List<CountByKey> countBySpecialty();
 }
@@ -0,0 +1,11 @@
+package com.example.clinic.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.clinic.model.ScheduleException;
+
+public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, Long> {
+    List<ScheduleException> findByDoctorIdOrderByStartDate(Long doctorId);
+}
@@ -0,0 +1,18 @@
+package com.example.clinic.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.clinic.model.ScheduleRule;
+
+public interface ScheduleRuleRepository extends JpaRepository<ScheduleRule, Long> {
+    List<ScheduleRule> findByDoctorId(Long doctorId);
+
+    @Modifying
+    @Query("delete from ScheduleRule r where r.doctorId = :doctorId")
+    int deleteByDoctorId(@Param("doctorId") Long doctorId);
+}
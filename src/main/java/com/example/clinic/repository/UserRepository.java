@@ -1,12 +1,18 @@
 package com.example.clinic.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.clinic.model.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    // Loads every user with roles in one query instead of one roles query per user
+    @Query("select distinct u from User u left join fetch u.roles order by u.id")
+    List<User> findAllWithRoles();
 }
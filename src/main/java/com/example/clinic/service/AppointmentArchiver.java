@@ -0,0 +1,104 @@
+package com.example.clinic.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.clinic.model.AppointmentTombstone;
+import com.example.clinic.repository.AppointmentHistoryRepository;
+import com.example.clinic.repository.AppointmentTombstoneRepository;
+
+/**
+ * Background job that moves finished appointments older than the cutoff from the live appointment
+ * table into appointment_history, one batch per transaction, so the working set that dashboards and
+ * booking queries scan stays small no matter how much history accumulates. Each archived row leaves a
+ * tombstone in the same transaction, like any other delete, so change-feed clients drop it too.
+ */
+@Component
+public class AppointmentArchiver {
+
+    private static final List<String> ARCHIVABLE_STATUSES = List.of("Completed", "Cancelled");
+
+    private final AppointmentHistoryRepository historyRepository;
+    private final AppointmentTombstoneRepository tombstoneRepository;
+    private final AppointmentChangeClock changeClock;
+    private final AppointmentSlotIndex slotIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int cutoffDays;
+    private final int batchSize;
+
+    public AppointmentArchiver(AppointmentHistoryRepository historyRepository,
+                               AppointmentTombstoneRepository tombstoneRepository, AppointmentChangeClock changeClock,
+                               AppointmentSlotIndex slotIndex, PlatformTransactionManager transactionManager,
+                               @Value("${clinic.archive.cutoff-days:30}") int cutoffDays,
+                               @Value("${clinic.archive.batch-size:500}") int batchSize) {
+        this.historyRepository = historyRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.changeClock = changeClock;
+        this.slotIndex = slotIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cutoffDays = cutoffDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${clinic.archive.initial-delay-ms:60000}",
+               fixedDelayString = "${clinic.archive.interval-ms:3600000}")
+    public void archive() {
+        LocalDate cutoff = LocalDate.now().minusDays(cutoffDays);
+        int total = 0;
+        try {
+            while (true) {
+                List<Long> versions = new ArrayList<>();
+                List<Long> moved;
+                try {
+                    moved = transactionTemplate.execute(status -> archiveBatch(cutoff, versions));
+                } finally {
+                    // committed or rolled back: the feed may move past these versions now
+                    versions.forEach(changeClock::end);
+                }
+                if (moved == null || moved.isEmpty()) {
+                    break;
+                }
+                // only once the batch has committed, as for any other delete
+                moved.forEach(slotIndex::remove);
+                total += moved.size();
+                if (moved.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Appointment archiving failed after " + total + " rows: " + e.getMessage());
+        }
+        if (total > 0) {
+            System.out.println("Archived " + total + " appointments older than " + cutoff);
+        }
+    }
+
+    // versions collects every change version taken, so the caller can end them whatever happens
+    private List<Long> archiveBatch(LocalDate cutoff, List<Long> versions) {
+        List<AppointmentHistoryRepository.ArchivableRow> rows =
+                historyRepository.findArchivable(ARCHIVABLE_STATUSES, cutoff, PageRequest.of(0, batchSize));
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<AppointmentTombstone> tombstones = new ArrayList<>(rows.size());
+        for (AppointmentHistoryRepository.ArchivableRow row : rows) {
+            // a version per row: the feed pages by version and must never split a tie
+            long version = changeClock.begin();
+            versions.add(version);
+            ids.add(row.getId());
+            tombstones.add(new AppointmentTombstone(row.getId(), row.getDoctorId(), row.getPatientUsername(), version));
+        }
+        if (!ids.isEmpty()) {
+            historyRepository.copyToHistory(ids);
+            historyRepository.deleteLive(ids);
+            tombstoneRepository.saveAll(tombstones);
+        }
+        return ids;
+    }
+}
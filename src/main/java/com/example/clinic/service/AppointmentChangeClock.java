@@ -0,0 +1,179 @@
+package com.example.clinic.service;
+
+import java.util.ArrayDeque;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.AppointmentTombstoneRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Hands out appointment change versions and tracks which of them are still uncommitted. Versions come
+ * from the appointment_change_seq database sequence, so every instance sharing the database stamps from
+ * one counter. A version is taken before the write and completed after its transaction ends; the
+ * sequence is called outside the lock, so writers only ever wait on each other for bookkeeping.
+ * {@link #watermark()} is the highest version below which every write has finished, so a change-feed
+ * reader that advances its cursor only up to the watermark can never skip a row committed late by a
+ * slower transaction.
+ *
+ * A single instance knows all its writes and tracks them exactly. Behind several instances (the relay
+ * broker) it cannot see the others' open transactions, so the watermark also stays below every version
+ * issued within the last clinic.changes.commit-lag-ms: a sequence value ("fence") is sampled periodically,
+ * and only fences older than the lag bound the feed. The lag must exceed the longest transaction that
+ * writes an appointment. Until the first fence is that old (right after startup) the watermark is 0 and
+ * clients simply sync again later.
+ */
+@Component
+public class AppointmentChangeClock {
+
+    static final String SEQUENCE = "appointment_change_seq";
+    private static final long RELAY_DEFAULT_LAG_MILLIS = 5000;
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentTombstoneRepository tombstoneRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final long commitLagMillis;
+
+    private long last;
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    // begin() calls still waiting for their sequence value, keyed by the value of last when they started:
+    // what they get is above it, so the watermark may not pass it until they are in inFlight
+    private final TreeMap<Long, Integer> pending = new TreeMap<>();
+    // {taken at (ms), sequence value} samples, oldest first; guarded by itself, only used with a commit lag
+    private final ArrayDeque<long[]> fences = new ArrayDeque<>();
+
+    public AppointmentChangeClock(AppointmentRepository appointmentRepository,
+                                  AppointmentTombstoneRepository tombstoneRepository, JdbcTemplate jdbcTemplate,
+                                  EntityManagerFactory entityManagerFactory,
+                                  @Value("${clinic.changes.commit-lag-ms:-1}") long commitLagMillis,
+                                  @Value("${clinic.websocket.broker:simple}") String brokerMode) {
+        this.appointmentRepository = appointmentRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceSupport().getSequenceNextValString(SEQUENCE);
+        // unset: exact local tracking for the single-instance broker, a lag once instances share the feed
+        if (commitLagMillis < 0) {
+            commitLagMillis = "relay".equalsIgnoreCase(brokerMode) ? RELAY_DEFAULT_LAG_MILLIS : 0;
+        }
+        this.commitLagMillis = commitLagMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        synchronized (this) {
+            last = Math.max(appointmentRepository.maxChangeVersion(), tombstoneRepository.maxChangeVersion());
+        }
+        if (commitLagMillis > 0) {
+            System.out.println("Appointment change feed trails writes by " + commitLagMillis + " ms (several instances)");
+            sampleFence();
+        }
+    }
+
+    public long begin() {
+        long floor;
+        synchronized (this) {
+            floor = last;
+            pending.merge(floor, 1, Integer::sum);
+        }
+        long version;
+        try {
+            version = nextValue();
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                unpend(floor);
+            }
+            throw ex;
+        }
+        synchronized (this) {
+            // one step, so the version is never covered by neither pending nor inFlight
+            unpend(floor);
+            inFlight.add(version);
+            last = Math.max(last, version);
+        }
+        return version;
+    }
+
+    public synchronized void end(long version) {
+        inFlight.remove(version);
+    }
+
+    public long watermark() {
+        long local;
+        synchronized (this) {
+            if (commitLagMillis == 0) {
+                return Math.min(last, openBound());
+            }
+            // versions of other instances are bounded by the fence below, not by what this one handed out
+            local = openBound();
+        }
+        return Math.min(local, settledVersion());
+    }
+
+    // caller holds the lock: highest version below which nothing this instance began is still open
+    private long openBound() {
+        long bound = inFlight.isEmpty() ? Long.MAX_VALUE : inFlight.first() - 1;
+        return pending.isEmpty() ? bound : Math.min(bound, pending.firstKey());
+    }
+
+    // caller holds the lock
+    private void unpend(long floor) {
+        pending.computeIfPresent(floor, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Keeps the fence samples current; a no-op for a single instance.
+     */
+    @Scheduled(initialDelayString = "${clinic.changes.fence-interval-ms:500}",
+            fixedDelayString = "${clinic.changes.fence-interval-ms:500}")
+    public void sampleFence() {
+        if (commitLagMillis == 0) {
+            return;
+        }
+        long value = nextValue();
+        long now = System.currentTimeMillis();
+        synchronized (fences) {
+            fences.addLast(new long[] {now, value});
+            // keep only the newest sample that is already old enough, plus the younger ones
+            long[] settled = newestSettled(now);
+            while (settled != null && fences.getFirst() != settled) {
+                fences.removeFirst();
+            }
+        }
+    }
+
+    // every version below a fence taken commitLagMillis ago belongs to a transaction that has ended;
+    // called on request threads, so never waits: 0 until the first sample has aged
+    private long settledVersion() {
+        synchronized (fences) {
+            long[] settled = newestSettled(System.currentTimeMillis());
+            return settled != null ? settled[1] - 1 : 0;
+        }
+    }
+
+    // caller holds the fences lock
+    private long[] newestSettled(long now) {
+        long[] settled = null;
+        for (long[] fence : fences) {
+            if (fence[0] > now - commitLagMillis) {
+                break;
+            }
+            settled = fence;
+        }
+        return settled;
+    }
+
+    private long nextValue() {
+        return jdbcTemplate.queryForObject(nextValueSql, Long.class);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.clinic.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.clinic.dto.AppointmentChange;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends appointment changes only to the sessions they concern: the booking patient's user queue, the
+ * doctor's topic and the admin topic. Subscriptions to these destinations are authorised by
+ * {@link com.example.clinic.config.StompAuthorizationInterceptor}.
+ *
+ * Publishing is off the request thread: {@link #publish} only queues the event, and a dedicated thread
+ * drains the queue in batches. Events for the same appointment that arrive within the coalescing window
+ * are merged, so only the latest state is sent. The queue is bounded; when it is full, events for
+ * appointments not already queued are dropped and counted.
+ *
+ * Other transports (the SSE stream) register a listener and receive the same coalesced events on the
+ * publishing thread, so listeners must hand them off without blocking.
+ */
+@Component
+public class AppointmentEventPublisher {
+
+    // subscribed as /user/queue/appointments; the broker resolves it to the user's own sessions
+    public static final String USER_QUEUE = "/queue/appointments";
+    public static final String ADMIN_TOPIC = "/topic/admin/appointments";
+    public static final String DOCTOR_TOPIC_PREFIX = "/topic/doctors/";
+    public static final String DOCTOR_TOPIC_SUFFIX = "/appointments";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long coalesceMillis;
+    private final int batchSize;
+    private final int capacity;
+
+    // pending events by appointment id, oldest first; guarded by itself
+    private final LinkedHashMap<Long, AppointmentChange> pending = new LinkedHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<Consumer<AppointmentChange>> listeners = new CopyOnWriteArrayList<>();
+
+    private final Thread worker = new Thread(this::drainLoop, "appointment-events");
+    private volatile boolean running = true;
+
+    public AppointmentEventPublisher(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+                                     @Value("${clinic.events.coalesce-ms:50}") long coalesceMillis,
+                                     @Value("${clinic.events.batch-size:200}") int batchSize,
+                                     @Value("${clinic.events.queue-capacity:10000}") int capacity) {
+        this.messagingTemplate = messagingTemplate;
+        this.coalesceMillis = coalesceMillis;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+
+        Gauge.builder("clinic.events.queue.depth", this, AppointmentEventPublisher::depth)
+                .description("Appointment events waiting to be published").register(meterRegistry);
+        FunctionCounter.builder("clinic.events.dropped", dropped, AtomicLong::get)
+                .description("Appointment events dropped because the queue was full").register(meterRegistry);
+        FunctionCounter.builder("clinic.events.coalesced", coalesced, AtomicLong::get)
+                .description("Appointment events merged into a pending event for the same appointment").register(meterRegistry);
+        FunctionCounter.builder("clinic.events.sent", sent, AtomicLong::get)
+                .description("Appointment events published").register(meterRegistry);
+        FunctionCounter.builder("clinic.events.failed", failed, AtomicLong::get)
+                .description("Appointment events that could not be published").register(meterRegistry);
+    }
+
+    public static String doctorTopic(Long doctorId) {
+        return DOCTOR_TOPIC_PREFIX + doctorId + DOCTOR_TOPIC_SUFFIX;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Called with every event after it has been sent to the STOMP destinations. Must not block.
+     */
+    public void addListener(Consumer<AppointmentChange> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Queues the event and returns immediately. Call once the change is committed.
+     */
+    public void publish(AppointmentChange event) {
+        synchronized (pending) {
+            AppointmentChange previous = pending.get(event.id());
+            if (previous == null && pending.size() >= capacity) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (previous != null && previous.changeVersion() > event.changeVersion()) {
+                // an older change committed late; the queued one already carries newer state
+                coalesced.incrementAndGet();
+                return;
+            }
+            // replacing keeps the entry's position, so the merged event goes out when the first one would have
+            pending.put(event.id(), event);
+            if (previous != null) {
+                coalesced.incrementAndGet();
+            } else if (pending.size() == 1) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    public int depth() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private void drainLoop() {
+        List<AppointmentChange> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                synchronized (pending) {
+                    while (pending.isEmpty() && running) {
+                        pending.wait();
+                    }
+                }
+                // give further updates of the same appointments a moment to merge
+                Thread.sleep(coalesceMillis);
+                synchronized (pending) {
+                    Iterator<AppointmentChange> it = pending.values().iterator();
+                    while (it.hasNext() && batch.size() < batchSize) {
+                        batch.add(it.next());
+                        it.remove();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                return;
+            }
+            for (AppointmentChange event : batch) {
+                send(event);
+                notifyListeners(event);
+            }
+            batch.clear();
+        }
+    }
+
+    private void send(AppointmentChange event) {
+        try {
+            if (event.patientUsername() != null) {
+                messagingTemplate.convertAndSendToUser(event.patientUsername(), USER_QUEUE, event);
+            }
+            if (event.doctorId() != null) {
+                messagingTemplate.convertAndSend(doctorTopic(event.doctorId()), event);
+            }
+            messagingTemplate.convertAndSend(ADMIN_TOPIC, event);
+            sent.incrementAndGet();
+        } catch (Exception ex) {
+            failed.incrementAndGet();
+            System.err.println("Could not publish appointment " + event.id() + ": " + ex.getMessage());
+        }
+    }
+
+    private void notifyListeners(AppointmentChange event) {
+        for (Consumer<AppointmentChange> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception ex) {
+                System.err.println("Appointment event listener failed for " + event.id() + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.clinic.service;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.clinic.dto.HistoryPage;
+import com.example.clinic.dto.HistorySummary;
+import com.example.clinic.repository.AppointmentHistoryRepository;
+
+@Service
+public class AppointmentHistoryService {
+
+    private final AppointmentHistoryRepository historyRepository;
+
+    public AppointmentHistoryService(AppointmentHistoryRepository historyRepository) {
+        this.historyRepository = historyRepository;
+    }
+
+    public HistoryPage findPage(String patientUsername, Long doctorId, Long beforeId, int limit) {
+        long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+        // one extra row tells us whether there is another page
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<HistorySummary> rows;
+        if (patientUsername != null) {
+            rows = historyRepository.findSummariesByPatientBefore(patientUsername, before, page);
+        } else if (doctorId != null) {
+            rows = historyRepository.findSummariesByDoctorBefore(doctorId, before, page);
+        } else {
+            rows = historyRepository.findSummariesBefore(before, page);
+        }
+        if (rows.size() <= limit) {
+            return new HistoryPage(rows, null);
+        }
+        List<HistorySummary> items = rows.subList(0, limit);
+        return new HistoryPage(items, items.get(limit - 1).id());
+    }
+}
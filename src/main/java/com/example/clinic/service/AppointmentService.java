@@ -1,86 +1,336 @@
 package com.example.clinic.service;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.Optional;
 
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.hibernate.exception.ConstraintViolationException;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.example.clinic.dto.AppointmentChange;
+import com.example.clinic.dto.AppointmentChanges;
+import com.example.clinic.dto.AppointmentCursor;
+import com.example.clinic.dto.AppointmentFilter;
+import com.example.clinic.dto.AppointmentPage;
+import com.example.clinic.dto.AppointmentRow;
+import com.example.clinic.dto.AppointmentSummary;
+import com.example.clinic.dto.PatientAppointmentRow;
 import com.example.clinic.model.Appointment;
+import com.example.clinic.model.AppointmentTombstone;
+import com.example.clinic.model.ConsultationRecord;
 import com.example.clinic.model.Doctor;
 import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.AppointmentTombstoneRepository;
+import com.example.clinic.repository.ConsultationRecordRepository;
 
 @Service
 public class AppointmentService {
 
+    // unique (doctor_id, date, slot_minute), created by V14; cancelled rows leave slot_minute empty
+    static final String SLOT_CONSTRAINT = "uk_appointment_doctor_slot";
+
     private final AppointmentRepository appointmentRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final AppointmentEventPublisher eventPublisher;
+    private final AppointmentSlotIndex slotIndex;
+    private final ConsultationRecordRepository consultationRecordRepository;
+    private final PrescriptionImageCache prescriptionCache;
+    private final PrescriptionRenderQueue prescriptionRenderQueue;
+    private final AppointmentTombstoneRepository tombstoneRepository;
+    private final AppointmentChangeClock changeClock;
 
-    public AppointmentService(AppointmentRepository appointmentRepository, SimpMessagingTemplate messagingTemplate) {
+    public AppointmentService(AppointmentRepository appointmentRepository, AppointmentEventPublisher eventPublisher,
+            AppointmentSlotIndex slotIndex, ConsultationRecordRepository consultationRecordRepository,
+            PrescriptionImageCache prescriptionCache, PrescriptionRenderQueue prescriptionRenderQueue,
+            AppointmentTombstoneRepository tombstoneRepository, AppointmentChangeClock changeClock) {
         this.appointmentRepository = appointmentRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.eventPublisher = eventPublisher;
+        this.slotIndex = slotIndex;
+        this.consultationRecordRepository = consultationRecordRepository;
+        this.prescriptionCache = prescriptionCache;
+        this.prescriptionRenderQueue = prescriptionRenderQueue;
+        this.tombstoneRepository = tombstoneRepository;
+        this.changeClock = changeClock;
     }
 
     public Appointment save(Appointment appointment) {
-        Appointment saved = appointmentRepository.save(appointment);
-        // publish a lightweight event to WebSocket subscribers
+        long version = changeClock.begin();
+        Appointment saved;
         try {
-            messagingTemplate.convertAndSend("/topic/appointments", Map.of(
-                    "id", saved.getId(),
-                    "doctor", saved.getDoctor() == null ? null : saved.getDoctor().getName(),
-                    "date", saved.getDate(),
-                    "time", saved.getTime(),
-                    "confirmed", saved.isConfirmed()
-            ));
-        } catch (Exception ex) {
-            // best-effort publish; don't fail the save if messaging is not available
+            appointment.setChangeVersion(version);
+            saved = appointmentRepository.save(appointment);
+        } finally {
+            afterCompletion(() -> changeClock.end(version));
         }
+        // snapshot now, while associations are loadable; the index and subscribers only see it once committed
+        AppointmentChange event = AppointmentChange.of(saved);
+        Short slotMinute = saved.getSlotMinute();
+        afterCommit(() -> {
+            slotIndex.record(event.id(), event.doctorId(), event.date(), slotMinute);
+            eventPublisher.publish(event);
+        });
         return saved;
     }
 
+    /**
+     * Books a new appointment only if its slot is still free. The slot is claimed in the in-memory
+     * index first so concurrent requests for the same doctor/date/time have a single winner, and the
+     * unique constraint on (doctor_id, date, slot_minute) catches anything the index could not see.
+     * Returns empty when the slot is already taken; any other failure frees the claimed slot again and
+     * is rethrown.
+     */
+    public Optional<Appointment> reserve(Appointment appointment) {
+        Long doctorId = appointment.getDoctor().getId();
+        LocalDate date = appointment.getDate();
+        Short minute = appointment.getStartMinute();
+        if (minute == null || !slotIndex.tryReserve(doctorId, date, minute)) {
+            return Optional.empty();
+        }
+        try {
+            Appointment saved = save(appointment);
+            // inside a caller's transaction the insert can still roll back after this returns
+            afterRollback(() -> slotIndex.release(doctorId, date, minute));
+            return Optional.of(saved);
+        } catch (DataIntegrityViolationException ex) {
+            if (isSlotConflict(ex)) {
+                // another writer already holds this slot in the database; leave it marked as occupied
+                return Optional.empty();
+            }
+            // NOT NULL, foreign key etc.: the slot is still free
+            slotIndex.release(doctorId, date, minute);
+            throw ex;
+        } catch (RuntimeException ex) {
+            slotIndex.release(doctorId, date, minute);
+            throw ex;
+        }
+    }
+
+    /**
+     * True when the violation is the unique slot constraint rather than any other integrity failure.
+     * Hibernate reports the name as the database does ("uk_appointment_doctor_slot" on PostgreSQL,
+     * "PUBLIC.UK_APPOINTMENT_DOCTOR_SLOT_INDEX_x ON ..." on H2), so it is matched case-insensitively.
+     */
+    static boolean isSlotConflict(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            String text = null;
+            if (cause instanceof ConstraintViolationException violation) {
+                text = violation.getConstraintName();
+            } else if (cause instanceof SQLException sql) {
+                text = sql.getMessage();
+            }
+            if (text != null && text.toLowerCase(Locale.ROOT).contains(SLOT_CONSTRAINT)) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Conflict check against the in-memory slot index; does not query the database once the day is loaded.
+     */
+    public boolean isSlotTaken(Long doctorId, LocalDate date, int minute) {
+        return slotIndex.isOccupied(doctorId, date, minute);
+    }
+
     public List<Appointment> findByDoctorAndDate(Doctor doctor, LocalDate date) {
         return appointmentRepository.findByDoctorAndDate(doctor, date);
     }
 
+    /**
+     * Keyset-paginated listing; cost depends on the page size, not on how far into the table the page is.
+     */
+    public AppointmentPage findPage(AppointmentFilter filter, AppointmentCursor after, int limit) {
+        // fetch one extra row to learn whether another page exists
+        List<AppointmentSummary> rows = appointmentRepository.findSummaries(filter, after, limit + 1);
+        if (rows.size() <= limit) {
+            return new AppointmentPage(rows, null);
+        }
+        List<AppointmentSummary> items = rows.subList(0, limit);
+        return new AppointmentPage(items, AppointmentCursor.after(items.get(limit - 1)).encode());
+    }
+
     public List<Appointment> findAll() {
         return appointmentRepository.findAll();
     }
 
-    public List<Appointment> getAppointmentsByPatient(String patientUsername) {
-        // Get all appointments for this patient - try both methods
-        List<Appointment> appointments = appointmentRepository.findByPatientName(patientUsername);
-        
-        // If empty, the repository might be using patientName field differently
-        // So get all and filter manually
-        if (appointments.isEmpty()) {
-            appointments = appointmentRepository.findAll().stream()
-                    .filter(apt -> apt.getPatient() != null && 
-                                  patientUsername.equals(apt.getPatient().getUsername()))
-                    .toList();
-        }
-        
-        // Filter out past appointments - only show today and future appointments
-        LocalDate today = LocalDate.now();
-        return appointments.stream()
-                .filter(appointment -> !appointment.getDate().isBefore(today))
-                .toList();
+    // Today's and future appointments only; both the patient and the date filter run in SQL
+    public List<PatientAppointmentRow> getAppointmentsByPatient(String patientUsername) {
+        return appointmentRepository.findRowsByPatientUsernameFrom(patientUsername, LocalDate.now());
     }
 
-    public List<Appointment> getAppointmentsByDoctor(String doctorUsername) {
-        List<Appointment> allAppointments = appointmentRepository.findByDoctorUsername(doctorUsername);
-        // Filter out past appointments - only show today and future appointments
-        LocalDate today = LocalDate.now();
-        return allAppointments.stream()
-                .filter(appointment -> !appointment.getDate().isBefore(today))
-                .toList();
+    public List<AppointmentRow> getAppointmentsByDoctor(String doctorUsername) {
+        return appointmentRepository.findRowsByDoctorUsernameFrom(doctorUsername, LocalDate.now());
+    }
+
+    public List<AppointmentRow> findAllRows() {
+        return appointmentRepository.findAllRows();
     }
 
     public java.util.Optional<Appointment> findById(Long id) {
         return appointmentRepository.findById(id);
     }
 
+    /**
+     * Clinical text of a consultation; only loaded when a single consultation is opened.
+     */
+    public Optional<ConsultationRecord> findConsultation(Long appointmentId) {
+        return consultationRecordRepository.findById(appointmentId);
+    }
+
+    /**
+     * Marks the appointment completed and stores the consultation outcome alongside it in one transaction.
+     */
+    @Transactional
+    public ConsultationRecord completeConsultation(Appointment appointment, String diagnosis, String prescription,
+            String doctorNotes) {
+        appointment.setConsultationEndTime(LocalDateTime.now());
+        appointment.setStatus("Completed");
+        save(appointment);
+
+        ConsultationRecord record = consultationRecordRepository.findById(appointment.getId())
+                .orElseGet(() -> new ConsultationRecord(appointment.getId()));
+        record.setDiagnosis(diagnosis);
+        record.setPrescription(prescription);
+        record.setDoctorNotes(doctorNotes);
+        record.setRecordedAt(appointment.getConsultationEndTime());
+        ConsultationRecord saved = consultationRecordRepository.save(record);
+        Long id = appointment.getId();
+        prescriptionCache.invalidate(id);
+        afterCommit(() -> {
+            prescriptionCache.invalidate(id);
+            // render now, off the request thread, so the patient's download is served from disk
+            prescriptionRenderQueue.enqueue(id);
+        });
+        return saved;
+    }
+
+    @Transactional
     public void deleteById(Long id) {
-        appointmentRepository.deleteById(id);
+        appointmentRepository.findById(id).ifPresent(this::remove);
+    }
+
+    @Transactional
+    public void delete(Appointment appointment) {
+        remove(appointment);
+    }
+
+    // deletes the row and leaves a tombstone in the same transaction, so change-feed clients drop it too
+    private void remove(Appointment appointment) {
+        Long id = appointment.getId();
+        Long doctorId = appointment.getDoctor() == null ? null : appointment.getDoctor().getId();
+        String patientUsername = appointment.getPatient() == null ? null : appointment.getPatient().getUsername();
+        long version = changeClock.begin();
+        try {
+            appointmentRepository.delete(appointment);
+            tombstoneRepository.save(new AppointmentTombstone(id, doctorId, patientUsername, version));
+        } finally {
+            afterCompletion(() -> changeClock.end(version));
+        }
+        AppointmentChange event = AppointmentChange.deleted(id, version, doctorId, patientUsername);
+        afterCommit(() -> {
+            slotIndex.remove(id);
+            eventPublisher.publish(event);
+        });
+    }
+
+    /**
+     * Version a freshly rendered page is current as of. Read it before loading the page's rows, so a
+     * change racing with the render is fetched again rather than missed.
+     */
+    public long currentChangeVersion() {
+        return changeClock.watermark();
+    }
+
+    /**
+     * Appointments written or deleted after {@code since}, oldest first, at most {@code limit} entries.
+     * Stops at the clock's watermark so a still-open transaction can't be skipped. A cursor older than the
+     * tombstone sweep's horizon gets an empty page with {@code resync} set instead.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentChanges findChanges(long since, Long doctorId, String patientUsername, int limit) {
+        long upTo = changeClock.watermark();
+        if (upTo <= since) {
+            // nothing settled past the client's cursor yet (e.g. just after a restart behind the relay)
+            return new AppointmentChanges(since, List.of(), false);
+        }
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<AppointmentChange> written = appointmentRepository.findChanges(since, upTo, doctorId, patientUsername, page);
+        List<AppointmentTombstone> removed = tombstoneRepository.findChanges(since, upTo, doctorId, patientUsername, page);
+
+        // both lists are ordered by version; when either was cut off, end the page at the lower cut
+        long end = upTo;
+        if (written.size() > limit) end = Math.min(end, written.get(limit - 1).changeVersion());
+        if (removed.size() > limit) end = Math.min(end, removed.get(limit - 1).getChangeVersion());
+        boolean hasMore = end < upTo;
+
+        List<AppointmentChange> changes = new ArrayList<>(written.size() + removed.size());
+        for (AppointmentChange change : written) {
+            if (change.changeVersion() <= end) changes.add(change);
+        }
+        for (AppointmentTombstone tombstone : removed) {
+            if (tombstone.getChangeVersion() <= end) changes.add(AppointmentChange.deleted(tombstone));
+        }
+        changes.sort(Comparator.comparingLong(AppointmentChange::changeVersion));
+        // read last: a sweep committed after this read also came after the tombstones above were read
+        if (since < tombstoneRepository.sweptThrough()) {
+            return new AppointmentChanges(upTo, List.of(), false, true);
+        }
+        return new AppointmentChanges(end, changes, hasMore);
+    }
+
+    // run once the surrounding transaction (if any) has finished, committed or not
+    private void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // run only if the surrounding transaction rolls back; nothing to do without one
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    // run once the surrounding transaction (if any) has committed, so a rollback can't leave the index
+    // ahead of the DB
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,293 @@
+package com.example.clinic.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.clinic.dto.AppointmentChange;
+import com.example.clinic.model.AppointmentTombstone;
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.AppointmentTombstoneRepository;
+
+/**
+ * In-memory index of occupied appointment slots, one bitset over minute-of-day per (doctor, date).
+ * Days are loaded lazily from the database the first time they are queried and are then kept
+ * up to date by {@link AppointmentService} on every save and delete, so conflict checks never
+ * need to hit the database again. Cancelled appointments do not occupy their slot. Days before
+ * today are swept out periodically, since nothing books into the past; a later query for such a
+ * day simply reloads it.
+ *
+ * Behind several instances (the relay broker) other instances write too, so the index also follows
+ * the change feed: every committed write or delete past its cursor drops the affected day, which
+ * the next query reloads.
+ */
+@Component
+public class AppointmentSlotIndex {
+
+    private static final int WORDS = (SlotTimes.MINUTES_PER_DAY + 63) / 64;
+
+    private record DayKey(Long doctorId, LocalDate date) {}
+
+    private record Placement(DayKey day, int minute) {}
+
+    private static final int CHANGE_PAGE = 500;
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentTombstoneRepository tombstoneRepository;
+    private final AppointmentChangeClock changeClock;
+    private final boolean followChanges;
+    // change version up to which other writers are reflected; -1 until the feed has a watermark
+    private long changesSeen = -1;
+
+    // occupied minutes per doctor-day
+    private final ConcurrentHashMap<DayKey, AtomicLongArray> days = new ConcurrentHashMap<>();
+
+    // where each indexed appointment currently sits, so moves and deletes can be reflected
+    private final ConcurrentHashMap<Long, Placement> placements = new ConcurrentHashMap<>();
+
+    public AppointmentSlotIndex(AppointmentRepository appointmentRepository,
+                                AppointmentTombstoneRepository tombstoneRepository, AppointmentChangeClock changeClock,
+                                @Value("${clinic.slot-index.follow-changes:auto}") String followChanges,
+                                @Value("${clinic.websocket.broker:simple}") String brokerMode) {
+        this.appointmentRepository = appointmentRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.changeClock = changeClock;
+        // auto: a single instance sees all its writes; with the relay, others write to the same database
+        this.followChanges = "auto".equalsIgnoreCase(followChanges)
+                ? "relay".equalsIgnoreCase(brokerMode) : Boolean.parseBoolean(followChanges);
+    }
+
+    public boolean isOccupied(Long doctorId, LocalDate date, int minute) {
+        if (doctorId == null || date == null || !SlotTimes.isValid(minute)) {
+            return false;
+        }
+        long word = day(new DayKey(doctorId, date)).get(minute >>> 6);
+        return (word & (1L << (minute & 63))) != 0;
+    }
+
+    /**
+     * Atomically claims a free slot. Exactly one of any number of concurrent callers for the same
+     * doctor, date and minute gets {@code true}; callers for other doctors or days never contend.
+     */
+    public boolean tryReserve(Long doctorId, LocalDate date, int minute) {
+        if (doctorId == null || date == null || !SlotTimes.isValid(minute)) {
+            return false;
+        }
+        AtomicLongArray bits = day(new DayKey(doctorId, date));
+        int index = minute >>> 6;
+        long mask = 1L << (minute & 63);
+        while (true) {
+            long current = bits.get(index);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (bits.compareAndSet(index, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a slot: one claimed with {@link #tryReserve} whose appointment was never committed, or
+     * one its appointment no longer holds.
+     */
+    public void release(Long doctorId, LocalDate date, int minute) {
+        AtomicLongArray bits = days.get(new DayKey(doctorId, date));
+        if (bits != null) {
+            long mask = ~(1L << (minute & 63));
+            bits.accumulateAndGet(minute >>> 6, mask, (current, m) -> current & m);
+        }
+    }
+
+    /**
+     * Reflects a committed appointment in the index. Only days that are already loaded are touched;
+     * anything else will pick the appointment up when the day is first queried. An appointment that
+     * no longer holds a slot (cancelled) frees the one it had.
+     */
+    public void record(Long appointmentId, Long doctorId, LocalDate date, Short slotMinute) {
+        Placement placement = placementOf(appointmentId, doctorId, date, slotMinute);
+        if (placement == null) {
+            Placement previous = appointmentId == null ? null : placements.remove(appointmentId);
+            if (previous != null) {
+                // the unique slot index allows no other holder of this bit
+                release(previous.day().doctorId(), previous.day().date(), previous.minute());
+            }
+            return;
+        }
+        Placement previous = placements.put(appointmentId, placement);
+        if (previous != null && !previous.equals(placement)) {
+            // the appointment moved; reload the old day rather than clearing a bit another row may share
+            days.remove(previous.day());
+        }
+        days.computeIfPresent(placement.day(), (key, bits) -> {
+            set(bits, placement.minute());
+            return bits;
+        });
+    }
+
+    public void remove(Long appointmentId) {
+        if (appointmentId == null) {
+            return;
+        }
+        Placement previous = placements.remove(appointmentId);
+        if (previous != null) {
+            days.remove(previous.day());
+        }
+    }
+
+    /**
+     * Loads every day in [from, to] for the given doctors that is not already indexed, using a single
+     * query. Used by availability searches that scan many doctor-days at once.
+     */
+    public void warm(Collection<Long> doctorIds, LocalDate from, LocalDate to) {
+        List<Long> missing = new ArrayList<>();
+        for (Long doctorId : doctorIds) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                if (!days.containsKey(new DayKey(doctorId, date))) {
+                    missing.add(doctorId);
+                    break;
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<DayKey, List<AppointmentRepository.SlotRow>> rowsByDay = new HashMap<>();
+        for (AppointmentRepository.SlotRow row : appointmentRepository.findSlotsByDoctorIdsAndDateRange(missing, from, to)) {
+            rowsByDay.computeIfAbsent(new DayKey(row.getDoctorId(), row.getDate()), k -> new ArrayList<>()).add(row);
+        }
+        for (Long doctorId : missing) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                DayKey key = new DayKey(doctorId, date);
+                // a day loaded concurrently by another caller wins; it is at least as fresh as ours
+                days.computeIfAbsent(key, k -> build(k, rowsByDay.getOrDefault(k, List.of())));
+            }
+        }
+    }
+
+    /**
+     * Drops past days and the placements pointing at them, so the index only holds today onwards.
+     */
+    @Scheduled(initialDelayString = "${clinic.slot-index.sweep-interval-ms:3600000}",
+               fixedDelayString = "${clinic.slot-index.sweep-interval-ms:3600000}")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(key -> key.date().isBefore(today));
+        placements.values().removeIf(placement -> placement.day().date().isBefore(today));
+    }
+
+    /**
+     * Drops the days other writers changed since the last call, as far as the change feed has settled;
+     * a no-op for a single instance.
+     */
+    @Scheduled(fixedDelayString = "${clinic.slot-index.refresh-ms:1000}")
+    public synchronized void followChanges() {
+        if (!followChanges) {
+            return;
+        }
+        long upTo = changeClock.watermark();
+        if (changesSeen < 0) {
+            if (upTo > 0) {
+                // from here on every change is followed; whatever is older is already in the database
+                days.clear();
+                placements.clear();
+                changesSeen = upTo;
+            } else {
+                // the feed is not usable yet (right after startup behind the relay): keep nothing
+                days.clear();
+                placements.clear();
+            }
+            return;
+        }
+        if (upTo <= changesSeen) {
+            return;
+        }
+        for (long from = changesSeen; ; ) {
+            List<AppointmentChange> changes = appointmentRepository.findChanges(from, upTo, null, null,
+                    PageRequest.of(0, CHANGE_PAGE));
+            for (AppointmentChange change : changes) {
+                forget(change.id());
+                if (change.doctorId() != null && change.date() != null) {
+                    days.remove(new DayKey(change.doctorId(), change.date()));
+                }
+            }
+            if (changes.size() < CHANGE_PAGE) {
+                break;
+            }
+            from = changes.get(changes.size() - 1).changeVersion();
+        }
+        for (long from = changesSeen; ; ) {
+            List<AppointmentTombstone> removed = tombstoneRepository.findChanges(from, upTo, null, null,
+                    PageRequest.of(0, CHANGE_PAGE));
+            for (AppointmentTombstone tombstone : removed) {
+                forget(tombstone.getAppointmentId());
+            }
+            if (removed.size() < CHANGE_PAGE) {
+                break;
+            }
+            from = removed.get(removed.size() - 1).getChangeVersion();
+        }
+        if (changesSeen < tombstoneRepository.sweptThrough()) {
+            // stalled past the tombstone retention: deletions may be missing, so start over
+            days.clear();
+            placements.clear();
+        }
+        changesSeen = upTo;
+    }
+
+    // drops the day the appointment was indexed on, wherever it has moved since
+    private void forget(Long appointmentId) {
+        Placement previous = appointmentId == null ? null : placements.remove(appointmentId);
+        if (previous != null) {
+            days.remove(previous.day());
+        }
+    }
+
+    public int loadedDays() {
+        return days.size();
+    }
+
+    private AtomicLongArray day(DayKey key) {
+        return days.computeIfAbsent(key, this::load);
+    }
+
+    private AtomicLongArray load(DayKey key) {
+        return build(key, appointmentRepository.findSlotsByDoctorIdAndDate(key.doctorId(), key.date()));
+    }
+
+    private AtomicLongArray build(DayKey key, List<AppointmentRepository.SlotRow> rows) {
+        AtomicLongArray bits = new AtomicLongArray(WORDS);
+        for (AppointmentRepository.SlotRow row : rows) {
+            Short minute = row.getSlotMinute();
+            if (minute == null) {
+                continue;
+            }
+            set(bits, minute);
+            placements.put(row.getId(), new Placement(key, minute));
+        }
+        return bits;
+    }
+
+    private static Placement placementOf(Long appointmentId, Long doctorId, LocalDate date, Short slotMinute) {
+        if (appointmentId == null || doctorId == null || date == null || slotMinute == null) {
+            return null;
+        }
+        return new Placement(new DayKey(doctorId, date), slotMinute);
+    }
+
+    private static void set(AtomicLongArray bits, int minute) {
+        long mask = 1L << (minute & 63);
+        bits.accumulateAndGet(minute >>> 6, mask, (current, m) -> current | m);
+    }
+}
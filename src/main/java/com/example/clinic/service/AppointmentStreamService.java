@@ -0,0 +1,371 @@
+package com.example.clinic.service;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.clinic.dto.AppointmentChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Read-only Server-Sent Events feed of appointment changes for status boards of logged-in admins and
+ * doctors, fed from the same coalesced events {@link AppointmentEventPublisher} sends over STOMP.
+ *
+ * Connections are servlet async requests, so an idle client holds no thread. Each client has a small
+ * queue of pending events; a shared pool of a few sender threads drains the queues that have work.
+ * A client whose queue overflows is disconnected and resumes with {@code Last-Event-ID}.
+ *
+ * A send is a blocking servlet write, and nothing can interrupt one stuck on a client that stopped
+ * reading: the sender thread is held until the container's write timeout. A watchdog therefore looks
+ * for writes running past {@code send-time-limit-ms}, drops that client and lends the pool an extra
+ * thread for as long as the stuck write lasts, so the other clients keep being served.
+ *
+ * The last {@code replay-size} events are kept in a ring buffer. Event ids are {@code <stream>-<seq>},
+ * where the stream part changes on every start; a client resuming from an id that is no longer in the
+ * buffer (or from an earlier start) gets a {@code resync} event and should reload from the change feed.
+ */
+@Service
+public class AppointmentStreamService {
+
+    public static final String EVENT_NAME = "appointment";
+    public static final String RESYNC_EVENT_NAME = "resync";
+
+    // distinguishes event ids issued before a restart, whose sequence numbers mean nothing now
+    private final String streamId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final long retryMillis;
+    private final int maxClients;
+    private final int maxQueued;
+    private final long sendTimeLimitNanos;
+
+    // ring buffer of the latest events; guarded by itself, together with subscriber registration
+    private final Entry[] ring;
+    private long nextSeq = 1;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor sender;
+    // subscribers inside emitter.send, whether or not still registered; scanned by the watchdog
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong stalled = new AtomicLong();
+
+    private record Entry(long seq, Long doctorId, String json) {}
+
+    // replayed events do not count against the client queue limit
+    private record Pending(SseEmitter.SseEventBuilder event, boolean counted) {}
+
+    public AppointmentStreamService(AppointmentEventPublisher publisher, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                    @Value("${clinic.events.stream.replay-size:1000}") int replaySize,
+                                    @Value("${clinic.events.stream.timeout-ms:1800000}") long timeoutMillis,
+                                    @Value("${clinic.events.stream.retry-ms:3000}") long retryMillis,
+                                    @Value("${clinic.events.stream.max-clients:1000}") int maxClients,
+                                    @Value("${clinic.events.stream.client-queue:256}") int maxQueued,
+                                    @Value("${clinic.events.stream.sender-threads:2}") int senderThreads,
+                                    @Value("${clinic.events.stream.send-time-limit-ms:5000}") long sendTimeLimitMillis) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.retryMillis = retryMillis;
+        this.maxClients = maxClients;
+        this.maxQueued = maxQueued;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+        this.ring = new Entry[Math.max(1, replaySize)];
+
+        AtomicInteger counter = new AtomicInteger();
+        // unbounded queue, but each client has at most one drain task queued at a time
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "appointment-stream-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.sender = executor;
+
+        Gauge.builder("clinic.events.stream.clients", subscribers, Set::size)
+                .description("Connected appointment SSE clients").register(meterRegistry);
+        FunctionCounter.builder("clinic.events.stream.evicted", evicted, AtomicLong::get)
+                .description("SSE clients disconnected because their queue overflowed").register(meterRegistry);
+        FunctionCounter.builder("clinic.events.stream.stalled", stalled, AtomicLong::get)
+                .description("SSE clients dropped because a write to them stayed stuck").register(meterRegistry);
+
+        publisher.addListener(this::onChange);
+    }
+
+    /**
+     * Opens a stream for one client, or returns null when the client limit is reached. With a
+     * {@code lastEventId} the buffered events after it are sent first. A null {@code doctorId} streams
+     * every doctor's changes; the caller decides who may have that.
+     */
+    public SseEmitter subscribe(Long doctorId, String lastEventId) {
+        if (subscribers.size() >= maxClients) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, doctorId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+
+        // reconnect delay for EventSource, and an early first byte so proxies start streaming
+        subscriber.offer(SseEmitter.event().reconnectTime(retryMillis).comment("appointments " + streamId));
+        synchronized (ring) {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replay(subscriber, lastEventId.trim());
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long after = sequenceOf(lastEventId);
+        long oldest = Math.max(1, nextSeq - ring.length);
+        if (after < oldest - 1 || after >= nextSeq) {
+            // gap we cannot fill from memory: the client reloads from /api/appointments/changes
+            subscriber.offer(SseEmitter.event().name(RESYNC_EVENT_NAME).data("{}"));
+            return;
+        }
+        for (long seq = after + 1; seq < nextSeq; seq++) {
+            Entry entry = ring[(int) (seq % ring.length)];
+            if (subscriber.wants(entry.doctorId())) {
+                subscriber.replay(toEvent(entry));
+            }
+        }
+    }
+
+    // "<stream>-<seq>" from this run -> seq, anything else -> -1 (forces a resync)
+    private long sequenceOf(String eventId) {
+        String prefix = streamId + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Publisher listener: runs on the publishing thread, so only queues.
+     */
+    private void onChange(AppointmentChange change) {
+        String json;
+        try {
+            // serialised once for all clients
+            json = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException ex) {
+            System.err.println("Could not serialise appointment " + change.id() + " for SSE: " + ex.getMessage());
+            return;
+        }
+        synchronized (ring) {
+            Entry entry = new Entry(nextSeq, change.doctorId(), json);
+            ring[(int) (nextSeq % ring.length)] = entry;
+            nextSeq++;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.wants(entry.doctorId())) {
+                    subscriber.offer(toEvent(entry));
+                }
+            }
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toEvent(Entry entry) {
+        return SseEmitter.event().id(streamId + "-" + entry.seq()).name(EVENT_NAME).data(entry.json());
+    }
+
+    /**
+     * Comment lines keep idle connections from being closed by proxies and let clients notice a dead
+     * connection.
+     */
+    @Scheduled(fixedDelayString = "${clinic.events.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    /**
+     * Drops clients whose current write has run past the send time limit and adds a sender thread for
+     * each, given back when that write finally returns.
+     */
+    @Scheduled(fixedDelayString = "${clinic.events.stream.watchdog-ms:1000}")
+    public void watchdog() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : writing) {
+            if (subscriber.markStuck(now)) {
+                stalled.incrementAndGet();
+                subscriber.close();
+            }
+        }
+    }
+
+    private void resizeSender(int delta) {
+        synchronized (sender) {
+            // the maximum may never drop below the core size, so raise it first and lower it last
+            if (delta > 0) {
+                sender.setMaximumPoolSize(sender.getMaximumPoolSize() + delta);
+                sender.setCorePoolSize(sender.getCorePoolSize() + delta);
+            } else {
+                sender.setCorePoolSize(sender.getCorePoolSize() + delta);
+                sender.setMaximumPoolSize(sender.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        sender.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long doctorId;
+        private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        // System.nanoTime() when the current send started, 0 between sends; guarded by this
+        private long writeStartedAt;
+        // set once the watchdog has lent a thread for the current send; guarded by this
+        private boolean stuck;
+
+        Subscriber(SseEmitter emitter, Long doctorId) {
+            this.emitter = emitter;
+            this.doctorId = doctorId;
+        }
+
+        boolean wants(Long eventDoctorId) {
+            return doctorId == null || doctorId.equals(eventDoctorId);
+        }
+
+        // the replay is bounded by the ring buffer, not the client queue
+        void replay(SseEmitter.SseEventBuilder event) {
+            queue.add(new Pending(event, false));
+            schedule();
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                // too far behind: let it reconnect and replay instead of buffering without bound
+                evicted.incrementAndGet();
+                close();
+                return;
+            }
+            queue.add(new Pending(event, true));
+            schedule();
+        }
+
+        /**
+         * Never completes the emitter on the caller's thread: completing waits for a send in progress,
+         * and the caller may be the publishing thread.
+         */
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                queue.clear();
+                schedule();
+            }
+        }
+
+        /**
+         * True, once, when the current send has run past the limit; the pool gets a thread in its place
+         * until {@link #send} returns.
+         */
+        synchronized boolean markStuck(long now) {
+            if (stuck || writeStartedAt == 0 || now - writeStartedAt <= sendTimeLimitNanos) {
+                return false;
+            }
+            stuck = true;
+            resizeSender(1);
+            return true;
+        }
+
+        private boolean hasWork() {
+            return closed.get() ? !completed.get() : !queue.isEmpty();
+        }
+
+        private void schedule() {
+            if (hasWork() && draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Pending pending;
+                while (!closed.get() && (pending = queue.poll()) != null) {
+                    if (pending.counted()) {
+                        queued.decrementAndGet();
+                    }
+                    send(pending.event());
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // client went away or the emitter already completed
+                closed.set(true);
+                subscribers.remove(this);
+            } finally {
+                if (closed.get() && completed.compareAndSet(false, true)) {
+                    emitter.complete();
+                }
+                draining.set(false);
+            }
+            // an offer may have raced with the end of the loop
+            schedule();
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                writeStartedAt = System.nanoTime();
+            }
+            writing.add(this);
+            try {
+                emitter.send(event);
+            } finally {
+                writing.remove(this);
+                synchronized (this) {
+                    writeStartedAt = 0;
+                    if (stuck) {
+                        // the write came back; the thread lent by the watchdog is no longer needed
+                        stuck = false;
+                        resizeSender(-1);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.clinic.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.example.clinic.dto.AvailableSlot;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.repository.DoctorRepository;
+
+/**
+ * Answers "which slots are free" questions from memory: each doctor's offered slots for a day come from
+ * {@link ScheduleService} as a sorted minute array and are checked against {@link AppointmentSlotIndex},
+ * which is kept current as appointments are saved or cancelled.
+ */
+@Service
+public class AvailabilityService {
+
+    public static final int MAX_SEARCH_DAYS = 60;
+    public static final int MAX_RESULTS = 100;
+
+    private record DoctorRef(Long id, String name, String specialty) {}
+
+    private record Candidate(DoctorRef doctor, int minute) {}
+
+    // both lookups are built and published together, so a reader never sees one without the other
+    private record DoctorIndex(Map<Long, DoctorRef> byId, Map<String, List<DoctorRef>> bySpecialty) {}
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentSlotIndex slotIndex;
+    private final ScheduleService scheduleService;
+
+    // rebuilt lazily after any doctor change
+    private volatile DoctorIndex doctors;
+
+    public AvailabilityService(DoctorRepository doctorRepository, AppointmentSlotIndex slotIndex,
+                               ScheduleService scheduleService) {
+        this.doctorRepository = doctorRepository;
+        this.slotIndex = slotIndex;
+        this.scheduleService = scheduleService;
+    }
+
+    /**
+     * Earliest free slots across every doctor of a specialty, starting today. Days are searched in order;
+     * within a day slots are ordered by start time, or by distance from {@code near} when it is given.
+     */
+    public List<AvailableSlot> findNextAvailable(String specialty, int days, int limit, Integer near) {
+        List<DoctorRef> doctors = specialtyIndex().getOrDefault(normalize(specialty), List.of());
+        List<AvailableSlot> result = new ArrayList<>();
+        if (doctors.isEmpty() || limit <= 0 || days <= 0) {
+            return result;
+        }
+
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(days - 1L);
+        slotIndex.warm(doctors.stream().map(DoctorRef::id).toList(), from, to);
+
+        Comparator<Candidate> order = near == null
+                ? Comparator.comparingInt(Candidate::minute)
+                : Comparator.comparingInt((Candidate c) -> Math.abs(c.minute() - near)).thenComparingInt(Candidate::minute);
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to) && result.size() < limit; date = date.plusDays(1)) {
+            int earliest = date.equals(from) ? currentMinute() + 1 : 0;
+            candidates.clear();
+            for (DoctorRef doctor : doctors) {
+                for (int minute : scheduleService.slotsOn(doctor.id(), date)) {
+                    if (minute >= earliest && !slotIndex.isOccupied(doctor.id(), date, minute)) {
+                        candidates.add(new Candidate(doctor, minute));
+                    }
+                }
+            }
+            candidates.sort(order);
+            for (Candidate c : candidates) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(toSlot(c.doctor(), date, c.minute()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Free slots of a single doctor on a given date, in start-time order.
+     */
+    public List<String> findFreeTimes(Long doctorId, LocalDate date) {
+        DoctorRef doctor = doctorIndex().get(doctorId);
+        List<String> result = new ArrayList<>();
+        if (doctor == null || date == null || date.isBefore(LocalDate.now())) {
+            return result;
+        }
+        int earliest = date.equals(LocalDate.now()) ? currentMinute() + 1 : 0;
+        for (int minute : scheduleService.slotsOn(doctorId, date)) {
+            if (minute >= earliest && !slotIndex.isOccupied(doctorId, date, minute)) {
+                result.add(SlotTimes.formatClock(minute));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the cached doctor list; called whenever a doctor is created, edited or removed. Synchronized
+     * so that a rebuild in progress, which may have read the old rows, is discarded after it finishes.
+     */
+    public synchronized void invalidateDoctors() {
+        doctors = null;
+    }
+
+    private Map<Long, DoctorRef> doctorIndex() {
+        return currentIndex().byId();
+    }
+
+    private Map<String, List<DoctorRef>> specialtyIndex() {
+        return currentIndex().bySpecialty();
+    }
+
+    // the snapshot read here (or built by rebuild) is used as is, even if it is invalidated meanwhile
+    private DoctorIndex currentIndex() {
+        DoctorIndex index = doctors;
+        return index != null ? index : rebuild();
+    }
+
+    private synchronized DoctorIndex rebuild() {
+        DoctorIndex index = doctors;
+        if (index != null) {
+            return index;
+        }
+        Map<Long, DoctorRef> byId = new HashMap<>();
+        Map<String, List<DoctorRef>> bySpecialty = new HashMap<>();
+        for (Doctor doctor : doctorRepository.findAll()) {
+            DoctorRef ref = new DoctorRef(doctor.getId(), doctor.getName(), doctor.getSpecialty());
+            byId.put(ref.id(), ref);
+            bySpecialty.computeIfAbsent(normalize(doctor.getSpecialty()), k -> new ArrayList<>()).add(ref);
+        }
+        bySpecialty.replaceAll((specialty, refs) -> List.copyOf(refs));
+        index = new DoctorIndex(Map.copyOf(byId), Map.copyOf(bySpecialty));
+        doctors = index;
+        return index;
+    }
+
+    private static AvailableSlot toSlot(DoctorRef doctor, LocalDate date, int minute) {
+        return new AvailableSlot(doctor.id(), doctor.name(), doctor.specialty(), date, SlotTimes.formatClock(minute));
+    }
+
+    private static int currentMinute() {
+        LocalTime now = LocalTime.now();
+        return now.getHour() * 60 + now.getMinute();
+    }
+
+    private static String normalize(String specialty) {
+        return specialty == null ? "" : specialty.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -3,6 +3,8 @@ package com.example.clinic.service;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.example.clinic.model.Doctor;
 import com.example.clinic.repository.DoctorRepository;
@@ -11,13 +13,22 @@ import com.example.clinic.repository.DoctorRepository;
 public class DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final AvailabilityService availabilityService;
 
-    public DoctorService(DoctorRepository doctorRepository) {
+    public DoctorService(DoctorRepository doctorRepository, AvailabilityService availabilityService) {
         this.doctorRepository = doctorRepository;
+        this.availabilityService = availabilityService;
     }
 
     public Doctor save(Doctor doctor) {
-        return doctorRepository.save(doctor);
+        Doctor saved = doctorRepository.save(doctor);
+        invalidateAvailability();
+        return saved;
+    }
+
+    public void delete(Doctor doctor) {
+        doctorRepository.delete(doctor);
+        invalidateAvailability();
     }
 
     public List<Doctor> findAll() {
@@ -31,4 +42,17 @@ public class DoctorService {
     public Doctor findByUsername(String username) {
         return doctorRepository.findByUsername(username).orElse(null);
     }
+
+    // invalidate now and again after commit, so a rebuild racing the open transaction can't keep stale data
+    private void invalidateAvailability() {
+        availabilityService.invalidateDoctors();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    availabilityService.invalidateDoctors();
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.clinic.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.clinic.dto.AppointmentExportRow;
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.AppointmentHistory;
+import com.example.clinic.repository.AppointmentHistoryRepository;
+import com.example.clinic.repository.AppointmentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Streams the appointment history (live and archived rows) straight to an output stream. Rows are read through a database
+ * cursor and each entity is detached once written, so memory use does not depend on table size.
+ */
+@Service
+public class ExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentHistoryRepository historyRepository;
+    private final ObjectWriter rowWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ExportService(AppointmentRepository appointmentRepository, AppointmentHistoryRepository historyRepository,
+                         ObjectMapper objectMapper) {
+        this.appointmentRepository = appointmentRepository;
+        this.historyRepository = historyRepository;
+        // one JSON document per line: we write the newline ourselves, so no separator between root values
+        this.rowWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+    }
+
+    @Transactional(readOnly = true)
+    public void exportAppointments(OutputStream out, Format format) throws IOException {
+        // live rows first, then the archive; each is read through its own cursor
+        try (Stream<Appointment> appointments = appointmentRepository.streamAllForExport();
+             Stream<AppointmentHistory> archived = historyRepository.streamAllForExport()) {
+            Stream<Object> entities = Stream.concat(appointments, archived);
+            if (format == Format.CSV) {
+                writeCsv(entities, out);
+            } else {
+                writeNdjson(entities, out);
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private void writeNdjson(Stream<Object> entities, OutputStream out) throws IOException {
+        JsonGenerator generator = rowWriter.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        entities.forEach(entity -> {
+            try {
+                rowWriter.writeValue(generator, toRow(entity));
+                generator.writeRaw('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            entityManager.detach(entity);
+        });
+        generator.close();
+    }
+
+    private void writeCsv(Stream<Object> entities, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeCsvLine(writer, AppointmentExportRow.CSV_HEADER);
+        entities.forEach(entity -> {
+            try {
+                writeCsvLine(writer, toRow(entity).csvValues());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            entityManager.detach(entity);
+        });
+        writer.flush();
+    }
+
+    private static AppointmentExportRow toRow(Object entity) {
+        return entity instanceof Appointment appointment
+                ? AppointmentExportRow.of(appointment)
+                : AppointmentExportRow.of((AppointmentHistory) entity);
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            if (values[i] != null) writer.write(csvEscape(values[i].toString()));
+        }
+        writer.write('\n');
+    }
+
+    private static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.clinic.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.clinic.dto.PrescriptionRef;
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.ConsultationRecord;
+import com.example.clinic.repository.AppointmentHistoryRepository;
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.ConsultationRecordRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Writes all prescriptions of a patient, live and archived, as one ZIP. Entries are produced on a small
+ * worker pool a few at a time (a sliding window of futures) and written in chronological order as they
+ * complete, so at most {@code export-window} documents are held in memory per export regardless of how
+ * long the patient's history is. Each document comes from the pre-render store or the cache when
+ * available and is rendered otherwise.
+ */
+@Service
+public class PrescriptionExportService {
+
+    private static final Comparator<PrescriptionRef> CHRONOLOGICAL = Comparator
+            .comparing(PrescriptionRef::date, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(PrescriptionRef::appointmentId);
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentHistoryRepository historyRepository;
+    private final ConsultationRecordRepository consultationRecordRepository;
+    private final PrescriptionImageCache cache;
+    private final PrescriptionStore store;
+    private final PrescriptionRenderer renderer;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+    private final int window;
+
+    public PrescriptionExportService(AppointmentRepository appointmentRepository,
+                                     AppointmentHistoryRepository historyRepository,
+                                     ConsultationRecordRepository consultationRecordRepository,
+                                     PrescriptionImageCache cache, PrescriptionStore store, PrescriptionRenderer renderer,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${clinic.prescription.export-threads:2}") int threads,
+                                     @Value("${clinic.prescription.export-window:4}") int window,
+                                     @Value("${clinic.prescription.export-queue-capacity:32}") int queueCapacity) {
+        this.appointmentRepository = appointmentRepository;
+        this.historyRepository = historyRepository;
+        this.consultationRecordRepository = consultationRecordRepository;
+        this.cache = cache;
+        this.store = store;
+        this.renderer = renderer;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.window = Math.max(1, window);
+
+        AtomicInteger counter = new AtomicInteger();
+        // each export has at most `window` jobs queued; when many exports run at once and the queue is full,
+        // the exporting request thread loads the document itself, which slows that download instead of
+        // queueing without bound
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "prescription-export-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (job, pool) -> {
+                    // CallerRunsPolicy, except that after shutdown the job fails instead of being dropped,
+                    // which would leave the export waiting on its future forever
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Prescription export is shutting down");
+                    }
+                    job.run();
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Completed consultations of the patient, oldest first. Only ids and versions are loaded here.
+     */
+    public List<PrescriptionRef> findPrescriptions(String patientUsername) {
+        List<PrescriptionRef> refs = new ArrayList<>(historyRepository.findPrescriptionRefsByPatientUsername(patientUsername));
+        refs.addAll(appointmentRepository.findPrescriptionRefsByPatientUsername(patientUsername));
+        refs.sort(CHRONOLOGICAL);
+        return refs;
+    }
+
+    public void writeZip(List<PrescriptionRef> refs, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PNG data is already deflated; recompressing only costs CPU
+        zip.setLevel(Deflater.NO_COMPRESSION);
+
+        Deque<Job> inFlight = new ArrayDeque<>(window);
+        Iterator<PrescriptionRef> pending = refs.iterator();
+        try {
+            while (inFlight.size() < window && pending.hasNext()) {
+                inFlight.add(submit(pending.next()));
+            }
+            while (!inFlight.isEmpty()) {
+                Job job = inFlight.poll();
+                if (pending.hasNext()) {
+                    inFlight.add(submit(pending.next()));
+                }
+                byte[] png = await(job);
+                if (png == null) {
+                    continue;
+                }
+                ZipEntry entry = new ZipEntry(entryName(job.ref()));
+                if (job.ref().completedAt() != null) {
+                    entry.setTimeLocal(job.ref().completedAt());
+                }
+                zip.putNextEntry(entry);
+                zip.write(png);
+                zip.closeEntry();
+            }
+            zip.finish();
+        } finally {
+            // client went away or an entry failed hard: don't keep rendering for nobody
+            for (Job job : inFlight) {
+                job.png().cancel(true);
+            }
+        }
+    }
+
+    private record Job(PrescriptionRef ref, Future<byte[]> png) {}
+
+    private Job submit(PrescriptionRef ref) {
+        return new Job(ref, executor.submit(() -> loadPng(ref)));
+    }
+
+    private static byte[] await(Job job) throws IOException {
+        try {
+            return job.png().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Prescription export interrupted");
+        } catch (ExecutionException ex) {
+            // skip the one document rather than truncating the archive
+            System.err.println("Skipping prescription " + job.ref().appointmentId() + " in export: " + ex.getCause());
+            return null;
+        }
+    }
+
+    private byte[] loadPng(PrescriptionRef ref) throws IOException {
+        Long appointmentId = ref.appointmentId();
+        long version = PrescriptionImageCache.versionOf(ref);
+
+        // no cache.put on a miss: one bulk export should not evict everyone else's recent downloads
+        byte[] png = cache.get(appointmentId, version);
+        if (png != null) {
+            return png;
+        }
+        Path stored = store.find(appointmentId, version);
+        if (stored != null) {
+            return Files.readAllBytes(stored);
+        }
+
+        // lazy doctor/patient associations are read while laying out, so do that inside the transaction
+        PrescriptionLayout.Details details = readOnlyTransaction.execute(status -> {
+            if (ref.archived()) {
+                return historyRepository.findById(appointmentId).map(PrescriptionLayout.Details::of).orElse(null);
+            }
+            Appointment appointment = appointmentRepository.findById(appointmentId).orElse(null);
+            if (appointment == null) {
+                return null;
+            }
+            ConsultationRecord record = consultationRecordRepository.findById(appointmentId)
+                    .orElseGet(() -> new ConsultationRecord(appointmentId));
+            return PrescriptionLayout.Details.of(appointment, record);
+        });
+        if (details == null) {
+            throw new IllegalStateException("appointment no longer exists");
+        }
+        png = renderer.renderPng(PrescriptionLayout.content(details));
+        try {
+            store.store(appointmentId, version, png);
+        } catch (IOException ex) {
+            System.err.println("Could not store prescription " + appointmentId + ": " + ex.getMessage());
+        }
+        return png;
+    }
+
+    private static String entryName(PrescriptionRef ref) {
+        String date = ref.date() != null ? ref.date().toString() : "undated";
+        return "prescription_" + date + "_" + ref.appointmentId() + ".png";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // jobs that never started are cancelled so exports waiting on them fail instead of hanging
+        for (Runnable job : executor.shutdownNow()) {
+            if (job instanceof Future<?> future) {
+                future.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.clinic.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Document formats the prescription download can be served in. PNG is the raster default; SVG and PDF are
+ * written straight from the layout elements.
+ */
+public enum PrescriptionFormat {
+    PNG(MediaType.IMAGE_PNG, "png"),
+    SVG(MediaType.valueOf("image/svg+xml"), "svg"),
+    PDF(MediaType.APPLICATION_PDF, "pdf");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    PrescriptionFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() { return mediaType; }
+    public String getExtension() { return extension; }
+
+    /**
+     * Format named by a "format" query value (extension, case-insensitive); null when unknown.
+     */
+    public static PrescriptionFormat fromExtension(String value) {
+        for (PrescriptionFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks the format for an Accept header. Types are tried in the client's order of preference and only
+     * an explicit match selects SVG or PDF; wildcards, a missing header and unknown types fall back to PNG,
+     * which keeps existing clients (img tags, plain links) unchanged.
+     */
+    public static PrescriptionFormat negotiate(List<MediaType> accepted) {
+        List<MediaType> sorted = new ArrayList<>(accepted);
+        MimeTypeUtils.sortBySpecificity(sorted);
+        for (MediaType type : sorted) {
+            if (type.isWildcardType() || type.isWildcardSubtype()) {
+                continue;
+            }
+            for (PrescriptionFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(type)) {
+                    return format;
+                }
+            }
+        }
+        return PNG;
+    }
+}
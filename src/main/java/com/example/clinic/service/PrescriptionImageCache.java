@@ -0,0 +1,112 @@
+package com.example.clinic.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.clinic.dto.PrescriptionRef;
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.Doctor;
+
+/**
+ * LRU cache of encoded prescription PNGs, bounded by total byte size. Entries are keyed by appointment
+ * id and tagged with a content version covering everything drawn on the document, so a stale image is
+ * never returned even if an invalidation were missed (e.g. after a doctor is renamed);
+ * {@link AppointmentService#completeConsultation} evicts the entry when the text changes.
+ */
+@Component
+public class PrescriptionImageCache {
+
+    private record Entry(long version, byte[] png) {}
+
+    private final long maxBytes;
+    private long totalBytes;
+
+    // access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    public PrescriptionImageCache(@Value("${clinic.prescription.cache-max-bytes:33554432}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Content version of an appointment's prescription: a hash of every input the document is drawn from,
+     * plus {@link PrescriptionLayout#LAYOUT_VERSION}. The consultation text is fixed once the consultation
+     * is completed, so the completion time stands in for it and the text need not be loaded; the doctor
+     * and patient names are read live and can change later, so they are hashed themselves.
+     */
+    public static long versionOf(Appointment appointment) {
+        Doctor doctor = appointment.getDoctor();
+        return versionOf(appointment.getConsultationEndTime(),
+                doctor != null ? doctor.getName() : null, doctor != null ? doctor.getSpecialty() : null,
+                appointment.getPatientName(), appointment.getPatient() != null ? appointment.getPatient().getUsername() : null,
+                appointment.getDate());
+    }
+
+    public static long versionOf(PrescriptionRef ref) {
+        return versionOf(ref.completedAt(), ref.doctorName(), ref.doctorSpecialty(), ref.patientName(),
+                ref.patientUsername(), ref.date());
+    }
+
+    /**
+     * Live and archived copies of the same consultation hash alike, so a document rendered before archiving
+     * is still found afterwards.
+     */
+    public static long versionOf(LocalDateTime completedAt, String doctorName, String specialty, String patientName,
+                                 String patientUsername, LocalDate date) {
+        String inputs = String.join("\0", "v" + PrescriptionLayout.LAYOUT_VERSION, String.valueOf(completedAt),
+                String.valueOf(doctorName), String.valueOf(specialty), String.valueOf(patientName),
+                String.valueOf(patientUsername), String.valueOf(date));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(inputs.getBytes(StandardCharsets.UTF_8));
+            // non-negative, as it is also part of file names in the prescription store
+            return ByteBuffer.wrap(digest).getLong() & Long.MAX_VALUE;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Strong ETag for the given appointment, content version and document format.
+     */
+    public static String etagOf(Long appointmentId, long version, PrescriptionFormat format) {
+        return "\"rx" + PrescriptionLayout.LAYOUT_VERSION + "-" + format.getExtension() + "-" + appointmentId + "-" + version + "\"";
+    }
+
+    public synchronized byte[] get(Long appointmentId, long version) {
+        Entry entry = entries.get(appointmentId);
+        return entry != null && entry.version() == version ? entry.png() : null;
+    }
+
+    public synchronized void put(Long appointmentId, long version, byte[] png) {
+        if (png.length > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(appointmentId, new Entry(version, png));
+        if (previous != null) {
+            totalBytes -= previous.png().length;
+        }
+        totalBytes += png.length;
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().png().length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidate(Long appointmentId) {
+        Entry previous = entries.remove(appointmentId);
+        if (previous != null) {
+            totalBytes -= previous.png().length;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.clinic.service;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.AppointmentHistory;
+import com.example.clinic.model.ConsultationRecord;
+import com.example.clinic.model.Doctor;
+
+/**
+ * Format-agnostic layout of the prescription document: positioned boxes and text lines in a fixed
+ * 800 x 1000 unit page, with y growing downwards and text positioned at its baseline. The PNG renderer
+ * and the SVG/PDF writers all draw from the same elements, so every format shows the same document.
+ *
+ * Line breaking and centering are measured with Java2D font metrics, which need no raster.
+ */
+public final class PrescriptionLayout {
+
+    // bump whenever the document changes, so ETags and stored artifacts of the old layout are not reused
+    public static final int LAYOUT_VERSION = 3;
+
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 1000;
+
+    private static final int LEFT_MARGIN = 50;
+    private static final int LINE_HEIGHT = 30;
+    private static final int FOOTER_Y = HEIGHT - 80;
+
+    public static final Color BRAND = new Color(47, 128, 237);
+    public static final Color MUTED = new Color(100, 100, 100);
+
+    private static final DateTimeFormatter ISSUED_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' hh:mm a");
+
+    // anti-aliased, integer metrics: the same measurements the PNG renderer draws with
+    private static final FontRenderContext METRICS = new FontRenderContext(null, true, false);
+
+    public enum Style {
+        TITLE(Font.BOLD, 36),
+        SUBTITLE(Font.PLAIN, 16),
+        SECTION(Font.BOLD, 20),
+        BODY(Font.PLAIN, 16),
+        ISSUED(Font.ITALIC, 14),
+        DISCLAIMER(Font.PLAIN, 12);
+
+        private final Font font;
+
+        Style(int awtStyle, int size) {
+            this.font = new Font("Arial", awtStyle, size);
+        }
+
+        public Font getFont() { return font; }
+        public int getSize() { return font.getSize(); }
+        public boolean isBold() { return font.isBold(); }
+        public boolean isItalic() { return font.isItalic(); }
+    }
+
+    public sealed interface Element permits Box, Text {}
+
+    /** Rectangle, either filled or outlined with a one-unit stroke. */
+    public record Box(int x, int y, int width, int height, Color color, boolean filled) implements Element {}
+
+    /** Single line of text; (x, y) is the start of its baseline. */
+    public record Text(int x, int y, String text, Style style, Color color) implements Element {}
+
+    /**
+     * Elements that do not depend on the consultation (background, header band, title, disclaimer,
+     * border), in drawing order.
+     */
+    public static final List<Element> FRAME = List.of(
+            new Box(0, 0, WIDTH, HEIGHT, Color.WHITE, true),
+            new Box(0, 0, WIDTH, 100, BRAND, true),
+            centered("Medical Prescription", Style.TITLE, Color.WHITE, 60),
+            centered("Healix Medicare Clinic", Style.SUBTITLE, Color.WHITE, 85),
+            centered("This is a computer-generated prescription. No signature required.", Style.DISCLAIMER, MUTED, FOOTER_Y + 25),
+            new Box(10, 10, WIDTH - 20, HEIGHT - 20, BRAND, false),
+            new Box(11, 11, WIDTH - 22, HEIGHT - 22, BRAND, false));
+
+    private PrescriptionLayout() {
+    }
+
+    /**
+     * Consultation-specific text, resolved to display strings, from either a live appointment or an
+     * archived one.
+     */
+    public record Details(String doctorName, String specialty, String patientName, String patientId, String date,
+                          String diagnosis, String prescription, String doctorNotes, LocalDateTime issuedAt) {
+
+        public static Details of(Appointment appointment, ConsultationRecord record) {
+            Doctor doctor = appointment.getDoctor();
+            return new Details(
+                    doctor != null ? "Dr. " + doctor.getName() : "Dr. Unknown",
+                    doctor != null ? doctor.getSpecialty() : "General Medicine",
+                    appointment.getPatientName() != null ? appointment.getPatientName() : "Patient",
+                    appointment.getPatient() != null ? appointment.getPatient().getUsername() : "N/A",
+                    appointment.getDate() != null ? appointment.getDate().toString() : "N/A",
+                    record.getDiagnosis(), record.getPrescription(), record.getDoctorNotes(),
+                    appointment.getConsultationEndTime());
+        }
+
+        public static Details of(AppointmentHistory archived) {
+            boolean hasDoctor = archived.getDoctorId() != null;
+            return new Details(
+                    hasDoctor ? "Dr. " + archived.getDoctorName() : "Dr. Unknown",
+                    hasDoctor ? archived.getDoctorSpecialty() : "General Medicine",
+                    archived.getPatientName() != null ? archived.getPatientName() : "Patient",
+                    archived.getPatientUsername() != null ? archived.getPatientUsername() : "N/A",
+                    archived.getDate() != null ? archived.getDate().toString() : "N/A",
+                    archived.getDiagnosis(), archived.getPrescription(), archived.getDoctorNotes(),
+                    archived.getConsultationEndTime());
+        }
+    }
+
+    public static List<Element> content(Appointment appointment, ConsultationRecord record) {
+        return content(Details.of(appointment, record));
+    }
+
+    /**
+     * Consultation-specific elements, drawn on top of {@link #FRAME}.
+     */
+    public static List<Element> content(Details details) {
+        List<Element> elements = new ArrayList<>(32);
+        int y = 140;
+
+        // Doctor Information
+        elements.add(new Text(LEFT_MARGIN, y, "Doctor Information", Style.SECTION, Color.BLACK));
+        y += LINE_HEIGHT;
+
+        elements.add(new Text(LEFT_MARGIN + 20, y, "Name: " + details.doctorName(), Style.BODY, Color.BLACK));
+        y += LINE_HEIGHT;
+
+        elements.add(new Text(LEFT_MARGIN + 20, y, "Specialty: " + details.specialty(), Style.BODY, Color.BLACK));
+        y += LINE_HEIGHT + 10;
+
+        // Patient Information
+        elements.add(new Text(LEFT_MARGIN, y, "Patient Information", Style.SECTION, Color.BLACK));
+        y += LINE_HEIGHT;
+
+        elements.add(new Text(LEFT_MARGIN + 20, y, "Name: " + details.patientName(), Style.BODY, Color.BLACK));
+        y += LINE_HEIGHT;
+
+        elements.add(new Text(LEFT_MARGIN + 20, y, "Patient ID: " + details.patientId(), Style.BODY, Color.BLACK));
+        y += LINE_HEIGHT;
+
+        elements.add(new Text(LEFT_MARGIN + 20, y, "Date: " + details.date(), Style.BODY, Color.BLACK));
+        y += LINE_HEIGHT + 10;
+
+        y = addSection(elements, "Diagnosis", details.diagnosis(), y);
+        y = addSection(elements, "Prescription", details.prescription(), y);
+        addSection(elements, "Additional Notes", details.doctorNotes(), y);
+
+        // issue time rather than render time, so the same consultation always yields the same bytes (ETag)
+        LocalDateTime issuedAt = details.issuedAt();
+        if (issuedAt != null) {
+            elements.add(centered("Issued on: " + issuedAt.format(ISSUED_FORMAT), Style.ISSUED, MUTED, FOOTER_Y));
+        }
+        return elements;
+    }
+
+    private static int addSection(List<Element> elements, String title, String text, int y) {
+        if (text == null || text.isEmpty()) {
+            return y;
+        }
+        elements.add(new Text(LEFT_MARGIN, y, title, Style.SECTION, Color.BLACK));
+        y += LINE_HEIGHT;
+        return addWrappedText(elements, text, LEFT_MARGIN + 20, y, WIDTH - 100) + 10;
+    }
+
+    /**
+     * Greedy word wrap on spaces. Words are measured in place on the character array; only the finished
+     * lines become strings.
+     */
+    private static int addWrappedText(List<Element> elements, String text, int x, int y, int maxWidth) {
+        Font font = Style.BODY.getFont();
+        char[] chars = text.toCharArray();
+        int spaceWidth = width(font, new char[] {' '}, 0, 1);
+
+        int lineStart = 0;
+        int lineEnd = 0;
+        int lineWidth = 0;
+        boolean lineEmpty = true;
+        int wordStart = 0;
+        while (wordStart <= chars.length) {
+            int wordEnd = wordStart;
+            while (wordEnd < chars.length && chars[wordEnd] != ' ') {
+                wordEnd++;
+            }
+            int wordWidth = width(font, chars, wordStart, wordEnd);
+
+            if (!lineEmpty && lineWidth + spaceWidth + wordWidth > maxWidth) {
+                elements.add(new Text(x, y, new String(chars, lineStart, lineEnd - lineStart), Style.BODY, Color.BLACK));
+                y += LINE_HEIGHT;
+                lineStart = wordStart;
+                lineWidth = wordWidth;
+            } else {
+                lineWidth = lineEmpty ? wordWidth : lineWidth + spaceWidth + wordWidth;
+            }
+            lineEnd = wordEnd;
+            lineEmpty = false;
+            wordStart = wordEnd + 1;
+        }
+
+        if (lineEnd > lineStart) {
+            elements.add(new Text(x, y, new String(chars, lineStart, lineEnd - lineStart), Style.BODY, Color.BLACK));
+            y += LINE_HEIGHT;
+        }
+        return y;
+    }
+
+    private static Text centered(String text, Style style, Color color, int y) {
+        char[] chars = text.toCharArray();
+        return new Text((WIDTH - width(style.getFont(), chars, 0, chars.length)) / 2, y, text, style, color);
+    }
+
+    private static int width(Font font, char[] chars, int from, int to) {
+        if (to <= from) {
+            return 0;
+        }
+        return (int) Math.round(font.getStringBounds(chars, from, to, METRICS).getWidth());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.clinic.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.ConsultationRecord;
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.ConsultationRecordRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Renders prescriptions in the background right after a consultation is completed, so downloads are
+ * served from {@link PrescriptionStore} instead of rendering on request threads. The executor and its
+ * queue are bounded; when the queue is full the job is dropped and the download renders on demand.
+ */
+@Component
+public class PrescriptionRenderQueue {
+
+    private final AppointmentRepository appointmentRepository;
+    private final ConsultationRecordRepository consultationRecordRepository;
+    private final PrescriptionRenderer renderer;
+    private final PrescriptionStore store;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+
+    public PrescriptionRenderQueue(AppointmentRepository appointmentRepository,
+                                   ConsultationRecordRepository consultationRecordRepository,
+                                   PrescriptionRenderer renderer, PrescriptionStore store,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${clinic.prescription.render-threads:2}") int threads,
+                                   @Value("${clinic.prescription.render-queue-capacity:500}") int queueCapacity) {
+        this.appointmentRepository = appointmentRepository;
+        this.consultationRecordRepository = consultationRecordRepository;
+        this.renderer = renderer;
+        this.store = store;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "prescription-render-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (job, pool) -> System.err.println("Prescription render queue full; the download will render on demand"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void enqueue(Long appointmentId) {
+        executor.execute(() -> render(appointmentId));
+    }
+
+    private void render(Long appointmentId) {
+        try {
+            // lazy doctor/patient associations are read while drawing, so render inside the transaction
+            readOnlyTransaction.executeWithoutResult(status -> {
+                Appointment appointment = appointmentRepository.findById(appointmentId).orElse(null);
+                if (appointment == null) {
+                    return;
+                }
+                long version = PrescriptionImageCache.versionOf(appointment);
+                if (store.find(appointmentId, version) != null) {
+                    return;
+                }
+                ConsultationRecord record = consultationRecordRepository.findById(appointmentId)
+                        .orElseGet(() -> new ConsultationRecord(appointmentId));
+                try {
+                    store.store(appointmentId, version, renderer.renderPng(appointment, record));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (Exception ex) {
+            System.err.println("Failed to pre-render prescription " + appointmentId + ": " + ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
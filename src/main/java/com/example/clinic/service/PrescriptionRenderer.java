@@ -0,0 +1,224 @@
+package com.example.clinic.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.ConsultationRecord;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Rasterises the {@link PrescriptionLayout} of a consultation and encodes it as PNG. Used both on demand by
+ * the download endpoint and by the background pre-render jobs.
+ *
+ * The layout frame (header band, title, disclaimer, border) is drawn once into a template. Each render
+ * copies the template into a pooled canvas and draws only the consultation's elements. The canvas is
+ * palette-indexed (one byte per pixel, 256 colours covering the grey and brand anti-aliasing ramps), which
+ * keeps the raster small and the PNG a fraction of the RGB size.
+ *
+ * Canvases, PNG writers and output buffers are not thread-safe and are held in a pool of at most
+ * {@code render-contexts} sets rather than per thread, so request threads that render once in a while do
+ * not each keep a megabyte alive; a render finding the pool exhausted waits for a set to be returned.
+ */
+@Component
+public class PrescriptionRenderer {
+
+    private static final int WIDTH = PrescriptionLayout.WIDTH;
+    private static final int HEIGHT = PrescriptionLayout.HEIGHT;
+
+    private static final IndexColorModel PALETTE = buildPalette();
+    private static final BufferedImage TEMPLATE = buildTemplate();
+    private static final byte[] TEMPLATE_PIXELS = pixelsOf(TEMPLATE);
+
+    private final float compressionQuality;
+    private final int maxContexts;
+
+    // idle render contexts; at most maxContexts exist at any time
+    private final BlockingQueue<RenderContext> idle;
+    private final AtomicInteger created = new AtomicInteger();
+
+    /**
+     * One canvas, PNG writer and output buffer, used by one render at a time.
+     */
+    private static final class RenderContext {
+        final BufferedImage canvas = newCanvas();
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    public PrescriptionRenderer(@Value("${clinic.prescription.png-compression-quality:0.1}") float compressionQuality,
+                                @Value("${clinic.prescription.render-contexts:4}") int maxContexts) {
+        this.compressionQuality = compressionQuality;
+        this.maxContexts = Math.max(1, maxContexts);
+        this.idle = new ArrayBlockingQueue<>(this.maxContexts);
+    }
+
+    public byte[] renderPng(Appointment appointment, ConsultationRecord record) throws IOException {
+        return renderPng(PrescriptionLayout.content(appointment, record));
+    }
+
+    public byte[] renderPng(List<PrescriptionLayout.Element> content) throws IOException {
+        RenderContext context = acquire();
+        boolean reusable = false;
+        try {
+            BufferedImage image = context.canvas;
+            // clear by restoring the static layer
+            System.arraycopy(TEMPLATE_PIXELS, 0, pixelsOf(image), 0, TEMPLATE_PIXELS.length);
+
+            Graphics2D g2d = image.createGraphics();
+            try {
+                applyHints(g2d);
+                draw(g2d, content);
+            } finally {
+                g2d.dispose();
+            }
+            byte[] png = encode(context);
+            reusable = true;
+            return png;
+        } finally {
+            release(context, reusable);
+        }
+    }
+
+    private RenderContext acquire() throws IOException {
+        RenderContext context = idle.poll();
+        if (context != null) {
+            return context;
+        }
+        if (created.incrementAndGet() <= maxContexts) {
+            try {
+                return new RenderContext();
+            } catch (RuntimeException ex) {
+                created.decrementAndGet();
+                throw ex;
+            }
+        }
+        created.decrementAndGet();
+        try {
+            return idle.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a prescription canvas");
+        }
+    }
+
+    // a writer that failed mid-image is not trusted again: it is disposed and a fresh set made next time
+    private void release(RenderContext context, boolean reusable) {
+        if (reusable && idle.offer(context)) {
+            return;
+        }
+        context.writer.dispose();
+        created.decrementAndGet();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        RenderContext context;
+        while ((context = idle.poll()) != null) {
+            context.writer.dispose();
+        }
+    }
+
+    private static void draw(Graphics2D g2d, List<PrescriptionLayout.Element> elements) {
+        for (PrescriptionLayout.Element element : elements) {
+            if (element instanceof PrescriptionLayout.Box box) {
+                g2d.setColor(box.color());
+                if (box.filled()) {
+                    g2d.fillRect(box.x(), box.y(), box.width(), box.height());
+                } else {
+                    g2d.drawRect(box.x(), box.y(), box.width(), box.height());
+                }
+            } else if (element instanceof PrescriptionLayout.Text text) {
+                g2d.setColor(text.color());
+                g2d.setFont(text.style().getFont());
+                g2d.drawString(text.text(), text.x(), text.y());
+            }
+        }
+    }
+
+    private byte[] encode(RenderContext context) throws IOException {
+        ImageWriter writer = context.writer;
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(compressionQuality);
+
+        ByteArrayOutputStream out = context.buffer;
+        out.reset();
+        try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(context.canvas, null, null), param);
+        } finally {
+            writer.reset();
+        }
+        return out.toByteArray();
+    }
+
+    private static void applyHints(Graphics2D g2d) {
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE);
+    }
+
+    private static BufferedImage newCanvas() {
+        return new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_INDEXED, PALETTE);
+    }
+
+    private static byte[] pixelsOf(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * 128-step grey ramp (black text, muted footer) and 128-step ramp from the brand blue to white (white
+     * header text on the band), enough for anti-aliased edges of every colour the document uses.
+     */
+    private static IndexColorModel buildPalette() {
+        byte[] r = new byte[256];
+        byte[] g = new byte[256];
+        byte[] b = new byte[256];
+        Color brand = PrescriptionLayout.BRAND;
+        for (int i = 0; i < 128; i++) {
+            int grey = i * 255 / 127;
+            r[i] = (byte) grey;
+            g[i] = (byte) grey;
+            b[i] = (byte) grey;
+
+            r[128 + i] = (byte) (brand.getRed() + (255 - brand.getRed()) * i / 127);
+            g[128 + i] = (byte) (brand.getGreen() + (255 - brand.getGreen()) * i / 127);
+            b[128 + i] = (byte) (brand.getBlue() + (255 - brand.getBlue()) * i / 127);
+        }
+        return new IndexColorModel(8, 256, r, g, b);
+    }
+
+    private static BufferedImage buildTemplate() {
+        BufferedImage template = newCanvas();
+        Graphics2D g2d = template.createGraphics();
+        try {
+            applyHints(g2d);
+            draw(g2d, PrescriptionLayout.FRAME);
+        } finally {
+            g2d.dispose();
+        }
+        return template;
+    }
+}
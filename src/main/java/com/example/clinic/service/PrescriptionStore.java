@@ -0,0 +1,93 @@
+package com.example.clinic.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content-addressed on-disk store of rendered prescriptions. Each PNG is written once as
+ * {@code blobs/<sha256>.png}; {@code refs/<appointmentId>-<version>} holds the hash of the blob for that
+ * appointment version (and renderer layout). Files are written to a temp name and atomically moved into place, so readers
+ * never see a partial file.
+ */
+@Component
+public class PrescriptionStore {
+
+    private final Path blobs;
+    private final Path refs;
+
+    public PrescriptionStore(@Value("${clinic.prescription.store-dir:./data/prescriptions}") String directory)
+            throws IOException {
+        Path root = Paths.get(directory).toAbsolutePath();
+        this.blobs = Files.createDirectories(root.resolve("blobs"));
+        this.refs = Files.createDirectories(root.resolve("refs"));
+    }
+
+    /**
+     * The stored PNG for this appointment version, or null when it has not been rendered yet.
+     */
+    public Path find(Long appointmentId, long version) {
+        Path ref = refs.resolve(refName(appointmentId, version));
+        try {
+            if (!Files.exists(ref)) {
+                return null;
+            }
+            Path blob = blobs.resolve(Files.readString(ref, StandardCharsets.US_ASCII).trim() + ".png");
+            return Files.exists(blob) ? blob : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    public Path store(Long appointmentId, long version, byte[] png) throws IOException {
+        String hash = sha256(png);
+        Path blob = blobs.resolve(hash + ".png");
+        if (!Files.exists(blob)) {
+            writeAtomically(blob, png);
+        }
+        writeAtomically(refs.resolve(refName(appointmentId, version)), hash.getBytes(StandardCharsets.US_ASCII));
+
+        // older versions of this appointment are no longer served
+        String current = refName(appointmentId, version);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(refs, appointmentId + "-*")) {
+            for (Path ref : stale) {
+                if (!ref.getFileName().toString().equals(current)) {
+                    Files.deleteIfExists(ref);
+                }
+            }
+        }
+        return blob;
+    }
+
+    private static String refName(Long appointmentId, long version) {
+        return appointmentId + "-" + version + "-v" + PrescriptionLayout.LAYOUT_VERSION;
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".tmp-", null);
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
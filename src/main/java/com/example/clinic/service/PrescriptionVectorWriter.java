@@ -0,0 +1,161 @@
+package com.example.clinic.service;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import com.example.clinic.service.PrescriptionLayout.Box;
+import com.example.clinic.service.PrescriptionLayout.Element;
+import com.example.clinic.service.PrescriptionLayout.Text;
+
+/**
+ * Writes a {@link PrescriptionLayout} as SVG or PDF directly to an output stream. Neither format goes
+ * through a Java2D raster: boxes and text lines map one-to-one onto vector primitives, so the output is a
+ * few kilobytes and stays sharp when printed. One layout unit is one SVG user unit and one PDF point.
+ */
+@Component
+public class PrescriptionVectorWriter {
+
+    private static final int WIDTH = PrescriptionLayout.WIDTH;
+    private static final int HEIGHT = PrescriptionLayout.HEIGHT;
+
+    public void write(PrescriptionFormat format, List<Element> content, long documentId, OutputStream out) throws IOException {
+        switch (format) {
+            case SVG -> writeSvg(content, out);
+            case PDF -> writePdf(content, documentId, out);
+            default -> throw new IllegalArgumentException("Not a vector format: " + format);
+        }
+    }
+
+    public void writeSvg(List<Element> content, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8 * 1024);
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + WIDTH + "\" height=\"" + HEIGHT
+                + "\" viewBox=\"0 0 " + WIDTH + " " + HEIGHT + "\" font-family=\"Arial, Helvetica, sans-serif\">\n");
+        writeSvgElements(writer, PrescriptionLayout.FRAME);
+        writeSvgElements(writer, content);
+        writer.write("</svg>\n");
+        // flush only: the caller owns the stream
+        writer.flush();
+    }
+
+    public void writePdf(List<Element> content, long documentId, OutputStream out) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            // fixed document id instead of the current time, so the same prescription yields the same bytes
+            document.setDocumentId(documentId);
+            PDPage page = new PDPage(new PDRectangle(WIDTH, HEIGHT));
+            document.addPage(page);
+            try (PDPageContentStream stream = new PDPageContentStream(document, page)) {
+                writePdfElements(stream, PrescriptionLayout.FRAME);
+                writePdfElements(stream, content);
+            }
+            // PDFBox closes the stream it saves to
+            document.save(StreamUtils.nonClosing(out));
+        }
+    }
+
+    private static void writeSvgElements(Writer writer, List<Element> elements) throws IOException {
+        for (Element element : elements) {
+            if (element instanceof Box box) {
+                if (box.filled()) {
+                    writer.write("<rect x=\"" + box.x() + "\" y=\"" + box.y() + "\" width=\"" + box.width()
+                            + "\" height=\"" + box.height() + "\" fill=\"" + hex(box.color()) + "\"/>\n");
+                } else {
+                    // centre the one-unit stroke on the pixel row the raster outline covers
+                    writer.write("<rect x=\"" + (box.x() + 0.5) + "\" y=\"" + (box.y() + 0.5) + "\" width=\"" + box.width()
+                            + "\" height=\"" + box.height() + "\" fill=\"none\" stroke=\"" + hex(box.color()) + "\"/>\n");
+                }
+            } else if (element instanceof Text text) {
+                PrescriptionLayout.Style style = text.style();
+                writer.write("<text x=\"" + text.x() + "\" y=\"" + text.y() + "\" font-size=\"" + style.getSize() + "\"");
+                if (style.isBold()) writer.write(" font-weight=\"bold\"");
+                if (style.isItalic()) writer.write(" font-style=\"italic\"");
+                writer.write(" fill=\"" + hex(text.color()) + "\">");
+                writeEscaped(writer, text.text());
+                writer.write("</text>\n");
+            }
+        }
+    }
+
+    private static void writePdfElements(PDPageContentStream stream, List<Element> elements) throws IOException {
+        for (Element element : elements) {
+            // PDF user space grows upwards from the bottom-left corner
+            if (element instanceof Box box) {
+                if (box.filled()) {
+                    stream.setNonStrokingColor(box.color());
+                    stream.addRect(box.x(), HEIGHT - box.y() - box.height(), box.width(), box.height());
+                    stream.fill();
+                } else {
+                    stream.setStrokingColor(box.color());
+                    stream.setLineWidth(1);
+                    stream.addRect(box.x() + 0.5f, HEIGHT - box.y() - box.height() - 0.5f, box.width(), box.height());
+                    stream.stroke();
+                }
+            } else if (element instanceof Text text) {
+                stream.beginText();
+                stream.setNonStrokingColor(text.color());
+                stream.setFont(pdfFont(text.style()), text.style().getSize());
+                stream.newLineAtOffset(text.x(), HEIGHT - text.y());
+                stream.showText(winAnsi(text.text()));
+                stream.endText();
+            }
+        }
+    }
+
+    /**
+     * Helvetica from the standard 14 fonts (metric-compatible with Arial), so nothing has to be embedded.
+     */
+    private static PDType1Font pdfFont(PrescriptionLayout.Style style) {
+        if (style.isBold()) return PDType1Font.HELVETICA_BOLD;
+        if (style.isItalic()) return PDType1Font.HELVETICA_OBLIQUE;
+        return PDType1Font.HELVETICA;
+    }
+
+    /**
+     * The standard fonts only encode WinAnsi; anything outside Latin-1 is replaced instead of failing the
+     * whole document.
+     */
+    private static String winAnsi(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c < 0x20 || (c > 0x7E && c < 0xA0) || c > 0xFF) {
+                chars[i] = '?';
+            }
+        }
+        return new String(chars);
+    }
+
+    private static void writeEscaped(Writer writer, String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> writer.write("&amp;");
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    // control characters are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t') writer.write(c);
+                }
+            }
+        }
+    }
+
+    private static String hex(Color color) {
+        return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.clinic.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.clinic.dto.ScheduleView;
+import com.example.clinic.dto.WeeklyInterval;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.model.ScheduleException;
+import com.example.clinic.model.ScheduleRule;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.ScheduleExceptionRepository;
+import com.example.clinic.repository.ScheduleRuleRepository;
+
+/**
+ * Doctors' working schedules: a recurring weekly template plus dated exceptions (leave, extra hours),
+ * cut into slots of the doctor's slot duration. Expanded slots are cached per doctor-week as sorted
+ * minute arrays, which is what booking validation and availability searches consume.
+ */
+@Service
+public class ScheduleService {
+
+    public static final int DEFAULT_SLOT_MINUTES = 30;
+    public static final int MIN_SLOT_MINUTES = 5;
+    public static final int MAX_SLOT_MINUTES = 8 * 60;
+
+    // expanded weeks are cheap to rebuild; past this size the cache is simply dropped
+    private static final int MAX_CACHED_WEEKS = 10_000;
+
+    // days a legacy slot list ("09:00,10:00,...") is offered on; it carries no days of its own
+    public static final Set<DayOfWeek> LEGACY_SLOT_DAYS = Collections.unmodifiableSet(
+            EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+
+    private static final int[] NO_SLOTS = new int[0];
+
+    private record WeekKey(Long doctorId, LocalDate monday) {}
+
+    /**
+     * Loaded schedule of one doctor. {@code weekly[d]} holds [start, end) minute pairs for day-of-week d
+     * (Monday = 0); exceptions are keyed by start date so those covering a date are found with one
+     * range lookup bounded by the longest exception.
+     */
+    private record DoctorSchedule(int slotMinutes, int[][] weekly,
+            NavigableMap<LocalDate, List<ScheduleException>> exceptions, long longestExceptionDays) {}
+
+    private final ScheduleRuleRepository ruleRepository;
+    private final ScheduleExceptionRepository exceptionRepository;
+    private final DoctorRepository doctorRepository;
+
+    private final ConcurrentHashMap<Long, DoctorSchedule> schedules = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<WeekKey, int[][]> weeks = new ConcurrentHashMap<>();
+
+    public ScheduleService(ScheduleRuleRepository ruleRepository, ScheduleExceptionRepository exceptionRepository,
+                           DoctorRepository doctorRepository) {
+        this.ruleRepository = ruleRepository;
+        this.exceptionRepository = exceptionRepository;
+        this.doctorRepository = doctorRepository;
+    }
+
+    /**
+     * Start minutes of every slot the doctor offers on the given date, ascending. Callers must not modify the array.
+     */
+    public int[] slotsOn(Long doctorId, LocalDate date) {
+        if (doctorId == null || date == null) {
+            return NO_SLOTS;
+        }
+        WeekKey key = new WeekKey(doctorId, date.with(DayOfWeek.MONDAY));
+        int[][] week = weeks.get(key);
+        if (week == null) {
+            if (weeks.size() >= MAX_CACHED_WEEKS) {
+                weeks.clear();
+            }
+            week = weeks.computeIfAbsent(key, k -> expandWeek(schedule(k.doctorId()), k.monday()));
+        }
+        return week[date.getDayOfWeek().ordinal()];
+    }
+
+    public boolean offers(Long doctorId, LocalDate date, int minute) {
+        return Arrays.binarySearch(slotsOn(doctorId, date), minute) >= 0;
+    }
+
+    @Transactional(readOnly = true)
+    public ScheduleView getSchedule(Long doctorId) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new IllegalArgumentException("Doctor not found"));
+        List<WeeklyInterval> weekly = new ArrayList<>();
+        for (ScheduleRule rule : ruleRepository.findByDoctorId(doctorId)) {
+            weekly.add(new WeeklyInterval(rule.getDayOfWeek(), rule.getStart(), rule.getEnd()));
+        }
+        weekly.sort((a, b) -> a.dayOfWeek() != b.dayOfWeek()
+                ? a.dayOfWeek().compareTo(b.dayOfWeek())
+                : a.start().compareTo(b.start()));
+        return new ScheduleView(doctorId, slotMinutesOf(doctor), weekly,
+                exceptionRepository.findByDoctorIdOrderByStartDate(doctorId));
+    }
+
+    /**
+     * Replaces the doctor's weekly template (and slot duration, when given).
+     *
+     * @throws IllegalArgumentException on unknown doctors, malformed times or empty intervals
+     */
+    @Transactional
+    public void replaceWeekly(Long doctorId, Integer slotDurationMinutes, List<WeeklyInterval> intervals) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new IllegalArgumentException("Doctor not found"));
+        List<ScheduleRule> rules = new ArrayList<>();
+        for (WeeklyInterval interval : intervals) {
+            if (interval.dayOfWeek() == null) {
+                throw new IllegalArgumentException("dayOfWeek is required");
+            }
+            int start = parseBoundary(interval.start());
+            int end = parseBoundary(interval.end());
+            if (start < 0 || end < 0 || start >= end) {
+                throw new IllegalArgumentException("Invalid interval " + interval.start() + "-" + interval.end());
+            }
+            rules.add(new ScheduleRule(doctorId, interval.dayOfWeek(), start, end));
+        }
+        if (slotDurationMinutes != null) {
+            doctor.setSlotDurationMinutes(checkSlotMinutes(slotDurationMinutes));
+        }
+        ruleRepository.deleteByDoctorId(doctorId);
+        ruleRepository.saveAll(rules);
+        invalidate(doctorId);
+    }
+
+    /**
+     * Sets the weekly template from a legacy comma-separated slot list ("09:00,10:00,14:00"), offered Monday
+     * to Friday ({@link #LEGACY_SLOT_DAYS}). The slot duration becomes the smallest gap between listed slots.
+     */
+    @Transactional
+    public void replaceWeeklyFromSlots(Long doctorId, String slots) {
+        int[] minutes = parseSlotList(slots);
+        int duration = slotDurationOf(minutes);
+        int[] runs = runsFromSlots(minutes, duration);
+        List<WeeklyInterval> intervals = new ArrayList<>();
+        for (DayOfWeek day : LEGACY_SLOT_DAYS) {
+            for (int i = 0; i < runs.length; i += 2) {
+                intervals.add(new WeeklyInterval(day, SlotTimes.formatClock(runs[i]), formatBoundary(runs[i + 1])));
+            }
+        }
+        replaceWeekly(doctorId, duration, intervals);
+    }
+
+    /**
+     * @throws IllegalArgumentException on unknown doctors or malformed ranges
+     */
+    @Transactional
+    public ScheduleException addException(Long doctorId, ScheduleException exception) {
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new IllegalArgumentException("Doctor not found");
+        }
+        if (exception.getStartDate() == null) {
+            throw new IllegalArgumentException("startDate is required");
+        }
+        if (exception.getEndDate() == null) {
+            exception.setEndDate(exception.getStartDate());
+        }
+        if (exception.getEndDate().isBefore(exception.getStartDate())) {
+            throw new IllegalArgumentException("endDate is before startDate");
+        }
+        if (!exception.isWholeDay() && (exception.getStartMinute() < 0 || exception.getStartMinute() >= exception.getEndMinute()
+                || exception.getEndMinute() > SlotTimes.MINUTES_PER_DAY)) {
+            throw new IllegalArgumentException("Invalid time range");
+        }
+        exception.setDoctorId(doctorId);
+        ScheduleException saved = exceptionRepository.save(exception);
+        invalidate(doctorId);
+        return saved;
+    }
+
+    @Transactional
+    public boolean deleteException(Long doctorId, Long exceptionId) {
+        ScheduleException exception = exceptionRepository.findById(exceptionId).orElse(null);
+        if (exception == null || !doctorId.equals(exception.getDoctorId())) {
+            return false;
+        }
+        exceptionRepository.delete(exception);
+        invalidate(doctorId);
+        return true;
+    }
+
+    /**
+     * Drops the cached schedule and expanded weeks of a doctor, now and again after the current
+     * transaction commits so a concurrent expansion cannot keep stale data.
+     */
+    public void invalidate(Long doctorId) {
+        evict(doctorId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(doctorId);
+                }
+            });
+        }
+    }
+
+    /**
+     * "HH:mm" as a minute of the day, also accepting "24:00" as the end of the day; -1 when malformed.
+     */
+    public static int parseBoundary(String time) {
+        if (time != null && time.trim().equals("24:00")) {
+            return SlotTimes.MINUTES_PER_DAY;
+        }
+        return SlotTimes.parseMinute(time);
+    }
+
+    public static int[] parseSlotList(String slots) {
+        if (slots == null || slots.isBlank()) {
+            return NO_SLOTS;
+        }
+        return Arrays.stream(slots.split(","))
+                .mapToInt(SlotTimes::parseMinute)
+                .filter(minute -> minute >= 0)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * Smallest gap between consecutive sorted slot starts, or the default when there is no gap to measure.
+     */
+    public static int slotDurationOf(int[] sortedMinutes) {
+        int duration = Integer.MAX_VALUE;
+        for (int i = 1; i < sortedMinutes.length; i++) {
+            duration = Math.min(duration, sortedMinutes[i] - sortedMinutes[i - 1]);
+        }
+        return duration == Integer.MAX_VALUE ? DEFAULT_SLOT_MINUTES : Math.min(duration, MAX_SLOT_MINUTES);
+    }
+
+    /**
+     * Merges slot starts of the given duration into [start, end) minute pairs of back-to-back slots.
+     */
+    public static int[] runsFromSlots(int[] sortedMinutes, int duration) {
+        int[] runs = new int[sortedMinutes.length * 2];
+        int n = 0;
+        for (int minute : sortedMinutes) {
+            int end = Math.min(minute + duration, SlotTimes.MINUTES_PER_DAY);
+            if (n > 0 && runs[n - 1] == minute) {
+                runs[n - 1] = end;
+            } else {
+                runs[n++] = minute;
+                runs[n++] = end;
+            }
+        }
+        return Arrays.copyOf(runs, n);
+    }
+
+    private void evict(Long doctorId) {
+        schedules.remove(doctorId);
+        weeks.keySet().removeIf(key -> key.doctorId().equals(doctorId));
+    }
+
+    private DoctorSchedule schedule(Long doctorId) {
+        return schedules.computeIfAbsent(doctorId, this::load);
+    }
+
+    private DoctorSchedule load(Long doctorId) {
+        int slotMinutes = doctorRepository.findById(doctorId).map(ScheduleService::slotMinutesOf).orElse(DEFAULT_SLOT_MINUTES);
+
+        List<List<ScheduleRule>> byDay = new ArrayList<>();
+        for (int d = 0; d < 7; d++) {
+            byDay.add(new ArrayList<>());
+        }
+        for (ScheduleRule rule : ruleRepository.findByDoctorId(doctorId)) {
+            byDay.get(rule.getDayOfWeek().ordinal()).add(rule);
+        }
+        int[][] weekly = new int[7][];
+        for (int d = 0; d < 7; d++) {
+            List<ScheduleRule> rules = byDay.get(d);
+            weekly[d] = new int[rules.size() * 2];
+            for (int i = 0; i < rules.size(); i++) {
+                weekly[d][2 * i] = rules.get(i).getStartMinute();
+                weekly[d][2 * i + 1] = rules.get(i).getEndMinute();
+            }
+        }
+
+        NavigableMap<LocalDate, List<ScheduleException>> exceptions = new TreeMap<>();
+        long longest = 0;
+        for (ScheduleException exception : exceptionRepository.findByDoctorIdOrderByStartDate(doctorId)) {
+            exceptions.computeIfAbsent(exception.getStartDate(), k -> new ArrayList<>()).add(exception);
+            longest = Math.max(longest, ChronoUnit.DAYS.between(exception.getStartDate(), exception.getEndDate()));
+        }
+        return new DoctorSchedule(slotMinutes, weekly, exceptions, longest);
+    }
+
+    private static int[][] expandWeek(DoctorSchedule schedule, LocalDate monday) {
+        int[][] week = new int[7][];
+        for (int d = 0; d < 7; d++) {
+            week[d] = expandDay(schedule, monday.plusDays(d), d);
+        }
+        return week;
+    }
+
+    private static int[] expandDay(DoctorSchedule schedule, LocalDate date, int dayIndex) {
+        BitSet open = new BitSet(SlotTimes.MINUTES_PER_DAY);
+        int[] weekly = schedule.weekly()[dayIndex];
+        for (int i = 0; i < weekly.length; i += 2) {
+            open.set(weekly[i], weekly[i + 1]);
+        }
+
+        List<ScheduleException> covering = new ArrayList<>();
+        for (Map.Entry<LocalDate, List<ScheduleException>> entry : schedule.exceptions()
+                .subMap(date.minusDays(schedule.longestExceptionDays()), true, date, true).entrySet()) {
+            for (ScheduleException exception : entry.getValue()) {
+                if (!exception.getEndDate().isBefore(date)) {
+                    covering.add(exception);
+                }
+            }
+        }
+        // extra hours first, then blocks, so leave always wins over added time
+        for (ScheduleException exception : covering) {
+            if (exception.isAvailable()) {
+                open.set(startOf(exception), endOf(exception));
+            }
+        }
+        for (ScheduleException exception : covering) {
+            if (!exception.isAvailable()) {
+                open.clear(startOf(exception), endOf(exception));
+            }
+        }
+
+        int duration = schedule.slotMinutes();
+        int[] slots = new int[SlotTimes.MINUTES_PER_DAY / duration];
+        int n = 0;
+        int start = open.nextSetBit(0);
+        while (start >= 0) {
+            int end = open.nextClearBit(start);
+            for (int minute = start; minute + duration <= end; minute += duration) {
+                slots[n++] = minute;
+            }
+            start = open.nextSetBit(end);
+        }
+        return n == 0 ? NO_SLOTS : Arrays.copyOf(slots, n);
+    }
+
+    private static int startOf(ScheduleException exception) {
+        return exception.isWholeDay() ? 0 : exception.getStartMinute();
+    }
+
+    private static int endOf(ScheduleException exception) {
+        return exception.isWholeDay() ? SlotTimes.MINUTES_PER_DAY : exception.getEndMinute();
+    }
+
+    private static int slotMinutesOf(Doctor doctor) {
+        Integer minutes = doctor.getSlotDurationMinutes();
+        return minutes != null && minutes >= MIN_SLOT_MINUTES ? minutes : DEFAULT_SLOT_MINUTES;
+    }
+
+    private static int checkSlotMinutes(int minutes) {
+        if (minutes < MIN_SLOT_MINUTES || minutes > MAX_SLOT_MINUTES) {
+            throw new IllegalArgumentException("slotDurationMinutes must be between " + MIN_SLOT_MINUTES
+                    + " and " + MAX_SLOT_MINUTES);
+        }
+        return minutes;
+    }
+
+    private static String formatBoundary(int minute) {
+        return minute == SlotTimes.MINUTES_PER_DAY ? "24:00" : SlotTimes.formatClock(minute);
+    }
+}
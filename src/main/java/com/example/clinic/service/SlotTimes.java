@@ -0,0 +1,95 @@
+package com.example.clinic.service;
+
+/**
+ * Helpers for working with appointment times as minute-of-day values (0..1439).
+ */
+public final class SlotTimes {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    // every minute of the day rendered once, so formatting is an array lookup
+    private static final String[] CLOCK = new String[MINUTES_PER_DAY];
+    private static final String[] DISPLAY = new String[MINUTES_PER_DAY];
+
+    static {
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            int hour = minute / 60;
+            int mm = minute % 60;
+            String twoDigitMinute = (mm < 10 ? "0" : "") + mm;
+            CLOCK[minute] = (hour < 10 ? "0" : "") + hour + ":" + twoDigitMinute;
+            int displayHour = hour % 12 == 0 ? 12 : hour % 12;
+            DISPLAY[minute] = displayHour + ":" + twoDigitMinute + (hour >= 12 ? " PM" : " AM");
+        }
+    }
+
+    private SlotTimes() {
+    }
+
+    public static boolean isValid(int minute) {
+        return minute >= 0 && minute < MINUTES_PER_DAY;
+    }
+
+    /**
+     * Parses "HH:mm" (24-hour) or "h:mm AM"/"h:mm PM" into a minute of the day.
+     * Returns -1 when the value cannot be parsed.
+     */
+    public static int parseMinute(String time) {
+        if (time == null) return -1;
+        String value = time.trim();
+        int colon = value.indexOf(':');
+        if (colon < 1 || colon + 3 > value.length()) return -1;
+
+        int hour = parseDigits(value, 0, colon);
+        int minute = parseDigits(value, colon + 1, colon + 3);
+        if (hour < 0 || minute < 0 || minute > 59) return -1;
+
+        String suffix = value.substring(colon + 3).trim();
+        if (suffix.isEmpty()) {
+            if (hour > 23) return -1;
+        } else if (suffix.equalsIgnoreCase("AM") || suffix.equalsIgnoreCase("PM")) {
+            if (hour < 1 || hour > 12) return -1;
+            hour = hour % 12;
+            if (suffix.equalsIgnoreCase("PM")) hour += 12;
+        } else {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * 24-hour "HH:mm" form of a minute of the day, as exchanged with API clients; null when unset.
+     */
+    public static String formatClock(Short minute) {
+        return minute != null ? formatClock(minute.intValue()) : null;
+    }
+
+    public static String formatClock(int minute) {
+        return isValid(minute) ? CLOCK[minute] : null;
+    }
+
+    /**
+     * 12-hour display form ("9:30 AM") of a minute of the day; "N/A" when unset.
+     */
+    public static String formatDisplay(Short minute) {
+        return minute != null && isValid(minute) ? DISPLAY[minute] : "N/A";
+    }
+
+    /**
+     * {@link #parseMinute} narrowed to the stored column type; null when the value cannot be parsed.
+     */
+    public static Short toStored(String time) {
+        int minute = parseMinute(time);
+        return minute < 0 ? null : (short) minute;
+    }
+
+    private static int parseDigits(String value, int from, int to) {
+        if (to - from < 1 || to - from > 2) return -1;
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
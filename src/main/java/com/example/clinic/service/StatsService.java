@@ -0,0 +1,64 @@
+package com.example.clinic.service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.clinic.dto.AdminStats;
+import com.example.clinic.dto.CountByKey;
+import com.example.clinic.repository.AppointmentHistoryRepository;
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.UserRepository;
+
+@Service
+public class StatsService {
+
+    private final UserRepository userRepository;
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentHistoryRepository historyRepository;
+
+    public StatsService(UserRepository userRepository, DoctorRepository doctorRepository,
+            AppointmentRepository appointmentRepository, AppointmentHistoryRepository historyRepository) {
+        this.userRepository = userRepository;
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.historyRepository = historyRepository;
+    }
+
+    // Every figure is a COUNT/GROUP BY in the database; no rows are materialized. Appointment figures
+    // cover the archived rows too, so they do not shrink as the archiver runs and match the export
+    @Transactional(readOnly = true)
+    public AdminStats adminStats() {
+        return new AdminStats(
+                userRepository.count(),
+                doctorRepository.count(),
+                appointmentRepository.count() + historyRepository.count(),
+                merge(appointmentRepository.countByStatus(), historyRepository.countByStatus()),
+                // only appointments from 30 days back are archived, never today's
+                appointmentRepository.countByDoctorOn(LocalDate.now()),
+                merge(appointmentRepository.countBySpecialty(), historyRepository.countBySpecialty()),
+                doctorRepository.countBySpecialty());
+    }
+
+    // sums the counts per key, largest first as the live queries order them
+    private static List<CountByKey> merge(List<CountByKey> live, List<CountByKey> archived) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (CountByKey row : live) {
+            counts.merge(row.getKey(), row.getCount(), Long::sum);
+        }
+        for (CountByKey row : archived) {
+            counts.merge(row.getKey(), row.getCount(), Long::sum);
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new CountByKey(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(CountByKey::getCount).reversed())
+                .toList();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.clinic.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.clinic.repository.AppointmentTombstoneRepository;
+
+/**
+ * Background job that drops deletion tombstones older than the retention period, so the table does not
+ * grow with every delete and archive run. The highest version dropped becomes the feed's horizon: a
+ * client asking for changes since an older version is told to reload instead of silently missing deletions.
+ */
+@Component
+public class TombstoneSweeper {
+
+    private final AppointmentTombstoneRepository tombstoneRepository;
+    private final AppointmentChangeClock changeClock;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+
+    public TombstoneSweeper(AppointmentTombstoneRepository tombstoneRepository, AppointmentChangeClock changeClock,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${clinic.changes.tombstone-retention-days:7}") int retentionDays) {
+        this.tombstoneRepository = tombstoneRepository;
+        this.changeClock = changeClock;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(initialDelayString = "${clinic.changes.tombstone-sweep-ms:3600000}",
+               fixedDelayString = "${clinic.changes.tombstone-sweep-ms:3600000}")
+    public void sweep() {
+        try {
+            Integer removed = transactionTemplate.execute(status -> sweepOnce());
+            if (removed != null && removed > 0) {
+                System.out.println("Dropped " + removed + " appointment tombstones older than " + retentionDays + " days");
+            }
+        } catch (Exception e) {
+            System.err.println("Tombstone sweep failed: " + e.getMessage());
+        }
+    }
+
+    private int sweepOnce() {
+        long upTo = tombstoneRepository.maxChangeVersionDeletedBefore(LocalDateTime.now().minusDays(retentionDays));
+        // never past the watermark: a delete below it that is still open would land under the horizon unseen
+        upTo = Math.min(upTo, changeClock.watermark());
+        if (upTo <= 0) {
+            return 0;
+        }
+        tombstoneRepository.advanceSweptThrough(upTo);
+        return tombstoneRepository.deleteUpTo(upTo);
+    }
+}
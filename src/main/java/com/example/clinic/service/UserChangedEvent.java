@@ -0,0 +1,8 @@
+package com.example.clinic.service;
+
+/**
+ * Published whenever a user's account is changed or removed (password, roles, profile, deletion), so
+ * anything holding a copy of it, such as the login cache, can drop it.
+ */
+public record UserChangedEvent(String username) {
+}
@@ -2,6 +2,7 @@ package com.example.clinic.service;
 
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.example.clinic.model.User;
@@ -11,13 +12,17 @@ import com.example.clinic.repository.UserRepository;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getUsername()));
+        return saved;
     }
 
     public Optional<User> findByUsername(String username) {
@@ -28,7 +33,12 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    public java.util.List<User> findAllWithRoles() {
+        return userRepository.findAllWithRoles();
+    }
+
     public void deleteByUsername(String username) {
         userRepository.findByUsername(username).ifPresent(userRepository::delete);
+        eventPublisher.publishEvent(new UserChangedEvent(username));
     }
 }
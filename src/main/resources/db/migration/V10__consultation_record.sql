@@ -0,0 +1,19 @@
+-- Clinical text moves out of the appointment row into its own table, keyed by appointment id,
+-- so list queries and cached appointments stop carrying up to 5000 characters per row.
+CREATE TABLE IF NOT EXISTS consultation_record (
+    appointment_id BIGINT NOT NULL,
+    diagnosis VARCHAR(2000),
+    prescription VARCHAR(2000),
+    doctor_notes VARCHAR(1000),
+    recorded_at TIMESTAMP,
+    PRIMARY KEY (appointment_id),
+    CONSTRAINT fk_consultation_record_appointment FOREIGN KEY (appointment_id) REFERENCES appointment (id) ON DELETE CASCADE
+);
+
+INSERT INTO consultation_record (appointment_id, diagnosis, prescription, doctor_notes, recorded_at)
+SELECT id, diagnosis, prescription, doctor_notes, consultation_end_time FROM appointment
+WHERE diagnosis IS NOT NULL OR prescription IS NOT NULL OR doctor_notes IS NOT NULL;
+
+ALTER TABLE appointment DROP COLUMN diagnosis;
+ALTER TABLE appointment DROP COLUMN prescription;
+ALTER TABLE appointment DROP COLUMN doctor_notes;
@@ -0,0 +1,17 @@
+-- Change feed for dashboards: every appointment write stamps a monotonically increasing version, and
+-- deletions leave a tombstone carrying the version of the delete, so clients can ask for everything
+-- changed after the version they last saw. Rows that predate the feed start at version 0.
+ALTER TABLE appointment ADD COLUMN change_version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_appointment_change_version ON appointment (change_version);
+
+CREATE TABLE IF NOT EXISTS appointment_tombstone (
+    appointment_id BIGINT NOT NULL,
+    doctor_id BIGINT,
+    patient_username VARCHAR(255),
+    change_version BIGINT NOT NULL,
+    deleted_at TIMESTAMP,
+    PRIMARY KEY (appointment_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_appointment_tombstone_version ON appointment_tombstone (change_version);
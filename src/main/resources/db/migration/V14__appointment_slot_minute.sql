@@ -0,0 +1,11 @@
+-- A cancelled appointment keeps its time for display but no longer holds the slot: slot_minute mirrors
+-- start_minute except on Cancelled rows, where it is empty, and the unique slot index moves onto it.
+-- Live rows are unique on start_minute already (V7), so the new index cannot fail.
+ALTER TABLE appointment ADD COLUMN slot_minute SMALLINT;
+
+UPDATE appointment SET slot_minute = start_minute WHERE status IS NULL OR status <> 'Cancelled';
+
+-- the slot guard may exist as a table constraint (V1, ddl-auto) or as a plain index (V5/V7)
+ALTER TABLE appointment DROP CONSTRAINT IF EXISTS uk_appointment_doctor_slot;
+DROP INDEX IF EXISTS uk_appointment_doctor_slot;
+CREATE UNIQUE INDEX uk_appointment_doctor_slot ON appointment (doctor_id, date, slot_minute);
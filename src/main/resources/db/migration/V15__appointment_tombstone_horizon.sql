@@ -0,0 +1,9 @@
+-- Tombstones are not kept forever (TombstoneSweeper). The highest version swept is recorded here, so the
+-- change feed can tell a client whose cursor is older that it has missed deletions and must reload.
+CREATE TABLE IF NOT EXISTS appointment_tombstone_horizon (
+    id INT NOT NULL,
+    swept_through BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO appointment_tombstone_horizon (id, swept_through) VALUES (1, 0);
@@ -0,0 +1,52 @@
+-- Baseline schema as previously generated by Hibernate (ddl-auto=update).
+-- Databases created before migrations were introduced already have these tables;
+-- every statement is IF NOT EXISTS so this script is a no-op for them.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL,
+    username VARCHAR(255),
+    password VARCHAR(255),
+    full_name VARCHAR(255),
+    email VARCHAR(255),
+    phone VARCHAR(255),
+    date_of_birth DATE,
+    gender VARCHAR(255),
+    blood_type VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT NOT NULL,
+    roles VARCHAR(255),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS doctor (
+    id BIGINT NOT NULL,
+    name VARCHAR(255),
+    specialty VARCHAR(255),
+    username VARCHAR(255),
+    available_slots VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS appointment (
+    id BIGINT NOT NULL,
+    patient_id BIGINT,
+    doctor_id BIGINT,
+    date DATE,
+    time VARCHAR(255),
+    patient_name VARCHAR(255),
+    reason VARCHAR(255),
+    confirmed BOOLEAN NOT NULL,
+    status VARCHAR(255),
+    consultation_start_time TIMESTAMP,
+    consultation_end_time TIMESTAMP,
+    diagnosis VARCHAR(2000),
+    prescription VARCHAR(2000),
+    doctor_notes VARCHAR(1000),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_appointment_doctor_slot UNIQUE (doctor_id, date, time),
+    CONSTRAINT fk_appointment_patient FOREIGN KEY (patient_id) REFERENCES users (id),
+    CONSTRAINT fk_appointment_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id)
+);
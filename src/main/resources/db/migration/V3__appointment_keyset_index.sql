@@ -0,0 +1,2 @@
+-- Supports keyset pagination of GET /api/appointments, which orders by (date, time, id)
+CREATE INDEX IF NOT EXISTS idx_appointment_date_time_id ON appointment (date, time, id);
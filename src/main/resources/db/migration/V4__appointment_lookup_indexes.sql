@@ -0,0 +1,4 @@
+-- Dashboard lookups: a patient's / doctor's upcoming appointments, and filtering by status
+CREATE INDEX IF NOT EXISTS idx_appointment_patient_date ON appointment (patient_id, date);
+CREATE INDEX IF NOT EXISTS idx_appointment_doctor_date ON appointment (doctor_id, date);
+CREATE INDEX IF NOT EXISTS idx_appointment_status ON appointment (status);
@@ -0,0 +1,26 @@
+-- Cold storage for finished appointments, filled in batches by AppointmentArchiver.
+-- No foreign keys: history must outlive deleted patients and doctors.
+CREATE TABLE IF NOT EXISTS appointment_history (
+    id BIGINT NOT NULL,
+    patient_id BIGINT,
+    patient_username VARCHAR(255),
+    patient_name VARCHAR(255),
+    doctor_id BIGINT,
+    doctor_name VARCHAR(255),
+    doctor_specialty VARCHAR(255),
+    date DATE,
+    time VARCHAR(255),
+    reason VARCHAR(255),
+    confirmed BOOLEAN NOT NULL,
+    status VARCHAR(255),
+    consultation_start_time TIMESTAMP,
+    consultation_end_time TIMESTAMP,
+    diagnosis VARCHAR(2000),
+    prescription VARCHAR(2000),
+    doctor_notes VARCHAR(1000),
+    archived_at TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_appointment_history_patient ON appointment_history (patient_username, id);
+CREATE INDEX IF NOT EXISTS idx_appointment_history_doctor ON appointment_history (doctor_id, id);
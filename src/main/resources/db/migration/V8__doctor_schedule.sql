@@ -0,0 +1,32 @@
+-- Structured doctor schedules: a weekly template of working intervals plus dated exceptions
+-- (leave or extra hours). Times are minutes of the day, end exclusive. Filled from the legacy
+-- doctor.available_slots list by V9.
+ALTER TABLE doctor ADD COLUMN slot_duration_minutes INTEGER;
+
+CREATE TABLE IF NOT EXISTS schedule_rule (
+    id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    day_of_week VARCHAR(16) NOT NULL,
+    start_minute SMALLINT NOT NULL,
+    end_minute SMALLINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_schedule_rule_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS schedule_exception (
+    id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    start_minute SMALLINT,
+    end_minute SMALLINT,
+    available BOOLEAN NOT NULL,
+    note VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_schedule_exception_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_schedule_rule_doctor ON schedule_rule (doctor_id);
+CREATE INDEX IF NOT EXISTS idx_schedule_exception_doctor_date ON schedule_exception (doctor_id, start_date);
+
+CREATE SEQUENCE schedule_exception_seq START WITH 1 INCREMENT BY 50;
@@ -32,19 +32,32 @@ function bookSlot(container, time){
         .catch(e=>alert('Booking failed: '+e));
 }
 
+// Subscribes to the destinations this user may see: their own queue, plus the doctor's topic and the
+// admin topic when the page declares them. Anonymous pages don't connect (the server would refuse).
 function connectWebSocket(){
+    const user = metaContent('clinic-user');
+    if (!user || typeof SockJS === 'undefined') return;
     try{
         const socket = new SockJS('/ws');
         const stompClient = Stomp.over(socket);
         stompClient.connect({}, function(frame){
             console.log('Connected: ' + frame);
-            stompClient.subscribe('/topic/appointments', function(message){
+            const onUpdate = function(message){
                 const payload = JSON.parse(message.body);
                 console.log('Appointment update', payload);
                 // TODO: adjust UI to mark slot as taken
-            });
+            };
+            stompClient.subscribe('/user/queue/appointments', onUpdate);
+            const doctorId = metaContent('clinic-doctor-id');
+            if (doctorId) stompClient.subscribe('/topic/doctors/' + doctorId + '/appointments', onUpdate);
+            if (metaContent('clinic-admin')) stompClient.subscribe('/topic/admin/appointments', onUpdate);
         });
     }catch(e){
         console.warn('WebSocket not available', e);
     }
 }
+
+function metaContent(name){
+    const el = document.querySelector('meta[name="' + name + '"]');
+    return el ? el.getAttribute('content') : null;
+}
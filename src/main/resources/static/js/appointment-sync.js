@@ -0,0 +1,102 @@
+// Keeps a dashboard's appointment list current without reloading the page.
+// Changes arrive two ways with the same shape: pushed over STOMP (/ws) and fetched from
+// /api/appointments/changes?since=N after the page's own actions and on (re)connect. Each change is
+// handed to options.apply(change) once, newest version per appointment wins, so both paths can overlap.
+function AppointmentSync(options){
+    this.version = Number(options.version || 0);
+    this.doctorId = options.doctorId || null;
+    this.destination = options.destination;
+    this.apply = options.apply;
+    this.seen = {};
+    this.syncing = null;
+}
+
+AppointmentSync.prototype.start = function(){
+    this.connect();
+};
+
+// Fetch everything after the last version seen; pages until the feed is drained
+AppointmentSync.prototype.sync = function(){
+    if (this.syncing) return this.syncing;
+    const self = this;
+    const page = function(){
+        let url = '/api/appointments/changes?since=' + self.version;
+        if (self.doctorId) url += '&doctorId=' + encodeURIComponent(self.doctorId);
+        return fetch(url)
+            .then(r => r.json())
+            .then(data => {
+                if (data.resync) {
+                    // deletions this far back are no longer kept; only a full reload is accurate
+                    window.location.reload();
+                    return null;
+                }
+                (data.changes || []).forEach(change => self.accept(change));
+                self.version = Math.max(self.version, data.version);
+                return data.hasMore ? page() : null;
+            });
+    };
+    this.syncing = page()
+        .catch(e => console.warn('Appointment sync failed', e))
+        .finally(() => { self.syncing = null; });
+    return this.syncing;
+};
+
+AppointmentSync.prototype.accept = function(change){
+    const known = this.seen[change.id] || 0;
+    if (change.changeVersion < known) return;
+    this.seen[change.id] = change.changeVersion;
+    this.apply(change);
+};
+
+AppointmentSync.prototype.connect = function(){
+    if (typeof SockJS === 'undefined' || typeof Stomp === 'undefined') return;
+    const self = this;
+    const stompClient = Stomp.over(new SockJS('/ws'));
+    stompClient.debug = null;
+    stompClient.connect({}, function(){
+        stompClient.subscribe(self.destination, function(message){
+            self.accept(JSON.parse(message.body));
+        });
+        // catch up on anything missed while (re)connecting
+        self.sync();
+    }, function(){
+        // dropped: retry shortly; the sync on connect fills the gap
+        setTimeout(() => self.connect(), 5000);
+    });
+};
+
+// Helpers shared by the dashboard renderers
+function escapeHtml(value){
+    if (value === null || value === undefined) return '';
+    return String(value).replace(/[&<>"']/g, c => ({'&':'&amp;','<':'&lt;','>':'&gt;','"':'&quot;',"'":'&#39;'}[c]));
+}
+
+// Orders list elements by date, then time, then id, like the server-rendered lists
+function compareAppointmentKeys(a, b){
+    if (a.date !== b.date) return (a.date || '') < (b.date || '') ? -1 : 1;
+    if (a.time !== b.time) return (a.time || '') < (b.time || '') ? -1 : 1;
+    return Number(a.id) - Number(b.id);
+}
+
+// Replaces, inserts (in order) or removes the element for one appointment inside container
+function patchAppointmentElement(container, change, element){
+    const existing = container.querySelector('[data-appointment-key="' + change.id + '"]');
+    if (!element){
+        if (existing) existing.remove();
+        return;
+    }
+    element.setAttribute('data-appointment-key', change.id);
+    element.dataset.date = change.date || '';
+    element.dataset.time = change.time || '';
+    if (existing) existing.remove();
+    const key = {id: change.id, date: element.dataset.date, time: element.dataset.time};
+    const next = Array.from(container.querySelectorAll('[data-appointment-key]')).find(el =>
+        compareAppointmentKeys(key, {id: el.getAttribute('data-appointment-key'), date: el.dataset.date, time: el.dataset.time}) < 0);
+    container.insertBefore(element, next || null);
+}
+
+function elementFromHtml(html){
+    const template = document.createElement('template');
+    template.innerHTML = html.trim();
+    return template.content.firstElementChild;
+}
@@ -0,0 +1,97 @@
+package com.example.clinic.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.clinic.service.PrescriptionLayout;
+import com.example.clinic.service.PrescriptionRenderer;
+
+/**
+ * Renders per second and PNG bytes per image for {@link PrescriptionRenderer}, with more threads than
+ * pooled render contexts so waiting for a canvas is part of the measurement.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.clinic.benchmark.PrescriptionRendererBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Threads(8)
+public class PrescriptionRendererBenchmark {
+
+    @Param({"0.1", "0.9"})
+    public float compressionQuality;
+
+    @Param({"4"})
+    public int renderContexts;
+
+    private PrescriptionRenderer renderer;
+    private List<PrescriptionLayout.Element> content;
+
+    /**
+     * Reported next to the throughput: total bytes produced and images rendered, per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Output {
+        public long pngBytes;
+        public long images;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pngBytes = 0;
+            images = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        renderer = new PrescriptionRenderer(compressionQuality, renderContexts);
+        content = PrescriptionLayout.content(new PrescriptionLayout.Details("Dr. Ada Lovelace", "General Medicine",
+                "Jane Patient", "PAT123456", "2024-03-01",
+                "Seasonal influenza with mild dehydration and a persistent dry cough lasting several days",
+                "Paracetamol 500 mg every 6 hours as needed; oral rehydration salts twice daily for 3 days",
+                "Review in one week if the fever persists", LocalDateTime.of(2024, 3, 1, 10, 30)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderer.shutdown();
+    }
+
+    @Benchmark
+    public byte[] renderPng(Output output) throws IOException {
+        byte[] png = renderer.renderPng(content);
+        output.pngBytes += png.length;
+        output.images++;
+        return png;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PrescriptionRendererBenchmark.class.getSimpleName()).build()).run();
+    }
+}
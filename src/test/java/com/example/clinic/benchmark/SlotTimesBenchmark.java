@@ -0,0 +1,130 @@
+package com.example.clinic.benchmark;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.clinic.service.SlotTimes;
+
+/**
+ * The string appointment time the entities used to carry ("HH:mm" in a VARCHAR, reformatted on every
+ * read) against the start_minute SMALLINT and {@link SlotTimes} lookups, over a dashboard-sized page of
+ * rows: formatting for display, parsing client input, and ordering a day's slots.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.clinic.benchmark.SlotTimesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotTimesBenchmark {
+
+    private static final int ROWS = 500;
+
+    private String[] clockTimes;
+    private Short[] minutes;
+    private short[] sortScratch;
+    private String[] sortScratchStrings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        clockTimes = new String[ROWS];
+        minutes = new Short[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            // quarter-hour slots between 08:00 and 18:00, like the seeded schedules
+            int minute = 8 * 60 + 15 * random.nextInt(40);
+            clockTimes[i] = SlotTimes.formatClock(minute);
+            minutes[i] = (short) minute;
+        }
+        sortScratch = new short[ROWS];
+        sortScratchStrings = new String[ROWS];
+    }
+
+    @Benchmark
+    public void formatDisplayLegacy(Blackhole blackhole) {
+        for (String time : clockTimes) {
+            blackhole.consume(legacyFormattedTime(time));
+        }
+    }
+
+    @Benchmark
+    public void formatDisplaySlotTimes(Blackhole blackhole) {
+        for (Short minute : minutes) {
+            blackhole.consume(SlotTimes.formatDisplay(minute));
+        }
+    }
+
+    @Benchmark
+    public void parseLegacy(Blackhole blackhole) {
+        for (String time : clockTimes) {
+            blackhole.consume(LocalTime.parse(time).toSecondOfDay() / 60);
+        }
+    }
+
+    @Benchmark
+    public void parseSlotTimes(Blackhole blackhole) {
+        for (String time : clockTimes) {
+            blackhole.consume(SlotTimes.parseMinute(time));
+        }
+    }
+
+    @Benchmark
+    public String[] sortLegacy() {
+        System.arraycopy(clockTimes, 0, sortScratchStrings, 0, ROWS);
+        Arrays.sort(sortScratchStrings);
+        return sortScratchStrings;
+    }
+
+    @Benchmark
+    public short[] sortStartMinute() {
+        for (int i = 0; i < ROWS; i++) {
+            sortScratch[i] = minutes[i];
+        }
+        Arrays.sort(sortScratch);
+        return sortScratch;
+    }
+
+    // Appointment.getFormattedTime() as it was before start_minute, kept here as the baseline
+    private static String legacyFormattedTime(String time) {
+        if (time == null) return "N/A";
+        if (time.toUpperCase().contains("AM") || time.toUpperCase().contains("PM")) {
+            return time;
+        }
+        try {
+            String[] parts = time.split(":");
+            int hour = Integer.parseInt(parts[0]);
+            int minute = Integer.parseInt(parts[1]);
+            String ampm = (hour >= 12) ? "PM" : "AM";
+            if (hour == 0) hour = 12;
+            if (hour > 12) hour -= 12;
+            return String.format("%d:%02d %s", hour, minute, ampm);
+        } catch (Exception e) {
+            return time;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SlotTimesBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.clinic.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SlowConsumerGuardTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final MessageHandler handler = mock(MessageHandler.class);
+    private final WebSocketHandler stompHandler = mock(WebSocketHandler.class);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private SlowConsumerGuard guard;
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void disconnectPolicyClosesASessionWithTooManyPendingMessages() throws Exception {
+        guard = new SlowConsumerGuard(meterRegistry, "disconnect", 60_000, 2, 60_000);
+        connect();
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+        }
+        assertEquals(3, gauge("clinic.websocket.outbound.pending"));
+
+        assertNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+        verify(session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, counter("clinic.websocket.disconnected"));
+
+        // further messages for the closing session are dropped without another close
+        assertNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+        assertEquals(2, counter("clinic.websocket.dropped"));
+        assertEquals(1, counter("clinic.websocket.disconnected"));
+    }
+
+    @Test
+    void dropPolicyDropsUntilTheSessionCatchesUp() throws Exception {
+        guard = new SlowConsumerGuard(meterRegistry, "drop", 60_000, 2, 60_000);
+        connect();
+
+        Message<?>[] sent = new Message<?>[3];
+        for (int i = 0; i < sent.length; i++) {
+            sent[i] = guard.preSend(message(SimpMessageType.MESSAGE), channel);
+        }
+        assertNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+        assertEquals(1, counter("clinic.websocket.dropped"));
+        assertEquals(1, gauge("clinic.websocket.sessions.slow"));
+
+        // connection-level frames still go through to a slow session
+        assertNotNull(guard.preSend(message(SimpMessageType.HEARTBEAT), channel));
+        guard.afterMessageHandled(message(SimpMessageType.HEARTBEAT), channel, handler, null);
+
+        for (Message<?> message : sent) {
+            guard.afterMessageHandled(message, channel, handler, null);
+        }
+        assertEquals(0, gauge("clinic.websocket.outbound.pending"));
+        assertNotNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    void aStalledWriteMakesTheSessionSlowAndIsClosedAfterTheSendTimeLimit() throws Exception {
+        guard = new SlowConsumerGuard(meterRegistry, "drop", 50, 500, 300);
+        WebSocketSession tracked = connect();
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        Thread writer = new Thread(() -> {
+            try {
+                tracked.sendMessage(new TextMessage("MESSAGE"));
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        writer.start();
+        try {
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            // past slow-after but within the send time limit: dropped, session kept
+            Thread.sleep(120);
+            assertNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+            verify(session, never()).close(any(CloseStatus.class));
+
+            // stuck for longer than the send time limit: closed even under the drop policy
+            Thread.sleep(300);
+            assertNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+            verify(session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        } finally {
+            release.countDown();
+            writer.join(5000);
+        }
+    }
+
+    @Test
+    void closedSessionsAreForgotten() throws Exception {
+        guard = new SlowConsumerGuard(meterRegistry, "disconnect", 60_000, 2, 60_000);
+        WebSocketHandler decorated = guard.decorate(stompHandler);
+        when(session.getId()).thenReturn("s1");
+        decorated.afterConnectionEstablished(session);
+        assertEquals(1, gauge("clinic.websocket.sessions.active"));
+
+        decorated.afterConnectionClosed(session, CloseStatus.NORMAL);
+        assertEquals(0, gauge("clinic.websocket.sessions.active"));
+        // messages for an unknown session are not tracked at all
+        assertNotNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+        assertEquals(0, gauge("clinic.websocket.outbound.pending"));
+    }
+
+    // registers the session and returns the tracking wrapper the STOMP handler writes through
+    private WebSocketSession connect() throws Exception {
+        when(session.getId()).thenReturn("s1");
+        guard.decorate(stompHandler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> tracked = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(stompHandler).afterConnectionEstablished(tracked.capture());
+        return tracked.getValue();
+    }
+
+    private static Message<byte[]> message(SimpMessageType type) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId("s1");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).functionCounter().count();
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.clinic.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.clinic.dto.AppointmentChange;
+import com.example.clinic.model.Role;
+import com.example.clinic.model.User;
+import com.example.clinic.repository.UserRepository;
+import com.example.clinic.service.AppointmentEventPublisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Soak test for {@link SlowConsumerGuard}: thousands of SockJS/STOMP sessions subscribe to the admin topic
+ * and then never read again, while appointment events are broadcast to all of them in rounds. The pending
+ * gauges must stay within max-pending per session and the heap after GC must not grow from round to round.
+ *
+ * Excluded from the default build; run with {@code mvn test -Psoak} (-Dsoak.sessions=, -Dsoak.rounds=).
+ */
+@Tag("soak")
+// a full outbound queue rejects the broadcast to every session, each logged with a stack trace by the broker
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler=OFF")
+@ActiveProfiles("test")
+class SlowConsumerSoakTest {
+
+    /**
+     * Loopback sockets get send buffers of several MB, which would swallow the whole soak without a single
+     * write blocking; shrink Tomcat's to what a congested client link would give.
+     */
+    @TestConfiguration
+    static class SmallSendBuffers {
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> smallSocketSendBuffer() {
+            return factory -> factory.addConnectorCustomizers(
+                    connector -> connector.setProperty("socket.txBufSize", "8192"));
+        }
+    }
+
+    private static final int SESSIONS = Integer.getInteger("soak.sessions", 2000);
+    private static final int ROUNDS = Integer.getInteger("soak.rounds", 5);
+    private static final int EVENTS_PER_ROUND = 200;
+    // a round is spread over longer than slow-after-ms, so writes stuck behind a stalled reader get noticed
+    private static final long ROUND_MILLIS = 4000;
+    // what one round may leave behind on the heap once collected, across all sessions
+    private static final long HEAP_GROWTH_LIMIT = 64L * 1024 * 1024;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private SimpUserRegistry userRegistry;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${clinic.websocket.slow-consumer.max-pending}")
+    private int maxPending;
+    @Value("${clinic.websocket.outbound.queue-capacity}")
+    private int outboundQueueCapacity;
+    @Value("${clinic.websocket.outbound.max-threads}")
+    private int outboundThreads;
+
+    private final List<Socket> clients = new ArrayList<>();
+
+    @AfterEach
+    void closeClients() {
+        for (Socket client : clients) {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+                // already reset by the server
+            }
+        }
+    }
+
+    @Test
+    void stalledSessionsKeepPendingMessagesAndHeapBounded() throws Exception {
+        String cookie = login(createAdmin());
+        for (int i = 0; i < SESSIONS; i++) {
+            clients.add(openStalledSession(cookie, i));
+        }
+        waitForSubscriptions();
+
+        long baseline = heapAfterGc();
+        List<Long> heapAfterRounds = new ArrayList<>();
+        AtomicLong worstSessionPending = new AtomicLong();
+        AtomicLong worstTotalPending = new AtomicLong();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                worstSessionPending.accumulateAndGet((long) gauge("clinic.websocket.outbound.pending.max"), Math::max);
+                worstTotalPending.accumulateAndGet((long) gauge("clinic.websocket.outbound.pending"), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }, "soak-sampler");
+        sampler.start();
+
+        long id = 900_000_000L;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < EVENTS_PER_ROUND; i++) {
+                messagingTemplate.convertAndSend(AppointmentEventPublisher.ADMIN_TOPIC, event(id++));
+                Thread.sleep(ROUND_MILLIS / EVENTS_PER_ROUND);
+            }
+            heapAfterRounds.add(heapAfterGc());
+        }
+        sampler.interrupt();
+        sampler.join();
+
+        String report = "sessions=" + SESSIONS + " heapBaselineMB=" + mb(baseline)
+                + " heapAfterRoundsMB=" + heapAfterRounds.stream().map(SlowConsumerSoakTest::mb).toList()
+                + " worstSessionPending=" + worstSessionPending + " worstTotalPending=" + worstTotalPending
+                + " dropped=" + counter("clinic.websocket.dropped") + " disconnected=" + counter("clinic.websocket.disconnected");
+        System.out.println("Slow-consumer soak: " + report);
+
+        // the clients really stalled: the guard had to step in
+        assertTrue(counter("clinic.websocket.dropped") + counter("clinic.websocket.disconnected") > 0, report);
+        // the broker thread checks and counts one message at a time, so one past the limit at most
+        assertTrue(worstSessionPending.get() <= maxPending + 1, report);
+        // all sessions together never hold more than the outbound pool has room for; the rest is rejected
+        assertTrue(worstTotalPending.get() <= outboundQueueCapacity + outboundThreads + 1, report);
+        long first = heapAfterRounds.get(0);
+        long last = heapAfterRounds.get(heapAfterRounds.size() - 1);
+        assertTrue(last - first < HEAP_GROWTH_LIMIT, report);
+    }
+
+    private void waitForSubscriptions() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 120_000;
+        int subscribed = 0;
+        while (System.currentTimeMillis() < deadline) {
+            subscribed = userRegistry.findSubscriptions(
+                    s -> AppointmentEventPublisher.ADMIN_TOPIC.equals(s.getDestination())).size();
+            if (subscribed == SESSIONS) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(SESSIONS, subscribed, "sessions subscribed");
+    }
+
+    /**
+     * A raw WebSocket on the SockJS websocket transport: connect and subscribe, wait for CONNECTED, and from
+     * then on never read, so the server's writes back up into the (small) socket buffers.
+     */
+    private Socket openStalledSession(String cookie, int index) throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress("localhost", port), 10_000);
+        socket.setSoTimeout(30_000);
+        OutputStream out = socket.getOutputStream();
+        InputStream in = socket.getInputStream();
+
+        byte[] key = new byte[16];
+        ThreadLocalRandom.current().nextBytes(key);
+        String request = "GET /ws/000/soak" + index + "/websocket HTTP/1.1\r\n"
+                + "Host: localhost:" + port + "\r\n"
+                + "Upgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + Base64.getEncoder().encodeToString(key) + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n"
+                + "Cookie: " + cookie + "\r\n\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        String status = readHttpHead(in);
+        assertTrue(status.startsWith("HTTP/1.1 101"), status);
+
+        readFrame(in); // SockJS open frame "o"
+        writeText(out, "[\"CONNECT\\naccept-version:1.2\\nheart-beat:0,0\\n\\n\\u0000\"]");
+        String connected;
+        do {
+            connected = readFrame(in);
+        } while (!connected.contains("CONNECTED"));
+        writeText(out, "[\"SUBSCRIBE\\nid:sub-0\\ndestination:" + AppointmentEventPublisher.ADMIN_TOPIC + "\\n\\n\\u0000\"]");
+        return socket;
+    }
+
+    private static String readHttpHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b == -1) {
+                throw new IOException("connection closed during the handshake");
+            }
+            head.write(b);
+            matched = (b == "\r\n\r\n".charAt(matched)) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        return head.toString(StandardCharsets.US_ASCII);
+    }
+
+    // one unmasked server frame; SockJS sends everything as text
+    private static String readFrame(InputStream in) throws IOException {
+        int first = in.read();
+        int second = in.read();
+        if (first == -1 || second == -1) {
+            throw new IOException("connection closed");
+        }
+        long length = second & 0x7F;
+        if (length == 126) {
+            length = (in.read() << 8) | in.read();
+        } else if (length == 127) {
+            length = 0;
+            for (int i = 0; i < 8; i++) {
+                length = (length << 8) | in.read();
+            }
+        }
+        return new String(in.readNBytes((int) length), StandardCharsets.UTF_8);
+    }
+
+    // clients must mask what they send
+    private static void writeText(OutputStream out, String text) throws IOException {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 14);
+        frame.write(0x81);
+        if (payload.length < 126) {
+            frame.write(0x80 | payload.length);
+        } else {
+            frame.write(0x80 | 126);
+            frame.write(payload.length >>> 8);
+            frame.write(payload.length & 0xFF);
+        }
+        frame.write(mask);
+        for (int i = 0; i < payload.length; i++) {
+            frame.write(payload[i] ^ mask[i % 4]);
+        }
+        out.write(frame.toByteArray());
+        out.flush();
+    }
+
+    private String createAdmin() {
+        String username = "soakadmin" + System.nanoTime();
+        User admin = new User();
+        admin.setUsername(username);
+        admin.setPassword(passwordEncoder.encode("secret"));
+        admin.setRoles(Set.of(Role.ROLE_ADMIN));
+        userRepository.save(admin);
+        return username;
+    }
+
+    // form login as the dashboard does; returns the Cookie header of the authenticated session
+    private String login(String username) throws Exception {
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "username=" + username + "&password=secret&loginType=admin"))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        assertTrue(location.endsWith("/admin/dashboard?success=login"), "login failed: " + location);
+        String setCookie = response.headers().firstValue("Set-Cookie").orElseThrow();
+        return setCookie.substring(0, setCookie.indexOf(';'));
+    }
+
+    // about 2 KB on the wire, a long free-text reason as patients do write them
+    private static final String REASON = "Follow-up consultation, ".repeat(80);
+
+    private static AppointmentChange event(long id) {
+        return new AppointmentChange(id, id, false, 1L, "Dr Soak", "General Medicine", "PATSOAK", "Soak Patient",
+                LocalDate.now().plusDays(1), (short) 540, "Pending", false, REASON, null, null);
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).functionCounter().count();
+    }
+
+    private static long heapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long mb(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
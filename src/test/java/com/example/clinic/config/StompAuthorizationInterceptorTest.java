@@ -0,0 +1,145 @@
+package com.example.clinic.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import com.example.clinic.model.Doctor;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.service.AppointmentEventPublisher;
+
+class StompAuthorizationInterceptorTest {
+
+    private static final String USER_QUEUE = "/user" + AppointmentEventPublisher.USER_QUEUE;
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private StompAuthorizationInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        DoctorRepository doctors = mock(DoctorRepository.class);
+        Doctor own = new Doctor();
+        own.setId(7L);
+        own.setUsername("DR1001");
+        when(doctors.findByUsername("DR1001")).thenReturn(Optional.of(own));
+        when(doctors.findByUsername("PAT123")).thenReturn(Optional.empty());
+        interceptor = new StompAuthorizationInterceptor(doctors);
+    }
+
+    @Test
+    void adminMaySubscribeToTheAdminTopicAndAnyDoctor() {
+        Principal admin = user("admin407", "ROLE_ADMIN");
+        assertAllowed(admin, AppointmentEventPublisher.ADMIN_TOPIC);
+        assertAllowed(admin, AppointmentEventPublisher.doctorTopic(7L));
+        assertAllowed(admin, AppointmentEventPublisher.doctorTopic(8L));
+        assertAllowed(admin, USER_QUEUE);
+    }
+
+    @Test
+    void doctorMaySubscribeOnlyToTheirOwnTopic() {
+        Principal doctor = user("DR1001", "ROLE_DOCTOR");
+        assertAllowed(doctor, AppointmentEventPublisher.doctorTopic(7L));
+        assertAllowed(doctor, USER_QUEUE);
+        assertRejected(doctor, AppointmentEventPublisher.doctorTopic(8L));
+        assertRejected(doctor, AppointmentEventPublisher.ADMIN_TOPIC);
+    }
+
+    @Test
+    void patientMaySubscribeOnlyToTheirUserQueue() {
+        Principal patient = user("PAT123", "ROLE_PATIENT");
+        assertAllowed(patient, USER_QUEUE);
+        assertRejected(patient, AppointmentEventPublisher.doctorTopic(7L));
+        assertRejected(patient, AppointmentEventPublisher.ADMIN_TOPIC);
+        // another user's queue is only reachable through /user/..., never directly
+        assertRejected(patient, "/queue/appointments-userabc");
+    }
+
+    @Test
+    void anonymousAndMalformedSubscriptionsAreRejected() {
+        assertRejected(null, USER_QUEUE);
+        assertRejected(user("admin407", "ROLE_ADMIN"), "/topic/doctors/not-a-number/appointments");
+        assertRejected(user("admin407", "ROLE_ADMIN"), "/topic/doctors//appointments");
+        assertRejected(user("admin407", "ROLE_ADMIN"), null);
+    }
+
+    @Test
+    void clientsMaySendOnlyToApplicationDestinations() {
+        Principal admin = user("admin407", "ROLE_ADMIN");
+        assertSendAllowed(admin, "/app/appointments/ping");
+        // a forged event on a broker destination would reach every subscriber as if the server sent it
+        assertSendRejected(admin, AppointmentEventPublisher.ADMIN_TOPIC);
+        assertSendRejected(null, AppointmentEventPublisher.doctorTopic(7L));
+        assertSendRejected(admin, USER_QUEUE);
+        assertSendRejected(admin, "/queue/appointments-userabc");
+        assertSendRejected(admin, "/topic/simp-user-registry");
+        assertSendRejected(admin, "/application");
+        assertSendRejected(admin, null);
+    }
+
+    @Test
+    void connectAndOtherFramesAreNotChecked() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        assertSame(message, interceptor.preSend(message, channel));
+    }
+
+    private void assertSendAllowed(Principal user, String destination) {
+        assertDoesNotThrow(() -> interceptor.preSend(frame(StompCommand.SEND, user, destination), channel),
+                destination);
+    }
+
+    private void assertSendRejected(Principal user, String destination) {
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(frame(StompCommand.SEND, user, destination), channel),
+                String.valueOf(destination));
+    }
+
+    private void assertAllowed(Principal user, String destination) {
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(user, destination), channel), destination);
+    }
+
+    private void assertRejected(Principal user, String destination) {
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(subscribe(user, destination), channel),
+                String.valueOf(destination));
+    }
+
+    private static Message<byte[]> subscribe(Principal user, String destination) {
+        return frame(StompCommand.SUBSCRIBE, user, destination);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, Principal user, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("s1");
+        if (command == StompCommand.SUBSCRIBE) {
+            accessor.setSubscriptionId("sub-1");
+        }
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        accessor.setUser(user);
+        // keep the accessor attached so MessageHeaderAccessor.getAccessor finds it, as on the real channel
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Principal user(String username, String role) {
+        return new UsernamePasswordAuthenticationToken(username, "n/a", AuthorityUtils.createAuthorityList(role));
+    }
+}
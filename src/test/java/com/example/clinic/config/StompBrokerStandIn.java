@@ -0,0 +1,229 @@
+package com.example.clinic.config;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for an external STOMP broker (ActiveMQ, Artemis, RabbitMQ) behind the broker relay.
+ * Speaks just enough STOMP 1.2 over plain TCP: CONNECT, SUBSCRIBE, UNSUBSCRIBE, SEND and DISCONNECT, with
+ * every SEND delivered to every subscription of that exact destination. No heartbeats, no acks.
+ */
+class StompBrokerStandIn implements AutoCloseable {
+
+    /** Destinations of SUBSCRIBE and SEND frames received, in order. */
+    final List<String> subscribed = new CopyOnWriteArrayList<>();
+    final List<String> sent = new CopyOnWriteArrayList<>();
+
+    private final ServerSocket server;
+    private final ExecutorService threads = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stomp-stand-in");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    StompBrokerStandIn() throws IOException {
+        server = new ServerSocket(0, 100, InetAddress.getLoopbackAddress());
+        threads.execute(this::acceptLoop);
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Connection connection = new Connection(server.accept());
+                connections.add(connection);
+                threads.execute(connection::readLoop);
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    private void deliver(String destination, List<String> headerLines, byte[] body) {
+        for (Connection connection : connections) {
+            connection.subscriptions.forEach((id, subscribedTo) -> {
+                if (subscribedTo.equals(destination)) {
+                    List<String> headers = new ArrayList<>();
+                    headers.add("subscription:" + id);
+                    headers.add("message-id:" + messageIds.incrementAndGet());
+                    for (String line : headerLines) {
+                        if (!line.startsWith("content-length:") && !line.startsWith("receipt:")) {
+                            headers.add(line);
+                        }
+                    }
+                    connection.write("MESSAGE", headers, body);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        threads.shutdownNow();
+    }
+
+    private final class Connection {
+
+        final Socket socket;
+        final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void readLoop() {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                while (true) {
+                    String command = readLine(in, true);
+                    if (command == null) {
+                        return;
+                    }
+                    List<String> headerLines = new ArrayList<>();
+                    String line;
+                    while ((line = readLine(in, false)) != null && !line.isEmpty()) {
+                        headerLines.add(line);
+                    }
+                    byte[] body = readBody(in, header(headerLines, "content-length"));
+                    if (!handle(command, headerLines, body)) {
+                        return;
+                    }
+                }
+            } catch (IOException ex) {
+                // connection closed by the relay
+            } finally {
+                close();
+            }
+        }
+
+        // false once the connection should close
+        boolean handle(String command, List<String> headerLines, byte[] body) {
+            switch (command) {
+                case "CONNECT", "STOMP" -> write("CONNECTED", List.of("version:1.2", "heart-beat:0,0"), new byte[0]);
+                case "SUBSCRIBE" -> {
+                    String destination = header(headerLines, "destination");
+                    subscriptions.put(header(headerLines, "id"), destination);
+                    subscribed.add(destination);
+                }
+                case "UNSUBSCRIBE" -> subscriptions.remove(header(headerLines, "id"));
+                case "SEND" -> {
+                    String destination = header(headerLines, "destination");
+                    sent.add(destination);
+                    deliver(destination, headerLines, body);
+                }
+                case "DISCONNECT" -> {
+                    String receipt = header(headerLines, "receipt");
+                    if (receipt != null) {
+                        write("RECEIPT", List.of("receipt-id:" + receipt), new byte[0]);
+                    }
+                    return false;
+                }
+                default -> write("ERROR", List.of("message:unsupported " + command), new byte[0]);
+            }
+            String receipt = header(headerLines, "receipt");
+            if (receipt != null) {
+                write("RECEIPT", List.of("receipt-id:" + receipt), new byte[0]);
+            }
+            return true;
+        }
+
+        synchronized void write(String command, List<String> headerLines, byte[] body) {
+            try {
+                ByteArrayOutputStream frame = new ByteArrayOutputStream(body.length + 256);
+                StringBuilder head = new StringBuilder(command).append('\n');
+                for (String line : headerLines) {
+                    head.append(line).append('\n');
+                }
+                head.append("content-length:").append(body.length).append("\n\n");
+                frame.write(head.toString().getBytes(StandardCharsets.UTF_8));
+                frame.write(body);
+                frame.write(0);
+                OutputStream out = socket.getOutputStream();
+                out.write(frame.toByteArray());
+                out.flush();
+            } catch (IOException ex) {
+                close();
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+
+    // first "name:" header wins, as STOMP 1.2 specifies; values here never need unescaping
+    private static String header(List<String> headerLines, String name) {
+        for (String line : headerLines) {
+            if (line.startsWith(name + ":")) {
+                return line.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    // one line without its EOL; blank lines before a command are heartbeats and skipped; null at end of stream
+    private static String readLine(InputStream in, boolean skipHeartbeats) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                if (skipHeartbeats && line.size() == 0) {
+                    continue;
+                }
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBody(InputStream in, String contentLength) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (contentLength != null) {
+            body.write(in.readNBytes(Integer.parseInt(contentLength.trim())));
+            in.read(); // the terminating NUL
+            return body.toByteArray();
+        }
+        int b;
+        while ((b = in.read()) > 0) {
+            body.write(b);
+        }
+        if (b == -1) {
+            throw new IOException("connection closed inside a frame");
+        }
+        return body.toByteArray();
+    }
+}
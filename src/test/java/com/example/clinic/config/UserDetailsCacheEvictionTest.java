@@ -0,0 +1,78 @@
+package com.example.clinic.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.clinic.service.UserChangedEvent;
+
+/**
+ * The cache is evicted through the real event wiring: only once the change commits, never on rollback,
+ * and right away when the event is published outside a transaction.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserDetailsCacheEvictionTest {
+
+    @Autowired
+    private UserDetailsCache cache;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Integer> loads = new ConcurrentHashMap<>();
+
+    @Test
+    void aChangeEvictsTheUserOnlyOnceItCommits() {
+        String username = cached("committed");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new UserChangedEvent(username));
+            // still the committed row as far as other logins are concerned
+            assertEquals(1, loadsOf(username));
+        });
+        assertEquals(2, loadsOf(username));
+    }
+
+    @Test
+    void aRolledBackChangeKeepsTheEntry() {
+        String username = cached("rolledback");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new UserChangedEvent(username));
+            status.setRollbackOnly();
+        });
+        assertEquals(1, loadsOf(username));
+    }
+
+    @Test
+    void outsideATransactionTheUserIsEvictedRightAway() {
+        String username = cached("direct");
+        eventPublisher.publishEvent(new UserChangedEvent(username));
+        assertEquals(2, loadsOf(username));
+    }
+
+    private String cached(String prefix) {
+        String username = prefix + System.nanoTime();
+        loadsOf(username);
+        return username;
+    }
+
+    // looks the user up, counting the loads; returns how often it had to be loaded so far
+    private int loadsOf(String username) {
+        cache.get(username, () -> {
+            loads.merge(username, 1, Integer::sum);
+            return User.withUsername(username).password("{noop}secret").roles("PATIENT").build();
+        });
+        return loads.getOrDefault(username, 0);
+    }
+}
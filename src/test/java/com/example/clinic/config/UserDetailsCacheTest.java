@@ -0,0 +1,114 @@
+package com.example.clinic.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserDetailsCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void repeatedLoginsAreAnsweredFromTheCacheWithFreshInstances() {
+        UserDetailsCache cache = cache(10, 300);
+
+        UserDetails first = cache.get("alice", loader("alice"));
+        UserDetails second = cache.get("alice", loader("alice"));
+
+        assertEquals(1, loads.get());
+        assertNotSame(first, second);
+        assertEquals("{noop}secret", second.getPassword());
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws Exception {
+        UserDetailsCache cache = cache(10, 1);
+
+        cache.get("alice", loader("alice"));
+        Thread.sleep(1100);
+        cache.get("alice", loader("alice"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void theLeastRecentlyUsedEntryGoesFirst() {
+        UserDetailsCache cache = cache(2, 300);
+
+        cache.get("alice", loader("alice"));
+        cache.get("bob", loader("bob"));
+        cache.get("alice", loader("alice"));
+        cache.get("carol", loader("carol"));
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.size());
+
+        // alice was used after bob, so bob made room for carol
+        cache.get("alice", loader("alice"));
+        assertEquals(3, loads.get());
+        cache.get("bob", loader("bob"));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void aLookupRacingWithAnInvalidationDoesNotStoreWhatItRead() {
+        UserDetailsCache cache = cache(10, 300);
+
+        // the user changes while the old row is being read
+        cache.get("alice", () -> {
+            UserDetails stale = loader("alice").get();
+            cache.invalidate("alice");
+            return stale;
+        });
+        assertEquals(0, cache.size());
+
+        cache.get("alice", loader("alice"));
+        cache.get("alice", loader("alice"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+        UserDetailsCache cache = cache(10, 300);
+
+        cache.get("alice", loader("alice"));
+        cache.invalidate("alice");
+        cache.get("alice", loader("alice"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedLookupsAreNotCached() {
+        UserDetailsCache cache = cache(10, 300);
+        Supplier<UserDetails> unknown = () -> {
+            loads.incrementAndGet();
+            throw new UsernameNotFoundException("nobody");
+        };
+
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("nobody", unknown));
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("nobody", unknown));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    private UserDetailsCache cache(int maxEntries, long ttlSeconds) {
+        return new UserDetailsCache(new SimpleMeterRegistry(), maxEntries, ttlSeconds);
+    }
+
+    private Supplier<UserDetails> loader(String username) {
+        return () -> {
+            loads.incrementAndGet();
+            return User.withUsername(username).password("{noop}secret").roles("PATIENT").build();
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.clinic.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The default (simple) broker mode, checked through the beans the application context exposes. Relay
+ * mode is covered end to end by {@link WebSocketRelayIntegrationTest}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WebSocketConfigTest {
+
+    @Autowired
+    private ApplicationContext context;
+    @Autowired
+    @Qualifier("simpleBrokerMessageHandler")
+    private AbstractBrokerMessageHandler brokerHandler;
+    @Autowired
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler brokerScheduler;
+
+    @Test
+    void simpleModeUsesTheInMemoryBrokerWithHeartbeats() {
+        SimpleBrokerMessageHandler simple = assertInstanceOf(SimpleBrokerMessageHandler.class, brokerHandler);
+        assertEquals(List.of("/topic", "/queue"), List.copyOf(simple.getDestinationPrefixes()));
+        assertArrayEquals(new long[] {10000, 10000}, simple.getHeartbeatValue());
+        // heartbeats only run with a scheduler (WebSocketConfig hands over a lazy proxy of this one)
+        assertNotNull(simple.getTaskScheduler());
+        assertNotNull(brokerScheduler);
+        assertTrue(simple.isBrokerAvailable());
+    }
+
+    @Test
+    void simpleModeHasNoRelay() {
+        assertNull(context.getBeanProvider(StompBrokerRelayMessageHandler.class).getIfAvailable());
+    }
+}
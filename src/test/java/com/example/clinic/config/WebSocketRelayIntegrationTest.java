@@ -0,0 +1,155 @@
+package com.example.clinic.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.example.clinic.dto.AppointmentChange;
+import com.example.clinic.model.Role;
+import com.example.clinic.model.User;
+import com.example.clinic.repository.UserRepository;
+import com.example.clinic.service.AppointmentEventPublisher;
+
+/**
+ * Runs the application with clinic.websocket.broker=relay against {@link StompBrokerStandIn}: a logged-in
+ * admin subscribes over SockJS/STOMP, an appointment event is published, and it must travel through the
+ * external broker (SEND from the system session, MESSAGE to the client's relay connection) to the client.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class WebSocketRelayIntegrationTest {
+
+    private static final StompBrokerStandIn broker = startBroker();
+
+    @DynamicPropertySource
+    static void relayProperties(DynamicPropertyRegistry registry) {
+        registry.add("clinic.websocket.broker", () -> "relay");
+        registry.add("clinic.websocket.relay.host", () -> "127.0.0.1");
+        registry.add("clinic.websocket.relay.port", broker::port);
+    }
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private AppointmentEventPublisher publisher;
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        broker.close();
+    }
+
+    @Test
+    void publishedEventReachesASubscribedClientThroughTheExternalBroker() throws Exception {
+        String sessionCookie = login(createAdmin());
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.add("Cookie", sessionCookie);
+        StompSession session = stompClient.connectAsync("http://localhost:" + port + "/ws", handshakeHeaders,
+                new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+
+        CompletableFuture<Map<?, ?>> received = new CompletableFuture<>();
+        session.subscribe(AppointmentEventPublisher.ADMIN_TOPIC, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.complete((Map<?, ?>) payload);
+            }
+        });
+        // the relay forwards the SUBSCRIBE on the client's own broker connection
+        waitFor(() -> broker.subscribed.contains(AppointmentEventPublisher.ADMIN_TOPIC));
+
+        publisher.publish(new AppointmentChange(424242L, 1, false, 3L, "Dr Relay", "General Medicine", "PAT424242",
+                "Relay Patient", LocalDate.now().plusDays(1), (short) 600, "Pending", false, "Checkup", null, null));
+
+        Map<?, ?> event = received.get(10, TimeUnit.SECONDS);
+        assertEquals(424242, ((Number) event.get("id")).intValue());
+        assertEquals("10:00", event.get("time"));
+        assertTrue(broker.sent.contains(AppointmentEventPublisher.ADMIN_TOPIC), "event did not go through the broker");
+        session.disconnect();
+        stompClient.stop();
+    }
+
+    private String createAdmin() {
+        String username = "relayadmin" + System.nanoTime();
+        User admin = new User();
+        admin.setUsername(username);
+        admin.setPassword(passwordEncoder.encode("secret"));
+        admin.setRoles(Set.of(Role.ROLE_ADMIN));
+        userRepository.save(admin);
+        return username;
+    }
+
+    // form login as the dashboard does; returns the Cookie header of the authenticated session
+    private String login(String username) throws Exception {
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "username=" + username + "&password=secret&loginType=admin"))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        assertTrue(location.endsWith("/admin/dashboard?success=login"), "login failed: " + location);
+        String setCookie = response.headers().firstValue("Set-Cookie").orElseThrow();
+        return setCookie.substring(0, setCookie.indexOf(';'));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(20);
+        }
+    }
+
+    private static StompBrokerStandIn startBroker() {
+        try {
+            return new StompBrokerStandIn();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
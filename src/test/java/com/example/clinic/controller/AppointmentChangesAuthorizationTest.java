@@ -0,0 +1,114 @@
+package com.example.clinic.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.clinic.config.ClinicAccess;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.UserRepository;
+import com.example.clinic.service.AppointmentHistoryService;
+import com.example.clinic.service.AppointmentService;
+import com.example.clinic.service.AppointmentStreamService;
+import com.example.clinic.service.ScheduleService;
+
+class AppointmentChangesAuthorizationTest {
+
+    private final AppointmentService appointmentService = mock(AppointmentService.class);
+    private AppointmentController controller;
+
+    @BeforeEach
+    void setUp() {
+        DoctorRepository doctors = mock(DoctorRepository.class);
+        Doctor own = new Doctor();
+        own.setId(7L);
+        own.setUsername("DR1001");
+        when(doctors.findByUsername("DR1001")).thenReturn(Optional.of(own));
+        when(doctors.findByUsername("PAT123")).thenReturn(Optional.empty());
+
+        controller = new AppointmentController(appointmentService, doctors, mock(UserRepository.class),
+                mock(AppointmentHistoryService.class), mock(ScheduleService.class), mock(AppointmentStreamService.class),
+                new ClinicAccess(doctors));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void anonymousClientsAreRefused() {
+        login(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.changes(0, null, null, 500).getStatusCode());
+        SecurityContextHolder.clearContext();
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.changes(0, 7L, null, 500).getStatusCode());
+        verify(appointmentService, never()).findChanges(anyLong(), any(), any(), anyInt());
+    }
+
+    @Test
+    void adminMayFilterFreely() {
+        login(user("admin407", "ROLE_ADMIN"));
+        assertEquals(HttpStatus.OK, controller.changes(0, null, null, 500).getStatusCode());
+        verify(appointmentService).findChanges(0, null, null, 500);
+        assertEquals(HttpStatus.OK, controller.changes(5, 8L, "PAT999", 500).getStatusCode());
+        verify(appointmentService).findChanges(5, 8L, "PAT999", 500);
+    }
+
+    @Test
+    void doctorIsForcedToTheirOwnAppointments() {
+        login(user("DR1001", "ROLE_DOCTOR"));
+        // no doctorId: narrowed to the doctor's own instead of everyone's
+        assertEquals(HttpStatus.OK, controller.changes(0, null, null, 500).getStatusCode());
+        verify(appointmentService).findChanges(0, 7L, null, 500);
+        assertEquals(HttpStatus.OK, controller.changes(3, 7L, null, 500).getStatusCode());
+        verify(appointmentService).findChanges(3, 7L, null, 500);
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.changes(0, 8L, null, 500).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.changes(0, null, "PAT123", 500).getStatusCode());
+        verify(appointmentService, never()).findChanges(anyLong(), eq(8L), any(), anyInt());
+        verify(appointmentService, never()).findChanges(anyLong(), any(), eq("PAT123"), anyInt());
+    }
+
+    @Test
+    void patientIsForcedToTheirOwnAppointments() {
+        login(user("PAT123", "ROLE_PATIENT"));
+        assertEquals(HttpStatus.OK, controller.changes(0, null, null, 500).getStatusCode());
+        verify(appointmentService).findChanges(0, null, "PAT123", 500);
+        assertEquals(HttpStatus.OK, controller.changes(2, null, "PAT123", 500).getStatusCode());
+        verify(appointmentService).findChanges(2, null, "PAT123", 500);
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.changes(0, null, "PAT999", 500).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.changes(0, 7L, null, 500).getStatusCode());
+        verify(appointmentService, never()).findChanges(anyLong(), any(), eq("PAT999"), anyInt());
+        verify(appointmentService, never()).findChanges(anyLong(), eq(7L), isNull(), anyInt());
+    }
+
+    private static void login(Authentication auth) {
+        SecurityContextHolder.getContext().setAuthentication(auth);
+    }
+
+    private static Authentication user(String username, String role) {
+        return new UsernamePasswordAuthenticationToken(username, "n/a", AuthorityUtils.createAuthorityList(role));
+    }
+}
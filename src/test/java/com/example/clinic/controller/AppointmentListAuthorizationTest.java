@@ -0,0 +1,122 @@
+package com.example.clinic.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.clinic.config.ClinicAccess;
+import com.example.clinic.dto.AppointmentFilter;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.UserRepository;
+import com.example.clinic.service.AppointmentHistoryService;
+import com.example.clinic.service.AppointmentService;
+import com.example.clinic.service.AppointmentStreamService;
+import com.example.clinic.service.ScheduleService;
+
+class AppointmentListAuthorizationTest {
+
+    private final AppointmentService appointmentService = mock(AppointmentService.class);
+    private AppointmentController controller;
+
+    @BeforeEach
+    void setUp() {
+        DoctorRepository doctors = mock(DoctorRepository.class);
+        Doctor own = new Doctor();
+        own.setId(7L);
+        own.setUsername("DR1001");
+        when(doctors.findByUsername("DR1001")).thenReturn(Optional.of(own));
+        when(doctors.findByUsername("PAT123")).thenReturn(Optional.empty());
+
+        controller = new AppointmentController(appointmentService, doctors, mock(UserRepository.class),
+                mock(AppointmentHistoryService.class), mock(ScheduleService.class), mock(AppointmentStreamService.class),
+                new ClinicAccess(doctors));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void anonymousClientsAreRefused() {
+        login(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        assertEquals(HttpStatus.UNAUTHORIZED, list(null, null).getStatusCode());
+        SecurityContextHolder.clearContext();
+        assertEquals(HttpStatus.UNAUTHORIZED, list(7L, null).getStatusCode());
+        verify(appointmentService, never()).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    void adminMayFilterFreely() {
+        login(user("admin407", "ROLE_ADMIN"));
+        assertEquals(HttpStatus.OK, list(null, null).getStatusCode());
+        verify(appointmentService).findPage(filter(null, null), null, 50);
+        assertEquals(HttpStatus.OK, list(8L, "PAT999").getStatusCode());
+        verify(appointmentService).findPage(filter(8L, "PAT999"), null, 50);
+    }
+
+    @Test
+    void doctorIsForcedToTheirOwnAppointments() {
+        login(user("DR1001", "ROLE_DOCTOR"));
+        // no doctorId: narrowed to the doctor's own instead of everyone's
+        assertEquals(HttpStatus.OK, list(null, null).getStatusCode());
+        assertEquals(HttpStatus.OK, list(7L, null).getStatusCode());
+        verify(appointmentService, times(2)).findPage(filter(7L, null), null, 50);
+
+        assertEquals(HttpStatus.FORBIDDEN, list(8L, null).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, list(null, "PAT123").getStatusCode());
+        verify(appointmentService, never()).findPage(eq(filter(8L, null)), any(), anyInt());
+        verify(appointmentService, never()).findPage(eq(filter(null, null)), any(), anyInt());
+    }
+
+    @Test
+    void patientIsForcedToTheirOwnAppointments() {
+        login(user("PAT123", "ROLE_PATIENT"));
+        assertEquals(HttpStatus.OK, list(null, null).getStatusCode());
+        assertEquals(HttpStatus.OK, list(null, "PAT123").getStatusCode());
+        verify(appointmentService, times(2)).findPage(filter(null, "PAT123"), null, 50);
+
+        assertEquals(HttpStatus.FORBIDDEN, list(null, "PAT999").getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, list(7L, null).getStatusCode());
+        verify(appointmentService, never()).findPage(eq(filter(null, "PAT999")), isNull(), anyInt());
+        verify(appointmentService, never()).findPage(eq(filter(7L, null)), isNull(), anyInt());
+    }
+
+    private ResponseEntity<?> list(Long doctorId, String patient) {
+        return controller.list(doctorId, patient, null, null, null, null, 50);
+    }
+
+    private static AppointmentFilter filter(Long doctorId, String patientUsername) {
+        return new AppointmentFilter(doctorId, patientUsername, null, null, null);
+    }
+
+    private static void login(Authentication auth) {
+        SecurityContextHolder.getContext().setAuthentication(auth);
+    }
+
+    private static Authentication user(String username, String role) {
+        return new UsernamePasswordAuthenticationToken(username, "n/a", AuthorityUtils.createAuthorityList(role));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.clinic.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.clinic.config.ClinicAccess;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.UserRepository;
+import com.example.clinic.service.AppointmentHistoryService;
+import com.example.clinic.service.AppointmentService;
+import com.example.clinic.service.AppointmentStreamService;
+import com.example.clinic.service.ScheduleService;
+
+class AppointmentStreamAuthorizationTest {
+
+    private final AppointmentStreamService streamService = mock(AppointmentStreamService.class);
+    private AppointmentController controller;
+
+    @BeforeEach
+    void setUp() {
+        DoctorRepository doctors = mock(DoctorRepository.class);
+        Doctor own = new Doctor();
+        own.setId(7L);
+        own.setUsername("DR1001");
+        when(doctors.findByUsername("DR1001")).thenReturn(Optional.of(own));
+        when(doctors.findByUsername("PAT123")).thenReturn(Optional.empty());
+        when(streamService.subscribe(any(), any())).thenReturn(new SseEmitter());
+
+        controller = new AppointmentController(mock(AppointmentService.class), doctors, mock(UserRepository.class),
+                mock(AppointmentHistoryService.class), mock(ScheduleService.class), streamService, new ClinicAccess(doctors));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void anonymousClientsAreRefused() {
+        login(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.stream(null, null).getStatusCode());
+        verify(streamService, never()).subscribe(any(), any());
+    }
+
+    @Test
+    void adminMayStreamEveryDoctorOrOne() {
+        login(user("admin407", "ROLE_ADMIN"));
+        assertEquals(HttpStatus.OK, controller.stream(null, null).getStatusCode());
+        verify(streamService).subscribe(null, null);
+        assertEquals(HttpStatus.OK, controller.stream(8L, "x-1").getStatusCode());
+        verify(streamService).subscribe(8L, "x-1");
+    }
+
+    @Test
+    void doctorIsLimitedToTheirOwnAppointments() {
+        login(user("DR1001", "ROLE_DOCTOR"));
+        // no doctorId: narrowed to the doctor's own instead of everyone's
+        assertEquals(HttpStatus.OK, controller.stream(null, null).getStatusCode());
+        verify(streamService).subscribe(7L, null);
+        assertEquals(HttpStatus.FORBIDDEN, controller.stream(8L, null).getStatusCode());
+        verify(streamService, never()).subscribe(8L, null);
+    }
+
+    @Test
+    void patientsGetNothing() {
+        login(user("PAT123", "ROLE_PATIENT"));
+        assertEquals(HttpStatus.FORBIDDEN, controller.stream(null, null).getStatusCode());
+        verify(streamService, never()).subscribe(any(), any());
+    }
+
+    private static void login(Authentication auth) {
+        SecurityContextHolder.getContext().setAuthentication(auth);
+    }
+
+    private static Authentication user(String username, String role) {
+        return new UsernamePasswordAuthenticationToken(username, "n/a", AuthorityUtils.createAuthorityList(role));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.clinic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SlotDuplicatesTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:slot-duplicates-" + System.nanoTime());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE appointment (id BIGINT PRIMARY KEY, doctor_id BIGINT, date DATE, "
+                    + "start_minute SMALLINT, status VARCHAR(32))");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void cancelledRowsGiveUpASlotThatWasBookedAgain() throws Exception {
+        insert(1, 540, "Cancelled");
+        insert(2, 540, "Confirmed");
+        insert(3, 600, "Cancelled");
+        insert(4, 600, "Cancelled");
+        // alone in its slot: keeps its time
+        insert(5, 660, "Cancelled");
+
+        SlotDuplicates.releaseCancelled(connection, "start_minute");
+
+        assertNull(minuteOf(1));
+        assertEquals(540, (int) minuteOf(2));
+        assertNull(minuteOf(3));
+        assertNull(minuteOf(4));
+        assertEquals(660, (int) minuteOf(5));
+        assertDoesNotThrow(() -> SlotDuplicates.requireNone(connection, "start_minute"));
+    }
+
+    @Test
+    void liveDoubleBookingsStillFail() throws Exception {
+        insert(1, 540, "Pending");
+        insert(2, 540, "Confirmed");
+        insert(3, 540, "Cancelled");
+
+        SlotDuplicates.releaseCancelled(connection, "start_minute");
+
+        assertNull(minuteOf(3));
+        assertThrows(FlywayException.class, () -> SlotDuplicates.requireNone(connection, "start_minute"));
+    }
+
+    private void insert(long id, int minute, String status) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO appointment VALUES (" + id + ", 7, DATE '2026-03-02', " + minute
+                    + ", '" + status + "')");
+        }
+    }
+
+    private Integer minuteOf(long id) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT start_minute FROM appointment WHERE id = " + id)) {
+            rs.next();
+            int minute = rs.getInt(1);
+            return rs.wasNull() ? null : minute;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.clinic.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.clinic.dto.AppointmentCursor;
+import com.example.clinic.dto.AppointmentFilter;
+import com.example.clinic.dto.AppointmentSummary;
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.Doctor;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AppointmentKeysetPaginationTest {
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Test
+    void rowsWithoutAStartMinuteAreNeitherSkippedNorRepeated() {
+        Doctor doctor = new Doctor();
+        doctor.setName("Keyset Doctor");
+        doctor.setSpecialty("General Medicine");
+        doctor.setUsername("DRKEYSET" + System.nanoTime());
+        doctor = doctorRepository.save(doctor);
+
+        LocalDate day = LocalDate.now().plusDays(3);
+        List<Long> expected = new ArrayList<>();
+        // timed rows first, then the untimed ones, in id order within each
+        for (Short minute : new Short[] {540, 600, 660}) {
+            expected.add(save(doctor, day, minute));
+        }
+        for (int i = 0; i < 3; i++) {
+            expected.add(save(doctor, day, null));
+        }
+        expected.add(save(doctor, day.plusDays(1), (short) 480));
+
+        AppointmentFilter filter = new AppointmentFilter(doctor.getId(), null, null, null, null);
+        List<Long> seen = new ArrayList<>();
+        AppointmentCursor cursor = null;
+        for (int page = 0; page < 10; page++) {
+            List<AppointmentSummary> rows = appointmentRepository.findSummaries(filter, cursor, 2);
+            if (rows.isEmpty()) {
+                break;
+            }
+            rows.forEach(row -> seen.add(row.id()));
+            // round-trip through the client token, as the controller does
+            cursor = AppointmentCursor.decode(AppointmentCursor.after(rows.get(rows.size() - 1)).encode());
+        }
+        assertEquals(expected, seen);
+    }
+
+    private Long save(Doctor doctor, LocalDate date, Short minute) {
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatientName("Keyset Patient");
+        appointment.setDate(date);
+        appointment.setStartMinute(minute);
+        appointment.setReason("Test");
+        appointment.setStatus("Pending");
+        return appointmentRepository.save(appointment).getId();
+    }
+}
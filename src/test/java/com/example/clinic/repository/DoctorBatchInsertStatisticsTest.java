@@ -0,0 +1,216 @@
+package com.example.clinic.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.clinic.model.Doctor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Counts what actually reaches JDBC for a bulk insert: Hibernate statistics for entity inserts and prepared
+ * statements, and a counting DataSource wrapper for sequence round trips and executed batches. The 10k
+ * comparison prints both counts; with batch_size=1 every row is its own INSERT round trip, as under the
+ * IDENTITY ids the entities used before (which also fetched each generated key).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class DoctorBatchInsertStatisticsTest {
+
+    private static final int ROWS = 120;
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int BATCH_SIZE = 50;
+
+    private static final AtomicInteger sequenceCalls = new AtomicInteger();
+    private static final AtomicInteger insertBatches = new AtomicInteger();
+    private static final AtomicInteger singleInserts = new AtomicInteger();
+
+    private static final int BULK_ROWS = 10_000;
+    // flush and clear this often so the persistence context stays small; a multiple of the batch size
+    private static final int FLUSH_EVERY = 1000;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record Round(int sequenceCalls, int insertRoundTrips, long prepared) {}
+
+    @Test
+    void bulkInsertUsesPooledIdsAndJdbcBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        sequenceCalls.set(0);
+        insertBatches.set(0);
+        singleInserts.set(0);
+
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Stats Doctor " + i);
+            doctor.setSpecialty("General Medicine");
+            doctor.setUsername("DRSTATS" + System.nanoTime() + "_" + i);
+            doctors.add(doctor);
+        }
+        doctorRepository.saveAll(doctors);
+
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+
+        // pooled optimizer: one round trip per block of 50 ids (3 blocks for 120 rows), never one per row
+        int blocks = (ROWS + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        assertTrue(sequenceCalls.get() >= 1 && sequenceCalls.get() <= blocks + 1,
+                "sequence was called " + sequenceCalls.get() + " times for " + ROWS + " inserts");
+
+        // batching: rows go out as executeBatch calls of up to 50, never as single executeUpdate calls
+        assertEquals((ROWS + BATCH_SIZE - 1) / BATCH_SIZE, insertBatches.get(), "insert batches for " + ROWS + " rows");
+        assertEquals(0, singleInserts.get(), "rows inserted one statement at a time");
+
+        // everything Hibernate prepared for the whole save: the sequence calls and one reused insert statement
+        long prepared = statistics.getPrepareStatementCount();
+        assertTrue(prepared <= sequenceCalls.get() + blocks,
+                prepared + " statements prepared for " + ROWS + " inserts");
+    }
+
+    @Test
+    void tenThousandInsertsBatchedAgainstOneStatementPerRow() {
+        Round batched = insertDoctors(BULK_ROWS, null);
+        Round unbatched = insertDoctors(BULK_ROWS, 1);
+        System.out.println("Doctor inserts, " + BULK_ROWS + " rows: batched " + batched + ", batch_size=1 " + unbatched);
+
+        assertEquals(BULK_ROWS / BATCH_SIZE, batched.insertRoundTrips());
+        assertEquals(BULK_ROWS, unbatched.insertRoundTrips());
+        // the same pooled ids either way; IDENTITY would have needed a key fetch per row on top
+        assertTrue(batched.sequenceCalls() <= BULK_ROWS / ALLOCATION_SIZE + 1,
+                "sequence was called " + batched.sequenceCalls() + " times");
+        assertTrue(batched.insertRoundTrips() + batched.sequenceCalls()
+                        < (unbatched.insertRoundTrips() + unbatched.sequenceCalls()) / 10,
+                "batched " + batched + " against batch_size=1 " + unbatched);
+    }
+
+    // persists rows in one transaction; a null batch size keeps the configured one
+    private Round insertDoctors(int rows, Integer jdbcBatchSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        sequenceCalls.set(0);
+        insertBatches.set(0);
+        singleInserts.set(0);
+
+        String prefix = "DRBULK" + System.nanoTime() + "_";
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (jdbcBatchSize != null) {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            }
+            for (int i = 0; i < rows; i++) {
+                Doctor doctor = new Doctor();
+                doctor.setName("Bulk Doctor " + i);
+                doctor.setSpecialty("General Medicine");
+                doctor.setUsername(prefix + i);
+                entityManager.persist(doctor);
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+
+        assertEquals(rows, statistics.getEntityInsertCount());
+        return new Round(sequenceCalls.get(), insertBatches.get() + singleInserts.get(),
+                statistics.getPrepareStatementCount());
+    }
+
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                            Object result = invoke(target, method, args);
+                            return result instanceof Connection connection ? countingConnection(connection) : result;
+                        });
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (method.getName().equals("prepareStatement") && args != null && args[0] instanceof String sql) {
+                String lower = sql.toLowerCase(Locale.ROOT);
+                if (lower.contains("doctor_seq")) {
+                    sequenceCalls.incrementAndGet();
+                } else if (lower.startsWith("insert into doctor")) {
+                    return countingInsert((PreparedStatement) result);
+                }
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement countingInsert(PreparedStatement statement) {
+        return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+            if (method.getName().equals("executeBatch")) {
+                insertBatches.incrementAndGet();
+            } else if (method.getName().equals("executeUpdate")) {
+                singleInserts.incrementAndGet();
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler invocation = (p, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocation);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.clinic.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.clinic.model.Doctor;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DoctorIdSequenceTest {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aBatchOfInsertsTakesIdsFromPooledBlocks() {
+        long before = nextSequenceValue();
+
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Batch Doctor " + i);
+            doctor.setSpecialty("General Medicine");
+            doctor.setUsername("DRBATCH" + before + "_" + i);
+            doctors.add(doctor);
+        }
+        List<Doctor> saved = doctorRepository.saveAll(doctors);
+
+        Set<Long> ids = new HashSet<>();
+        for (Doctor doctor : saved) {
+            ids.add(doctor.getId());
+        }
+        assertEquals(120, ids.size());
+
+        // one sequence call per block of 50 ids, not one per row (3 blocks, plus one for a partly used block)
+        long after = nextSequenceValue();
+        long calls = (after - before) / ALLOCATION_SIZE - 1;
+        assertTrue(calls <= 4, "sequence was called " + calls + " times for 120 inserts");
+    }
+
+    @Test
+    void sequenceStepMatchesTheEntityAllocationSize() {
+        long first = nextSequenceValue();
+        long second = nextSequenceValue();
+        assertEquals(ALLOCATION_SIZE, second - first);
+    }
+
+    private long nextSequenceValue() {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR doctor_seq", Long.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.clinic.dto.AppointmentChange;
+import com.example.clinic.dto.AppointmentChanges;
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.model.Role;
+import com.example.clinic.model.User;
+import com.example.clinic.repository.AppointmentHistoryRepository;
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AppointmentArchiverTest {
+
+    @Autowired
+    private AppointmentArchiver archiver;
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentHistoryRepository historyRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void archivedAppointmentsLeaveTheFeedATombstoneAndTheIndexTheirSlot() {
+        Doctor doctor = new Doctor();
+        doctor.setName("Archive Doctor");
+        doctor.setSpecialty("General Medicine");
+        doctor.setUsername("DRA" + System.nanoTime());
+        doctor = doctorRepository.save(doctor);
+        User patient = new User();
+        patient.setUsername("PATA" + System.nanoTime());
+        patient.setPassword("x");
+        patient.setRoles(Set.of(Role.ROLE_PATIENT));
+        patient = userRepository.save(patient);
+
+        LocalDate date = LocalDate.now().minusDays(60);
+        short minute = 9 * 60;
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setPatientName(patient.getUsername());
+        appointment.setDate(date);
+        appointment.setStartMinute(minute);
+        appointment.setReason("Test");
+        appointment.setStatus("Completed");
+        Long id = appointmentService.save(appointment).getId();
+        assertTrue(slotIndex.isOccupied(doctor.getId(), date, minute));
+        long since = appointmentService.currentChangeVersion();
+
+        archiver.archive();
+
+        assertFalse(appointmentRepository.existsById(id));
+        assertTrue(historyRepository.existsById(id));
+        assertFalse(slotIndex.isOccupied(doctor.getId(), date, minute));
+        AppointmentChanges changes = appointmentService.findChanges(since, doctor.getId(), null, 100);
+        assertEquals(1, changes.changes().size());
+        AppointmentChange deleted = changes.changes().get(0);
+        assertEquals(id, deleted.id());
+        assertTrue(deleted.deleted());
+        // the patient's own feed sees it too
+        assertEquals(1, appointmentService.findChanges(since, null, patient.getUsername(), 100).changes().size());
+    }
+}
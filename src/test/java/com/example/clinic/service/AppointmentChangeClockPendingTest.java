@@ -0,0 +1,99 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.AppointmentTombstoneRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The clock with a sequence that answers when the test says so: a slow sequence call must neither hold
+ * up other writers nor let the watermark pass the version it is still waiting for.
+ */
+class AppointmentChangeClockPendingTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void slowSequenceCallBlocksNeitherWritersNorTheWatermarkRule() throws Exception {
+        CountDownLatch slowCallStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowCall = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                slowCallStarted.countDown();
+                releaseSlowCall.await();
+                return 10L;
+            }
+            return 11L;
+        });
+        AppointmentChangeClock clock = clock(0, "simple");
+
+        Future<Long> slow = pool.submit(clock::begin);
+        assertTrue(slowCallStarted.await(5, TimeUnit.SECONDS));
+
+        // would wait for the slow call if the sequence were read under the lock
+        long fast = clock.begin();
+        assertEquals(11L, fast);
+        clock.end(fast);
+        // 10 is not known yet, but it is on its way: the feed must stay below it
+        assertTrue(clock.watermark() < 10, "watermark " + clock.watermark() + " passed a pending version");
+
+        releaseSlowCall.countDown();
+        long version = slow.get(5, TimeUnit.SECONDS);
+        assertEquals(10L, version);
+        assertEquals(9L, clock.watermark());
+        clock.end(version);
+        assertEquals(11L, clock.watermark());
+    }
+
+    @Test
+    void watermarkDoesNotWaitForTheFirstFenceToAge() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(5L);
+        AppointmentChangeClock clock = clock(60_000, "relay");
+
+        long started = System.nanoTime();
+        assertEquals(0L, clock.watermark());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1000, "watermark() waited");
+    }
+
+    private AppointmentChangeClock clock(long commitLagMillis, String brokerMode) {
+        AppointmentRepository appointments = mock(AppointmentRepository.class);
+        AppointmentTombstoneRepository tombstones = mock(AppointmentTombstoneRepository.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getJdbcServices().getDialect().getSequenceSupport()
+                .getSequenceNextValString(AppointmentChangeClock.SEQUENCE)).thenReturn("next value");
+
+        AppointmentChangeClock clock = new AppointmentChangeClock(appointments, tombstones, jdbcTemplate,
+                entityManagerFactory, commitLagMillis, brokerMode);
+        clock.init();
+        return clock;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The clock as it runs behind several instances: versions another instance takes straight from the
+ * sequence are invisible to this one, so only the commit lag keeps the feed from passing them.
+ */
+@SpringBootTest(properties = {"clinic.changes.commit-lag-ms=400", "clinic.changes.fence-interval-ms=50"})
+@ActiveProfiles("test")
+class AppointmentChangeClockTest {
+
+    private static final long LAG_MILLIS = 400;
+
+    @Autowired
+    private AppointmentChangeClock clock;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void versionsComeFromTheSharedSequence() {
+        long mine = clock.begin();
+        long other = otherInstanceBegins();
+        long mineAgain = clock.begin();
+        clock.end(mine);
+        clock.end(mineAgain);
+
+        assertTrue(mine < other && other < mineAgain, mine + ", " + other + ", " + mineAgain);
+    }
+
+    @Test
+    void anotherInstancesOpenWriteHoldsTheFeedBackForTheCommitLag() throws Exception {
+        long other = otherInstanceBegins();
+        long taken = System.currentTimeMillis();
+        long mine = clock.begin();
+        clock.end(mine);
+
+        // this instance's write has finished, but the other one (lower version) may still commit
+        assertTrue(clock.watermark() < other, "watermark passed a version another instance may still commit");
+
+        long reached = waitForWatermark(mine);
+        assertTrue(reached - taken >= LAG_MILLIS, "feed reached it after " + (reached - taken) + " ms");
+    }
+
+    @Test
+    void ownOpenWriteHoldsTheFeedBackBeyondTheLag() throws Exception {
+        long mine = clock.begin();
+        Thread.sleep(LAG_MILLIS * 2);
+        assertTrue(clock.watermark() < mine, "watermark passed a write still in flight here");
+
+        clock.end(mine);
+        waitForWatermark(mine);
+    }
+
+    private long otherInstanceBegins() {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + AppointmentChangeClock.SEQUENCE, Long.class);
+    }
+
+    private long waitForWatermark(long version) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10 * LAG_MILLIS;
+        while (clock.watermark() < version) {
+            assertTrue(System.currentTimeMillis() < deadline, "watermark never reached " + version);
+            Thread.sleep(20);
+        }
+        return System.currentTimeMillis();
+    }
+}
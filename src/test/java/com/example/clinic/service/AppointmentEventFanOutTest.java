@@ -0,0 +1,215 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.user.DefaultUserDestinationResolver;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import com.example.clinic.dto.AppointmentChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Books N appointments with M subscribed sessions behind the in-memory broker and counts what reaches
+ * the client outbound channel, for the targeted destinations {@link AppointmentEventPublisher} uses and
+ * for the single broadcast topic every dashboard used to subscribe to.
+ */
+class AppointmentEventFanOutTest {
+
+    private static final int DOCTORS = 50;
+    private static final int SESSIONS_PER_DOCTOR = 2;
+    private static final int PATIENTS = 390;
+    private static final int ADMINS = 10;
+    private static final int SESSIONS = DOCTORS * SESSIONS_PER_DOCTOR + PATIENTS + ADMINS;
+    private static final int BOOKINGS = 200;
+
+    private static final String BROADCAST_TOPIC = "/topic/appointments";
+
+    private final Broker broker = new Broker();
+    private AppointmentEventPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.stop();
+        }
+        broker.stop();
+    }
+
+    @Test
+    void targetedDestinationsDeliverEachBookingOnlyToTheSessionsItConcerns() throws Exception {
+        for (int d = 0; d < DOCTORS; d++) {
+            for (int s = 0; s < SESSIONS_PER_DOCTOR; s++) {
+                broker.subscribe("doctor-" + d + "-" + s, "DR" + d, AppointmentEventPublisher.doctorTopic((long) d));
+            }
+        }
+        for (int p = 0; p < PATIENTS; p++) {
+            broker.subscribe("patient-" + p, "PAT" + p, "/user" + AppointmentEventPublisher.USER_QUEUE);
+        }
+        for (int a = 0; a < ADMINS; a++) {
+            broker.subscribe("admin-" + a, "ADMIN" + a, AppointmentEventPublisher.ADMIN_TOPIC);
+        }
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        publisher = new AppointmentEventPublisher(broker.template, meterRegistry, 1, 200, 10_000);
+        publisher.start();
+        for (int i = 0; i < BOOKINGS; i++) {
+            publisher.publish(booking(i));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (meterRegistry.get("clinic.events.sent").functionCounter().count() < BOOKINGS) {
+            assertTrue(System.nanoTime() < deadline, "publisher did not drain");
+            Thread.sleep(10);
+        }
+
+        // one copy for the patient, one per session of the doctor, one per admin
+        int perBooking = 1 + SESSIONS_PER_DOCTOR + ADMINS;
+        assertEquals(BOOKINGS * perBooking, broker.delivered.get());
+
+        for (int p = 0; p < PATIENTS; p++) {
+            assertEquals(bookingsFor(p, PATIENTS), broker.receivedBy("patient-" + p), "patient " + p);
+        }
+        for (int d = 0; d < DOCTORS; d++) {
+            assertEquals(bookingsFor(d, DOCTORS), broker.receivedBy("doctor-" + d + "-0"), "doctor " + d);
+        }
+        assertEquals(BOOKINGS, broker.receivedBy("admin-0"));
+    }
+
+    @Test
+    void globalBroadcastDeliversEveryBookingToEverySession() {
+        for (int i = 0; i < SESSIONS; i++) {
+            broker.subscribe("session-" + i, "USER" + i, BROADCAST_TOPIC);
+        }
+        for (int i = 0; i < BOOKINGS; i++) {
+            broker.template.convertAndSend(BROADCAST_TOPIC, booking(i));
+        }
+
+        assertEquals(BOOKINGS * SESSIONS, broker.delivered.get());
+        // what the targeted destinations save at this session mix
+        int targeted = BOOKINGS * (1 + SESSIONS_PER_DOCTOR + ADMINS);
+        assertTrue(broker.delivered.get() >= 30L * targeted,
+                broker.delivered.get() + " broadcast messages against " + targeted + " targeted");
+    }
+
+    private static AppointmentChange booking(int i) {
+        long doctorId = i % DOCTORS;
+        String patient = "PAT" + (i % PATIENTS);
+        return new AppointmentChange((long) i, i + 1, false, doctorId, "Dr " + doctorId, "General Medicine",
+                patient, "Patient " + patient, LocalDate.now().plusDays(1), (short) 540, "Pending", false,
+                "Checkup", null, null);
+    }
+
+    private static int bookingsFor(int index, int modulus) {
+        int count = 0;
+        for (int i = 0; i < BOOKINGS; i++) {
+            if (i % modulus == index) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The simple broker and user destination handling wired the way @EnableWebSocketMessageBroker wires
+     * them, with an outbound channel that only counts MESSAGE frames per session.
+     */
+    private static class Broker {
+
+        final AtomicInteger delivered = new AtomicInteger();
+        final Map<String, AtomicInteger> perSession = new ConcurrentHashMap<>();
+
+        final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        final DefaultSimpUserRegistry userRegistry = new DefaultSimpUserRegistry();
+        final SimpleBrokerMessageHandler simpleBroker;
+        final UserDestinationMessageHandler userDestinations;
+        final SimpMessagingTemplate template;
+        final List<Runnable> stops = new ArrayList<>();
+
+        Broker() {
+            MessageChannel clientOutbound = (message, timeout) -> {
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+                if (accessor.getMessageType() == SimpMessageType.MESSAGE) {
+                    delivered.incrementAndGet();
+                    perSession.computeIfAbsent(accessor.getSessionId(), id -> new AtomicInteger()).incrementAndGet();
+                }
+                return true;
+            };
+            simpleBroker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel,
+                    List.of("/topic", "/queue"));
+            userDestinations = new UserDestinationMessageHandler(clientInbound, brokerChannel,
+                    new DefaultUserDestinationResolver(userRegistry));
+            simpleBroker.start();
+            userDestinations.start();
+            stops.add(simpleBroker::stop);
+            stops.add(userDestinations::stop);
+
+            template = new SimpMessagingTemplate(brokerChannel);
+            MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+            converter.setObjectMapper(new ObjectMapper().findAndRegisterModules());
+            template.setMessageConverter(converter);
+        }
+
+        void subscribe(String sessionId, String username, String destination) {
+            Principal user = () -> username;
+            // the simple broker only delivers to sessions it has seen connect
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId(sessionId);
+            connect.setUser(user);
+            connect.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, new long[] {0, 0});
+            simpleBroker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+            SimpMessageHeaderAccessor connected = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+            connected.setSessionId(sessionId);
+            connected.setUser(user);
+            Message<byte[]> connectedMessage = MessageBuilder.createMessage(new byte[0], connected.getMessageHeaders());
+            userRegistry.onApplicationEvent(new SessionConnectedEvent(this, connectedMessage, user));
+
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId(sessionId);
+            subscribe.setSubscriptionId("sub-0");
+            subscribe.setDestination(destination);
+            subscribe.setUser(user);
+            Message<byte[]> message = MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders());
+            // as on the client inbound channel: /user/... is resolved to the session's own queue first
+            if (destination.startsWith("/user/")) {
+                userDestinations.handleMessage(message);
+            } else {
+                simpleBroker.handleMessage(message);
+            }
+        }
+
+        int receivedBy(String sessionId) {
+            AtomicInteger count = perSession.get(sessionId);
+            return count == null ? 0 : count.get();
+        }
+
+        void stop() {
+            stops.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.model.Role;
+import com.example.clinic.model.User;
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AppointmentServiceReserveTest {
+
+    private static final int THREADS = 32;
+    private static final int ROUNDS = 10;
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentBookingsOfOneSlotHaveExactlyOneWinner() throws Exception {
+        Doctor doctor = doctor();
+        User patient = patient();
+        LocalDate date = LocalDate.now().plusDays(7);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            // several rounds, each on a fresh slot, so one lucky interleaving cannot pass the test
+            for (int round = 0; round < ROUNDS; round++) {
+                short minute = (short) (9 * 60 + 15 * round);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Optional<Appointment>>> results = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        return appointmentService.reserve(appointment(doctor, patient, date, minute));
+                    }));
+                }
+                start.countDown();
+
+                int winners = 0;
+                for (Future<Optional<Appointment>> result : results) {
+                    if (result.get(30, TimeUnit.SECONDS).isPresent()) {
+                        winners++;
+                    }
+                }
+                assertEquals(1, winners, "round " + round);
+                assertTrue(slotIndex.isOccupied(doctor.getId(), date, minute));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        List<Appointment> booked = appointmentRepository.findByDoctorAndDate(doctor, date);
+        assertEquals(ROUNDS, booked.size());
+        assertEquals(ROUNDS, booked.stream().map(Appointment::getStartMinute).distinct().count());
+    }
+
+    @Test
+    void unknownToTheIndexTheUniqueConstraintStillRejectsTheSecondBooking() {
+        Doctor doctor = doctor();
+        User patient = patient();
+        LocalDate date = LocalDate.now().plusDays(8);
+        short minute = 11 * 60;
+
+        // load the day into the index, then write behind its back (as another instance would)
+        assertFalse(slotIndex.isOccupied(doctor.getId(), date, minute));
+        appointmentRepository.save(appointment(doctor, patient, date, minute));
+
+        assertTrue(appointmentService.reserve(appointment(doctor, patient, date, minute)).isEmpty());
+        assertTrue(slotIndex.isOccupied(doctor.getId(), date, minute));
+        assertEquals(1, appointmentRepository.findByDoctorAndDate(doctor, date).size());
+    }
+
+    @Test
+    void cancellingAnAppointmentFreesItsSlot() {
+        Doctor doctor = doctor();
+        User patient = patient();
+        LocalDate date = LocalDate.now().plusDays(9);
+        short minute = 14 * 60;
+
+        Appointment first = appointmentService.reserve(appointment(doctor, patient, date, minute)).orElseThrow();
+        assertTrue(slotIndex.isOccupied(doctor.getId(), date, minute));
+        first.setStatus("Cancelled");
+        appointmentService.save(first);
+        assertFalse(slotIndex.isOccupied(doctor.getId(), date, minute));
+
+        // the cancelled row keeps its time for display, and the database accepts the rebooking too
+        assertTrue(appointmentService.reserve(appointment(doctor, patient(), date, minute)).isPresent());
+        List<Appointment> booked = appointmentRepository.findByDoctorAndDate(doctor, date);
+        assertEquals(2, booked.size());
+        assertTrue(booked.stream().allMatch(a -> a.getStartMinute() == minute));
+    }
+
+    @Test
+    void slotIsReleasedWhenTheInsertFailsForAnotherReason() {
+        // a doctor row that does not exist: the insert fails on the foreign key, not on the slot
+        Doctor missing = new Doctor();
+        missing.setId(Long.MAX_VALUE - NAMES.incrementAndGet());
+        LocalDate date = LocalDate.now().plusDays(7);
+        short minute = 10 * 60;
+
+        assertThrows(RuntimeException.class,
+                () -> appointmentService.reserve(appointment(missing, patient(), date, minute)));
+        assertFalse(slotIndex.isOccupied(missing.getId(), date, minute));
+    }
+
+    @Test
+    void onlyTheSlotConstraintCountsAsAConflict() {
+        assertTrue(AppointmentService.isSlotConflict(new DataIntegrityViolationException("x",
+                new org.hibernate.exception.ConstraintViolationException("dup", null,
+                        "PUBLIC.UK_APPOINTMENT_DOCTOR_SLOT_INDEX_5 ON PUBLIC.APPOINTMENT(DOCTOR_ID, DATE, START_MINUTE)"))));
+        assertFalse(AppointmentService.isSlotConflict(new DataIntegrityViolationException("x",
+                new org.hibernate.exception.ConstraintViolationException("fk", null, "fk_appointment_doctor"))));
+    }
+
+    private Doctor doctor() {
+        Doctor doctor = new Doctor();
+        doctor.setName("Test Doctor");
+        doctor.setSpecialty("General Medicine");
+        doctor.setUsername("DRT" + NAMES.incrementAndGet());
+        return doctorRepository.save(doctor);
+    }
+
+    private User patient() {
+        User user = new User();
+        user.setUsername("PATT" + NAMES.incrementAndGet());
+        user.setPassword("x");
+        user.setRoles(Set.of(Role.ROLE_PATIENT));
+        return userRepository.save(user);
+    }
+
+    private static Appointment appointment(Doctor doctor, User patient, LocalDate date, short minute) {
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setPatientName(patient.getUsername());
+        appointment.setDate(date);
+        appointment.setStartMinute(minute);
+        appointment.setReason("Test");
+        appointment.setStatus("Pending");
+        return appointment;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.model.Role;
+import com.example.clinic.model.User;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.UserRepository;
+
+/**
+ * The slot index behind several instances: a cancel committed by another instance goes straight to the
+ * database, and the index must learn about it from the change feed rather than keep the slot taken.
+ */
+@SpringBootTest(properties = {
+        "clinic.slot-index.follow-changes=true",
+        "clinic.slot-index.refresh-ms=100",
+        "clinic.changes.commit-lag-ms=300",
+        "clinic.changes.fence-interval-ms=50"})
+@ActiveProfiles("test")
+class AppointmentSlotIndexFollowTest {
+
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void anotherWritersCancelFreesTheSlot() throws Exception {
+        Doctor doctor = doctor();
+        LocalDate date = LocalDate.now().plusDays(10);
+        short minute = 10 * 60;
+
+        Appointment booked = appointmentService.reserve(appointment(doctor, patient(), date, minute)).orElseThrow();
+        assertTrue(slotIndex.isOccupied(doctor.getId(), date, minute));
+        assertFalse(appointmentService.reserve(appointment(doctor, patient(), date, minute)).isPresent());
+
+        // the second instance: same database, its own index, so this one only sees the committed row
+        int updated = jdbcTemplate.update("UPDATE appointment SET status = 'Cancelled', slot_minute = NULL, "
+                + "change_version = NEXT VALUE FOR " + AppointmentChangeClock.SEQUENCE + " WHERE id = ?", booked.getId());
+        assertEquals(1, updated);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (slotIndex.isOccupied(doctor.getId(), date, minute) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(slotIndex.isOccupied(doctor.getId(), date, minute), "the index kept the cancelled slot");
+        assertTrue(appointmentService.reserve(appointment(doctor, patient(), date, minute)).isPresent());
+    }
+
+    private Doctor doctor() {
+        Doctor doctor = new Doctor();
+        doctor.setName("Follow Doctor");
+        doctor.setSpecialty("General Medicine");
+        doctor.setUsername("DRF" + NAMES.incrementAndGet());
+        return doctorRepository.save(doctor);
+    }
+
+    private User patient() {
+        User user = new User();
+        user.setUsername("PATF" + NAMES.incrementAndGet());
+        user.setPassword("x");
+        user.setRoles(Set.of(Role.ROLE_PATIENT));
+        return userRepository.save(user);
+    }
+
+    private static Appointment appointment(Doctor doctor, User patient, LocalDate date, short minute) {
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setPatientName(patient.getUsername());
+        appointment.setDate(date);
+        appointment.setStartMinute(minute);
+        appointment.setReason("Test");
+        appointment.setStatus("Pending");
+        return appointment;
+    }
+}
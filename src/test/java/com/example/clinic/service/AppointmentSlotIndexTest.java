@@ -0,0 +1,209 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.clinic.dto.AppointmentChange;
+import com.example.clinic.repository.AppointmentRepository;
+import com.example.clinic.repository.AppointmentTombstoneRepository;
+
+/**
+ * The index against a mocked repository holding a list of rows, so each test can change the "database"
+ * behind the index and check exactly when a day is read again.
+ */
+class AppointmentSlotIndexTest {
+
+    private static final long DOCTOR = 7L;
+    private static final LocalDate DAY = LocalDate.now().plusDays(3);
+    private static final LocalDate OTHER_DAY = DAY.plusDays(1);
+    private static final int NINE = 9 * 60;
+    private static final int TEN = 10 * 60;
+
+    private final AppointmentRepository appointments = mock(AppointmentRepository.class);
+    private final AppointmentTombstoneRepository tombstones = mock(AppointmentTombstoneRepository.class);
+    private final AppointmentChangeClock changeClock = mock(AppointmentChangeClock.class);
+    private final List<Row> rows = new ArrayList<>();
+    private AppointmentSlotIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(appointments.findSlotsByDoctorIdAndDate(anyLong(), any())).thenAnswer(invocation -> rows.stream()
+                .filter(row -> row.doctorId().equals(invocation.getArgument(0))
+                        && row.date().equals(invocation.getArgument(1)))
+                .map(Row::slot)
+                .toList());
+        when(appointments.findSlotsByDoctorIdsAndDateRange(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> doctorIds = invocation.getArgument(0);
+            LocalDate from = invocation.getArgument(1);
+            LocalDate to = invocation.getArgument(2);
+            return rows.stream()
+                    .filter(row -> doctorIds.contains(row.doctorId())
+                            && !row.date().isBefore(from) && !row.date().isAfter(to))
+                    .map(Row::slot)
+                    .toList();
+        });
+        index = index("simple");
+    }
+
+    @Test
+    void tryReserveClaimsAFreeSlotOnceAndReleaseGivesItBack() {
+        assertTrue(index.tryReserve(DOCTOR, DAY, NINE));
+        assertFalse(index.tryReserve(DOCTOR, DAY, NINE));
+        assertTrue(index.isOccupied(DOCTOR, DAY, NINE));
+
+        index.release(DOCTOR, DAY, NINE);
+        assertFalse(index.isOccupied(DOCTOR, DAY, NINE));
+        assertTrue(index.tryReserve(DOCTOR, DAY, NINE));
+    }
+
+    @Test
+    void recordMarksTheSlotOfALoadedDayWithoutReadingItAgain() {
+        assertFalse(index.isOccupied(DOCTOR, DAY, NINE));
+
+        rows.add(new Row(1L, DOCTOR, DAY, (short) NINE));
+        index.record(1L, DOCTOR, DAY, (short) NINE);
+
+        assertTrue(index.isOccupied(DOCTOR, DAY, NINE));
+        verify(appointments, times(1)).findSlotsByDoctorIdAndDate(DOCTOR, DAY);
+    }
+
+    @Test
+    void movingAnAppointmentFreesTheOldSlotAndTakesTheNewOne() {
+        rows.add(new Row(1L, DOCTOR, DAY, (short) NINE));
+        assertTrue(index.isOccupied(DOCTOR, DAY, NINE));
+        assertFalse(index.isOccupied(DOCTOR, OTHER_DAY, TEN));
+
+        rows.set(0, new Row(1L, DOCTOR, OTHER_DAY, (short) TEN));
+        index.record(1L, DOCTOR, OTHER_DAY, (short) TEN);
+
+        assertFalse(index.isOccupied(DOCTOR, DAY, NINE));
+        assertTrue(index.isOccupied(DOCTOR, OTHER_DAY, TEN));
+    }
+
+    @Test
+    void cancellingFreesTheSlotButNotItsNeighbours() {
+        rows.add(new Row(1L, DOCTOR, DAY, (short) NINE));
+        rows.add(new Row(2L, DOCTOR, DAY, (short) TEN));
+        assertTrue(index.isOccupied(DOCTOR, DAY, NINE));
+
+        rows.set(0, new Row(1L, DOCTOR, DAY, null));
+        index.record(1L, DOCTOR, DAY, null);
+
+        assertFalse(index.isOccupied(DOCTOR, DAY, NINE));
+        assertTrue(index.isOccupied(DOCTOR, DAY, TEN));
+        // cleared in place; the day is not read again
+        verify(appointments, times(1)).findSlotsByDoctorIdAndDate(DOCTOR, DAY);
+    }
+
+    @Test
+    void deletingAnAppointmentFreesItsSlot() {
+        rows.add(new Row(1L, DOCTOR, DAY, (short) NINE));
+        assertTrue(index.isOccupied(DOCTOR, DAY, NINE));
+
+        rows.clear();
+        index.remove(1L);
+
+        assertFalse(index.isOccupied(DOCTOR, DAY, NINE));
+    }
+
+    @Test
+    void warmLoadsEveryMissingDayWithOneQuery() {
+        rows.add(new Row(1L, DOCTOR, DAY, (short) NINE));
+        rows.add(new Row(2L, DOCTOR + 1, OTHER_DAY, (short) TEN));
+
+        index.warm(List.of(DOCTOR, DOCTOR + 1), DAY, OTHER_DAY);
+
+        assertEquals(4, index.loadedDays());
+        assertTrue(index.isOccupied(DOCTOR, DAY, NINE));
+        assertTrue(index.isOccupied(DOCTOR + 1, OTHER_DAY, TEN));
+        assertFalse(index.isOccupied(DOCTOR + 1, DAY, TEN));
+        verify(appointments, times(1)).findSlotsByDoctorIdsAndDateRange(anyCollection(), any(), any());
+        verify(appointments, never()).findSlotsByDoctorIdAndDate(anyLong(), any());
+
+        // a warmed appointment is placed too: deleting it frees the slot
+        rows.remove(0);
+        index.remove(1L);
+        assertFalse(index.isOccupied(DOCTOR, DAY, NINE));
+    }
+
+    @Test
+    void sweepDropsPastDaysOnly() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        rows.add(new Row(1L, DOCTOR, yesterday, (short) NINE));
+        assertTrue(index.isOccupied(DOCTOR, yesterday, NINE));
+        assertFalse(index.isOccupied(DOCTOR, DAY, NINE));
+        assertEquals(2, index.loadedDays());
+
+        index.evictPastDays();
+
+        assertEquals(1, index.loadedDays());
+        // a past day queried again is simply reloaded
+        assertTrue(index.isOccupied(DOCTOR, yesterday, NINE));
+        verify(appointments, times(2)).findSlotsByDoctorIdAndDate(DOCTOR, yesterday);
+    }
+
+    @Test
+    void followingTheFeedDropsDaysOtherWritersChanged() {
+        index = index("relay");
+        when(changeClock.watermark()).thenReturn(5L);
+        index.followChanges();
+
+        rows.add(new Row(1L, DOCTOR, DAY, (short) NINE));
+        assertTrue(index.isOccupied(DOCTOR, DAY, NINE));
+
+        // another instance cancels it: only the row and the feed know
+        rows.set(0, new Row(1L, DOCTOR, DAY, null));
+        when(changeClock.watermark()).thenReturn(6L);
+        when(appointments.findChanges(eq(5L), eq(6L), isNull(), isNull(), any()))
+                .thenReturn(List.of(change(1L, 6L, DAY)));
+        index.followChanges();
+
+        assertFalse(index.isOccupied(DOCTOR, DAY, NINE));
+    }
+
+    @Test
+    void aSingleInstanceDoesNotReadTheFeed() {
+        index.followChanges();
+
+        verify(changeClock, never()).watermark();
+    }
+
+    private AppointmentSlotIndex index(String brokerMode) {
+        return new AppointmentSlotIndex(appointments, tombstones, changeClock, "auto", brokerMode);
+    }
+
+    private static AppointmentChange change(long id, long version, LocalDate date) {
+        return new AppointmentChange(id, version, false, DOCTOR, "Dr Index", "General Medicine", "PATINDEX",
+                "Index Patient", date, null, "Cancelled", false, "Test", null, null);
+    }
+
+    private record Row(Long id, Long doctorId, LocalDate date, Short slotMinute) {
+        AppointmentRepository.SlotRow slot() {
+            return new AppointmentRepository.SlotRow() {
+                public Long getId() { return id; }
+                public Long getDoctorId() { return doctorId; }
+                public LocalDate getDate() { return date; }
+                public Short getSlotMinute() { return slotMinute; }
+            };
+        }
+    }
+}
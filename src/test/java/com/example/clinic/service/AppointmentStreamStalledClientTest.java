@@ -0,0 +1,173 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.clinic.dto.AppointmentChange;
+import com.example.clinic.model.Role;
+import com.example.clinic.model.User;
+import com.example.clinic.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A client that opens the SSE stream and never reads must not hold up everyone else: with a single sender
+ * thread, its stuck write would otherwise keep every other client from receiving anything.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "clinic.events.stream.sender-threads=1",
+        "clinic.events.stream.send-time-limit-ms=500",
+        "clinic.events.stream.watchdog-ms=100",
+        "clinic.events.stream.heartbeat-ms=3600000"})
+@ActiveProfiles("test")
+class AppointmentStreamStalledClientTest {
+
+    /** Small server send buffers, so the stalled client's socket fills after a few hundred KB. */
+    @TestConfiguration
+    static class SmallSendBuffers {
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> smallSocketSendBuffer() {
+            return factory -> factory.addConnectorCustomizers(
+                    connector -> connector.setProperty("socket.txBufSize", "8192"));
+        }
+    }
+
+    // about 2 KB per event, so a couple of hundred fill any loopback buffer
+    private static final String REASON = "Follow-up consultation, ".repeat(80);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private AppointmentEventPublisher publisher;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Socket stalledClient;
+    private CompletableFuture<Void> reader;
+
+    @AfterEach
+    void closeClients() throws IOException {
+        if (reader != null) {
+            reader.cancel(true);
+        }
+        if (stalledClient != null) {
+            stalledClient.close();
+        }
+    }
+
+    @Test
+    void clientThatNeverReadsDoesNotStarveTheOthers() throws Exception {
+        String cookie = login(createAdmin());
+        stalledClient = openWithoutReading(cookie);
+
+        long id = 800_000_000L;
+        for (int i = 0; i < 200; i++) {
+            publisher.publish(event(id++, "Stalled Patient"));
+        }
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (stalledCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(stalledCount() >= 1, "the watchdog never noticed the stuck write");
+
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        reader = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()
+                .sendAsync(HttpRequest.newBuilder()
+                                .uri(URI.create("http://localhost:" + port + "/api/appointments/stream"))
+                                .header("Cookie", cookie)
+                                .header("Accept", "text/event-stream")
+                                .build(),
+                        HttpResponse.BodyHandlers.ofLines())
+                .thenAccept(response -> response.body().forEach(lines::add));
+        // subscribed once the stream has sent its first line (the reconnect time)
+        assertTrue(lines.poll(10, TimeUnit.SECONDS) != null, "the reading client got nothing");
+
+        publisher.publish(event(id, "Reading Patient"));
+        long until = System.currentTimeMillis() + 10_000;
+        boolean received = false;
+        while (!received && System.currentTimeMillis() < until) {
+            String line = lines.poll(100, TimeUnit.MILLISECONDS);
+            received = line != null && line.startsWith("data:") && line.contains("Reading Patient");
+        }
+        assertTrue(received, "the reading client did not get the event behind the stalled one");
+    }
+
+    // a raw request with a tiny receive window that is never read from
+    private Socket openWithoutReading(String cookie) throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress("localhost", port), 10_000);
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET /api/appointments/stream HTTP/1.1\r\n"
+                + "Host: localhost:" + port + "\r\n"
+                + "Accept: text/event-stream\r\n"
+                + "Cookie: " + cookie + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return socket;
+    }
+
+    private String createAdmin() {
+        String username = "streamadmin" + System.nanoTime();
+        User admin = new User();
+        admin.setUsername(username);
+        admin.setPassword(passwordEncoder.encode("secret"));
+        admin.setRoles(Set.of(Role.ROLE_ADMIN));
+        userRepository.save(admin);
+        return username;
+    }
+
+    // form login as the dashboard does; returns the Cookie header of the authenticated session
+    private String login(String username) throws Exception {
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "username=" + username + "&password=secret&loginType=admin"))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        assertTrue(location.endsWith("/admin/dashboard?success=login"), "login failed: " + location);
+        String setCookie = response.headers().firstValue("Set-Cookie").orElseThrow();
+        return setCookie.substring(0, setCookie.indexOf(';'));
+    }
+
+    private static AppointmentChange event(long id, String patientName) {
+        return new AppointmentChange(id, id, false, 1L, "Dr Stream", "General Medicine", "PATSTREAM", patientName,
+                LocalDate.now().plusDays(1), (short) 540, "Pending", false, REASON, null, null);
+    }
+
+    private double stalledCount() {
+        return meterRegistry.get("clinic.events.stream.stalled").functionCounter().count();
+    }
+}
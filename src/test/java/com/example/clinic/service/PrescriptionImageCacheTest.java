@@ -0,0 +1,72 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.clinic.dto.PrescriptionRef;
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.model.User;
+
+class PrescriptionImageCacheTest {
+
+    private static final LocalDateTime COMPLETED = LocalDateTime.of(2024, 3, 1, 10, 30);
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void versionChangesWithEveryRenderedName() {
+        Appointment appointment = appointment();
+        long original = PrescriptionImageCache.versionOf(appointment);
+
+        appointment.getDoctor().setName("Renamed");
+        long renamedDoctor = PrescriptionImageCache.versionOf(appointment);
+        assertNotEquals(original, renamedDoctor);
+
+        appointment.getDoctor().setSpecialty("Cardiology");
+        long newSpecialty = PrescriptionImageCache.versionOf(appointment);
+        assertNotEquals(renamedDoctor, newSpecialty);
+
+        appointment.setPatientName("Jane Q. Patient");
+        assertNotEquals(newSpecialty, PrescriptionImageCache.versionOf(appointment));
+    }
+
+    @Test
+    void liveAndExportedCopiesShareAVersion() {
+        Appointment appointment = appointment();
+        PrescriptionRef ref = new PrescriptionRef(1L, DATE, COMPLETED, true, "Ada Lovelace", "General Medicine",
+                "Jane Patient", "PAT123456");
+        long version = PrescriptionImageCache.versionOf(appointment);
+        assertEquals(version, PrescriptionImageCache.versionOf(ref));
+        assertTrue(version >= 0);
+    }
+
+    @Test
+    void staleVersionIsNotServedFromTheCache() {
+        PrescriptionImageCache cache = new PrescriptionImageCache(1024);
+        cache.put(1L, 7L, new byte[] {1, 2, 3});
+        assertEquals(3, cache.get(1L, 7L).length);
+        assertNull(cache.get(1L, 8L));
+    }
+
+    private static Appointment appointment() {
+        Doctor doctor = new Doctor();
+        doctor.setName("Ada Lovelace");
+        doctor.setSpecialty("General Medicine");
+        User patient = new User();
+        patient.setUsername("PAT123456");
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setPatientName("Jane Patient");
+        appointment.setDate(DATE);
+        appointment.setConsultationEndTime(COMPLETED);
+        return appointment;
+    }
+}
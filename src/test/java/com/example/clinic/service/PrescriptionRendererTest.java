@@ -0,0 +1,61 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class PrescriptionRendererTest {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    @Test
+    void concurrentRendersThroughASmallPoolProduceIdenticalDocuments() throws Exception {
+        PrescriptionRenderer renderer = new PrescriptionRenderer(0.1f, 2);
+        List<PrescriptionLayout.Element> content = PrescriptionLayout.content(new PrescriptionLayout.Details(
+                "Dr. Ada Lovelace", "General Medicine", "Jane Patient", "PAT123456", "2024-03-01",
+                "Influenza", "Rest and fluids", "Review in a week", LocalDateTime.of(2024, 3, 1, 10, 30)));
+        byte[] expected = renderer.renderPng(content);
+        assertArrayEquals(PNG_SIGNATURE, Arrays.copyOf(expected, PNG_SIGNATURE.length));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> renders = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                renders.add(pool.submit(() -> renderer.renderPng(content)));
+            }
+            for (Future<byte[]> render : renders) {
+                // a canvas shared by two renders at once would show up as a different image
+                assertArrayEquals(expected, render.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+            renderer.shutdown();
+        }
+    }
+
+    @Test
+    void differentContentRendersDifferently() throws Exception {
+        PrescriptionRenderer renderer = new PrescriptionRenderer(0.1f, 1);
+        byte[] first = renderer.renderPng(PrescriptionLayout.content(details("Influenza")));
+        byte[] second = renderer.renderPng(PrescriptionLayout.content(details("Migraine")));
+        // the canvas is cleared between renders, so the second does not carry the first's text
+        assertFalse(Arrays.equals(first, second));
+        assertArrayEquals(first, renderer.renderPng(PrescriptionLayout.content(details("Influenza"))));
+        renderer.shutdown();
+    }
+
+    private static PrescriptionLayout.Details details(String diagnosis) {
+        return new PrescriptionLayout.Details("Dr. Ada Lovelace", "General Medicine", "Jane Patient", "PAT123456",
+                "2024-03-01", diagnosis, "Rest", null, LocalDateTime.of(2024, 3, 1, 10, 30));
+    }
+}
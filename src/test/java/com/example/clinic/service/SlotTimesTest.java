@@ -0,0 +1,46 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class SlotTimesTest {
+
+    @Test
+    void everyMinuteRoundTripsThroughBothFormats() {
+        for (int minute = 0; minute < SlotTimes.MINUTES_PER_DAY; minute++) {
+            assertEquals(minute, SlotTimes.parseMinute(SlotTimes.formatClock(minute)));
+            assertEquals(minute, SlotTimes.parseMinute(SlotTimes.formatDisplay((short) minute)));
+        }
+    }
+
+    @Test
+    void formatsClockAndDisplayForms() {
+        assertEquals("00:00", SlotTimes.formatClock(0));
+        assertEquals("09:05", SlotTimes.formatClock(9 * 60 + 5));
+        assertEquals("23:59", SlotTimes.formatClock(1439));
+        assertEquals("12:00 AM", SlotTimes.formatDisplay((short) 0));
+        assertEquals("12:30 PM", SlotTimes.formatDisplay((short) (12 * 60 + 30)));
+        assertEquals("N/A", SlotTimes.formatDisplay(null));
+        assertNull(SlotTimes.formatClock((Short) null));
+        assertNull(SlotTimes.formatClock(SlotTimes.MINUTES_PER_DAY));
+    }
+
+    @Test
+    void parsesLegacyVariants() {
+        assertEquals(9 * 60, SlotTimes.parseMinute("9:00"));
+        assertEquals(9 * 60, SlotTimes.parseMinute(" 09:00 "));
+        assertEquals(21 * 60 + 15, SlotTimes.parseMinute("9:15 pm"));
+        assertEquals(30, SlotTimes.parseMinute("12:30AM"));
+    }
+
+    @Test
+    void rejectsMalformedTimes() {
+        for (String time : new String[] {null, "", "9", "24:00", "9:60", "13:00 PM", "0:30 AM", "9:0", "ab:cd", "9:00 XM"}) {
+            assertEquals(-1, SlotTimes.parseMinute(time), String.valueOf(time));
+        }
+        assertNull(SlotTimes.toStored("not a time"));
+        assertEquals((short) 600, SlotTimes.toStored("10:00"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.clinic.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.clinic.dto.AppointmentChanges;
+import com.example.clinic.model.Appointment;
+import com.example.clinic.model.Doctor;
+import com.example.clinic.model.Role;
+import com.example.clinic.model.User;
+import com.example.clinic.repository.AppointmentTombstoneRepository;
+import com.example.clinic.repository.DoctorRepository;
+import com.example.clinic.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TombstoneSweeperTest {
+
+    @Autowired
+    private TombstoneSweeper sweeper;
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentTombstoneRepository tombstoneRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cursorsOlderThanTheSweptTombstonesAreToldToResync() {
+        long before = appointmentService.currentChangeVersion();
+        Appointment appointment = appointmentService.save(appointment());
+        appointmentService.delete(appointment);
+        long after = appointmentService.currentChangeVersion();
+        // the delete happened long ago as far as the retention is concerned
+        jdbcTemplate.update("UPDATE appointment_tombstone SET deleted_at = ? WHERE appointment_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(30)), appointment.getId());
+
+        sweeper.sweep();
+
+        assertFalse(tombstoneRepository.existsById(appointment.getId()));
+        AppointmentChanges stale = appointmentService.findChanges(before, null, null, 100);
+        assertTrue(stale.resync());
+        assertTrue(stale.changes().isEmpty());
+        // a client that already saw the delete carries on as before
+        assertFalse(appointmentService.findChanges(after, null, null, 100).resync());
+        assertFalse(appointmentService.findChanges(stale.version(), null, null, 100).resync());
+    }
+
+    private Appointment appointment() {
+        Doctor doctor = new Doctor();
+        doctor.setName("Sweep Doctor");
+        doctor.setSpecialty("General Medicine");
+        doctor.setUsername("DRS" + System.nanoTime());
+        doctor = doctorRepository.save(doctor);
+        User patient = new User();
+        patient.setUsername("PATS" + System.nanoTime());
+        patient.setPassword("x");
+        patient.setRoles(Set.of(Role.ROLE_PATIENT));
+        patient = userRepository.save(patient);
+
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setPatientName(patient.getUsername());
+        appointment.setDate(LocalDate.now().plusDays(5));
+        appointment.setStartMinute((short) (9 * 60));
+        appointment.setReason("Test");
+        appointment.setStatus("Pending");
+        return appointment;
+    }
+}